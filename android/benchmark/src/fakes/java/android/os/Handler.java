@@ -0,0 +1,28 @@
+package android.os;
+
+/** JVM fake: posts to its {@link Looper}'s virtual-time queue. */
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable runnable) {
+        looper.post(runnable, 0);
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable runnable, long delayMillis) {
+        looper.post(runnable, delayMillis);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable runnable) {
+        looper.remove(runnable);
+    }
+}
@@ -0,0 +1,18 @@
+package android.os;
+
+/** JVM fake: shares the main {@link Looper}, so core work runs when it is drained. */
+public class HandlerThread {
+    public HandlerThread(String name, int priority) {
+    }
+
+    public void start() {
+    }
+
+    public Looper getLooper() {
+        return Looper.getMainLooper();
+    }
+
+    public boolean quitSafely() {
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package android.os;
+
+import java.util.PriorityQueue;
+
+/**
+ * JVM fake on a virtual clock: posted work runs only when a benchmark drains
+ * the queue, with {@link #runAll()} for what is due now or {@link #idleFor}
+ * to move time forward. There is only the main looper and whichever thread
+ * drains it is the main thread, so runs are deterministic.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private final PriorityQueue<Message> queue = new PriorityQueue<>();
+    private long nowMs;
+    private long sequence;
+
+    static final class Message implements Comparable<Message> {
+        final Runnable runnable;
+        final long whenMs;
+        final long sequence;
+
+        Message(Runnable runnable, long whenMs, long sequence) {
+            this.runnable = runnable;
+            this.whenMs = whenMs;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Message other) {
+            return whenMs != other.whenMs ? Long.compare(whenMs, other.whenMs) : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return MAIN;
+    }
+
+    /** Virtual time in milliseconds, as returned by {@link SystemClock}. */
+    public long now() {
+        return nowMs;
+    }
+
+    void post(Runnable runnable, long delayMs) {
+        queue.add(new Message(runnable, nowMs + Math.max(0, delayMs), sequence++));
+    }
+
+    void remove(Runnable runnable) {
+        queue.removeIf(message -> message.runnable == runnable);
+    }
+
+    /** Runs everything due now, including work posted while running. */
+    public void runAll() {
+        idleFor(0);
+    }
+
+    /** Advances the clock by {@code ms}, running each message at its time. */
+    public void idleFor(long ms) {
+        long end = nowMs + ms;
+        Message message;
+        while ((message = queue.peek()) != null && message.whenMs <= end) {
+            queue.poll();
+            nowMs = Math.max(nowMs, message.whenMs);
+            message.runnable.run();
+        }
+        nowMs = end;
+    }
+
+    /** Number of messages waiting, due or not. */
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Drops every waiting message, between benchmark invocations. */
+    public void reset() {
+        queue.clear();
+    }
+}
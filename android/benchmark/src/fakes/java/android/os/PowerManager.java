@@ -0,0 +1,9 @@
+package android.os;
+
+/** JVM fake: only the constants {@code DeviceState} reads. */
+public final class PowerManager {
+    public static final int THERMAL_STATUS_SEVERE = 3;
+
+    private PowerManager() {
+    }
+}
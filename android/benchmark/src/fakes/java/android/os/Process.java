@@ -0,0 +1,12 @@
+package android.os;
+
+public final class Process {
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+    public static final int THREAD_PRIORITY_URGENT_AUDIO = -19;
+
+    private Process() {
+    }
+
+    public static void setThreadPriority(int priority) {
+    }
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/** JVM fake: the main {@link Looper}'s virtual clock. */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return Looper.getMainLooper().now();
+    }
+
+    public static long uptimeMillis() {
+        return Looper.getMainLooper().now();
+    }
+}
@@ -0,0 +1,36 @@
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** JVM fake: frame callbacks run when the benchmark calls {@link #doFrame()}. */
+public final class Choreographer {
+    private static final Choreographer INSTANCE = new Choreographer();
+
+    private final List<FrameCallback> callbacks = new ArrayList<>();
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    public static Choreographer getInstance() {
+        return INSTANCE;
+    }
+
+    public void postFrameCallback(FrameCallback callback) {
+        callbacks.add(callback);
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        callbacks.remove(callback);
+    }
+
+    public void doFrame() {
+        long now = System.nanoTime();
+        List<FrameCallback> due = new ArrayList<>(callbacks);
+        callbacks.clear();
+        for (FrameCallback callback : due) {
+            callback.doFrame(now);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.egytelecoms.hatif;
+
+/**
+ * JVM fake of the plugin's event builder, which reads a live core. Only the
+ * replay de-duplication uses it, which the benchmarks do not exercise.
+ */
+final class PluginEvents {
+    private PluginEvents() {
+    }
+
+    static Object keyOf(Object event) {
+        return null;
+    }
+
+    static String stateOf(Object event) {
+        return null;
+    }
+}
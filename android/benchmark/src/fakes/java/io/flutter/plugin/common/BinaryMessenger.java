@@ -0,0 +1,5 @@
+package io.flutter.plugin.common;
+
+/** JVM fake: channels only need a messenger to be constructed. */
+public interface BinaryMessenger {
+}
@@ -0,0 +1,49 @@
+package io.flutter.plugin.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM fake: channels are kept by name so a benchmark can {@link #listen} to
+ * one with its own sink, as the engine does when Dart subscribes.
+ */
+public final class EventChannel {
+    private static final Map<String, EventChannel> channels = new ConcurrentHashMap<>();
+
+    private StreamHandler handler;
+
+    public interface StreamHandler {
+        void onListen(Object arguments, EventSink events);
+
+        void onCancel(Object arguments);
+    }
+
+    public interface EventSink {
+        void success(Object event);
+
+        void error(String errorCode, String errorMessage, Object errorDetails);
+
+        void endOfStream();
+    }
+
+    public EventChannel(BinaryMessenger messenger, String name, StandardMethodCodec codec) {
+        channels.put(name, this);
+    }
+
+    /** The channel last created with {@code name}. */
+    public static EventChannel named(String name) {
+        return channels.get(name);
+    }
+
+    public void setStreamHandler(StreamHandler handler) {
+        this.handler = handler;
+    }
+
+    public void listen(EventSink sink) {
+        handler.onListen(null, sink);
+    }
+
+    public void cancel() {
+        handler.onCancel(null);
+    }
+}
@@ -0,0 +1,54 @@
+package io.flutter.plugin.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** JVM stand-in for Flutter's method codec: method calls and envelopes over a message codec. */
+public final class StandardMethodCodec {
+    private final StandardMessageCodec messageCodec;
+
+    public StandardMethodCodec(StandardMessageCodec messageCodec) {
+        this.messageCodec = messageCodec;
+    }
+
+    public ByteBuffer encodeMethodCall(MethodCall methodCall) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        messageCodec.writeValue(stream, methodCall.method);
+        messageCodec.writeValue(stream, methodCall.arguments);
+        return toBuffer(stream);
+    }
+
+    public MethodCall decodeMethodCall(ByteBuffer methodCall) {
+        methodCall.order(ByteOrder.nativeOrder());
+        Object method = messageCodec.readValue(methodCall);
+        Object arguments = messageCodec.readValue(methodCall);
+        if (method instanceof String && !methodCall.hasRemaining()) {
+            return new MethodCall((String) method, arguments);
+        }
+        throw new IllegalArgumentException("Method call corrupted");
+    }
+
+    public ByteBuffer encodeSuccessEnvelope(Object result) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(0);
+        messageCodec.writeValue(stream, result);
+        return toBuffer(stream);
+    }
+
+    public ByteBuffer encodeErrorEnvelope(String errorCode, String errorMessage, Object errorDetails) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(1);
+        messageCodec.writeValue(stream, errorCode);
+        messageCodec.writeValue(stream, errorMessage);
+        messageCodec.writeValue(stream, errorDetails);
+        return toBuffer(stream);
+    }
+
+    private static ByteBuffer toBuffer(ByteArrayOutputStream stream) {
+        byte[] bytes = stream.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+}
@@ -0,0 +1,20 @@
+package org.linphone.core;
+
+/** JVM fake holding only what the call history reads. */
+public class Address {
+    private final String username;
+    private final String displayName;
+
+    public Address(String username, String displayName) {
+        this.username = username;
+        this.displayName = displayName;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,38 @@
+package org.linphone.core;
+
+/** JVM fake: the enums the plugin reads and a remote address. */
+public class Call {
+    public enum State {
+        Idle, IncomingReceived, PushIncomingReceived, OutgoingInit, OutgoingProgress, OutgoingRinging,
+        OutgoingEarlyMedia, Connected, StreamsRunning, Pausing, Paused, Resuming, Referred, Error, End,
+        PausedByRemote, UpdatedByRemote, IncomingEarlyMedia, Updating, Released, EarlyUpdatedByRemote,
+        EarlyUpdating
+    }
+
+    public enum Status {
+        Success, Aborted, Missed, Declined, EarlyAborted, AcceptedElsewhere, DeclinedElsewhere
+    }
+
+    public enum Dir {
+        Outgoing, Incoming
+    }
+
+    private final Address remoteAddress;
+    private State state = State.Idle;
+
+    public Call(Address remoteAddress) {
+        this.remoteAddress = remoteAddress;
+    }
+
+    public Address getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,51 @@
+package org.linphone.core;
+
+/** JVM fake of a finished call's log entry. */
+public class CallLog {
+    private final String callId;
+    private final Call.Dir dir;
+    private final Address from;
+    private final Address to;
+    private final long startDate;
+    private final int duration;
+    private final Call.Status status;
+
+    public CallLog(String callId, Call.Dir dir, Address from, Address to, long startDate, int duration,
+            Call.Status status) {
+        this.callId = callId;
+        this.dir = dir;
+        this.from = from;
+        this.to = to;
+        this.startDate = startDate;
+        this.duration = duration;
+        this.status = status;
+    }
+
+    public String getCallId() {
+        return callId;
+    }
+
+    public Call.Dir getDir() {
+        return dir;
+    }
+
+    public Address getFromAddress() {
+        return from;
+    }
+
+    public Address getToAddress() {
+        return to;
+    }
+
+    public long getStartDate() {
+        return startDate;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public Call.Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package org.linphone.core;
+
+/** JVM fake: a call history and a call count, nothing else. */
+public class Core {
+    private CallLog[] callLogs = new CallLog[0];
+    private int callsNb;
+
+    public CallLog[] getCallLogs() {
+        return callLogs;
+    }
+
+    public void setCallLogs(CallLog[] callLogs) {
+        this.callLogs = callLogs;
+    }
+
+    public int getCallsNb() {
+        return callsNb;
+    }
+
+    public void setCallsNb(int callsNb) {
+        this.callsNb = callsNb;
+    }
+
+    public void iterate() {
+    }
+}
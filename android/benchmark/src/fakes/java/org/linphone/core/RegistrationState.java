@@ -0,0 +1,5 @@
+package org.linphone.core;
+
+public enum RegistrationState {
+    None, Progress, Ok, Cleared, Failed, Refreshing
+}
@@ -0,0 +1,92 @@
+package com.egytelecoms.hatif;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing an incoming call through a rule set the size the backend syncs:
+ * thousands of blocked numbers and prefixes, a VIP list, a few intercoms and
+ * business hours. Also compiling such a set, which is what a hot swap costs
+ * off the core thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CallRoutingBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int blocked;
+
+    private Map<String, Object> source;
+    private CallRoutingRules rules;
+    private long now;
+
+    @Setup
+    public void setUp() throws PluginException {
+        source = new HashMap<>();
+        source.put("version", "bench");
+        source.put("allow", list(numbers("2012", 500), List.of()));
+        source.put("block", list(numbers("2010", blocked), numbers("+4470", blocked / 10)));
+        source.put("autoAnswer", list(List.of("101", "102", "103"), List.of()));
+        Map<String, Object> hours = new HashMap<>();
+        hours.put("days", Arrays.asList(1, 2, 3, 4, 5));
+        hours.put("start", 9 * 60);
+        hours.put("end", 17 * 60);
+        hours.put("timeZone", "Africa/Cairo");
+        source.put("businessHours", hours);
+        rules = CallRoutingRules.compile(source);
+        now = System.currentTimeMillis();
+    }
+
+    private static Map<String, Object> list(List<String> numbers, List<String> prefixes) {
+        Map<String, Object> list = new HashMap<>();
+        list.put("numbers", numbers);
+        list.put("prefixes", prefixes);
+        return list;
+    }
+
+    private static List<String> numbers(String prefix, int count) {
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(prefix + (1000000 + i * 7));
+        }
+        return numbers;
+    }
+
+    @Benchmark
+    public CallRoutingRules.Rule vip() {
+        return rules.match("20121000014", now);
+    }
+
+    @Benchmark
+    public CallRoutingRules.Rule blockedNumber() {
+        return rules.match("2010 100 0021", now);
+    }
+
+    @Benchmark
+    public CallRoutingRules.Rule blockedPrefix() {
+        return rules.match("+4470100000755512", now);
+    }
+
+    @Benchmark
+    public CallRoutingRules.Rule unmatched() {
+        return rules.match("+201099999999", now);
+    }
+
+    @Benchmark
+    public CallRoutingRules compile() throws PluginException {
+        return CallRoutingRules.compile(source);
+    }
+}
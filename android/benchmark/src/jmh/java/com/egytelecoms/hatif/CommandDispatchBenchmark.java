@@ -0,0 +1,72 @@
+package com.egytelecoms.hatif;
+
+import com.egytelecoms.hatif.PluginMessages.CallRequest;
+import com.egytelecoms.hatif.PluginMessages.LoginRequest;
+import com.egytelecoms.hatif.PluginMessages.TransferRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.MethodCall;
+
+/**
+ * A method call from Dart: decoding the message, looking the command up in a
+ * {@link CommandRegistry}, decoding its arguments and encoding the reply. The
+ * handlers do nothing, so this is the plugin's own dispatch overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandDispatchBenchmark {
+    @Param({ "login", "call", "transfer", "hangUp" })
+    public String method;
+
+    private final CommandRegistry registry = new CommandRegistry();
+    private ByteBuffer message;
+
+    @Setup
+    public void setUp() {
+        registry.register("login", ExecutionClass.CORE, LoginRequest::fromArguments, request -> null);
+        registry.register("call", ExecutionClass.CORE, CallRequest::fromArguments, request -> null);
+        registry.register("transfer", ExecutionClass.CORE, TransferRequest::fromArguments, request -> null);
+        registry.register("hangUp", ExecutionClass.CORE, () -> null);
+
+        Map<String, Object> arguments = new HashMap<>();
+        switch (method) {
+            case "login":
+                arguments.put("userName", "1001");
+                arguments.put("domain", "sip.example.org");
+                arguments.put("password", "secret");
+                break;
+            case "call":
+                arguments.put("number", "20101234567");
+                break;
+            case "transfer":
+                arguments.put("destination", "20107654321");
+                break;
+            default:
+                arguments = null;
+        }
+        message = PluginMessages.PluginCodec.METHOD_CODEC.encodeMethodCall(new MethodCall(method, arguments));
+    }
+
+    @Benchmark
+    public ByteBuffer dispatch() throws PluginException {
+        ByteBuffer buffer = message.duplicate();
+        buffer.rewind();
+        MethodCall call = PluginMessages.PluginCodec.METHOD_CODEC.decodeMethodCall(buffer);
+        Object result = registry.dispatch(call.method, call.arguments);
+        return PluginMessages.PluginCodec.METHOD_CODEC.encodeSuccessEnvelope(result);
+    }
+}
@@ -0,0 +1,88 @@
+package com.egytelecoms.hatif;
+
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.egytelecoms.hatif.PluginMessages.CallEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * A burst of call events through {@link EventChannelHelper}: queued from the
+ * core side, drained on the next frame and encoded as the engine would before
+ * handing them to Dart.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventDispatchBenchmark {
+    private static final String CHANNEL = "benchmark/events";
+
+    @Param({ "1", "16", "256" })
+    public int burst;
+
+    private EventChannelHelper helper;
+    private Blackhole blackhole;
+    private CallEvent[] events;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        helper = new EventChannelHelper(new BinaryMessenger() { }, CHANNEL, 0, 0, null);
+        EventChannel.named(CHANNEL).listen(new EventChannel.EventSink() {
+            @Override
+            public void success(Object event) {
+                EventDispatchBenchmark.this.blackhole.consume(
+                        PluginMessages.PluginCodec.METHOD_CODEC.encodeSuccessEnvelope(event));
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+                EventDispatchBenchmark.this.blackhole.consume(PluginMessages.PluginCodec.METHOD_CODEC
+                        .encodeErrorEnvelope(errorCode, errorMessage, errorDetails));
+            }
+
+            @Override
+            public void endOfStream() {
+            }
+        });
+        // Replay of the (empty) history runs on the core thread
+        Looper.getMainLooper().runAll();
+
+        String[] states = { "IncomingReceived", "Connected", "StreamsRunning", "Paused", "End", "Released" };
+        events = new CallEvent[burst];
+        for (int i = 0; i < burst; i++) {
+            events[i] = new CallEvent("call-" + (i % 4), 1_700_000_000_000L + i, states[i % states.length],
+                    "None", "sip:2010" + i + "@example.org", "Contact " + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        helper.dispose();
+    }
+
+    @Benchmark
+    public void dispatch() {
+        for (CallEvent event : events) {
+            helper.success(event);
+        }
+        Looper.getMainLooper().runAll();
+        Choreographer.getInstance().doFrame();
+    }
+}
@@ -0,0 +1,66 @@
+package com.egytelecoms.hatif;
+
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and encoding the whole call history, one {@link CallHistory} per
+ * entry ("call_logs") against the columnar form ("call_logs_columns"). The
+ * GC profiler's gc.alloc.rate.norm is what each allocates for the whole
+ * history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistorySerializationBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int entries;
+
+    private CallLog[] logs;
+
+    @Setup
+    public void setUp() {
+        Call.Status[] statuses = Call.Status.values();
+        logs = new CallLog[entries];
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < entries; i++) {
+            // A few hundred distinct peers, as in a real history
+            String peer = "2010" + (1000000 + i % 397);
+            Address local = new Address("1001", "Me");
+            Address remote = new Address(peer, i % 3 == 0 ? null : "Contact " + (i % 397));
+            boolean outgoing = i % 2 == 0;
+            logs[i] = new CallLog("call-" + i, outgoing ? Call.Dir.Outgoing : Call.Dir.Incoming,
+                    outgoing ? local : remote, outgoing ? remote : local, now - 60L * i, i % 600,
+                    statuses[i % statuses.length]);
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer rows() {
+        List<CallHistory> history = new ArrayList<>(logs.length);
+        for (CallLog log : logs) {
+            history.add(CallHistoryIndex.toHistory(log));
+        }
+        return PluginMessages.PluginCodec.INSTANCE.encodeMessage(history);
+    }
+
+    @Benchmark
+    public ByteBuffer columns() {
+        return PluginMessages.PluginCodec.INSTANCE.encodeMessage(CallHistoryColumns.fromCallLogs(logs));
+    }
+}
@@ -0,0 +1,24 @@
+package com.egytelecoms.hatif;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** The reconnect delay for each attempt of a long outage. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReconnectBackoffBenchmark {
+    private int attempt;
+
+    @Benchmark
+    public long delay() {
+        attempt = (attempt + 1) & 63;
+        return ReconnectBackoff.delayMs(attempt, 2_000, 300_000);
+    }
+}
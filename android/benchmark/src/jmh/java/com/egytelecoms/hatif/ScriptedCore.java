@@ -0,0 +1,289 @@
+package com.egytelecoms.hatif;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.RegistrationState;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * An in-memory Linphone core as {@link ServiceController} sees it, for
+ * deterministic scenarios on a plain JVM.
+ *
+ * Registration outcomes, calls, network flaps and audio device switches are
+ * scripted on the virtual clock of the fake main looper; {@link #run} then
+ * plays them out, reconnect timers included, without waiting. Every effect the
+ * controller asks of the service is counted in {@link Counts}.
+ */
+final class ScriptedCore implements ServiceController.Host {
+    /** How long the registrar takes to answer a REGISTER. */
+    static final long REGISTRATION_LATENCY_MS = 300;
+
+    /** What the controller asked of the service during a scenario. */
+    static final class Counts {
+        long callbacks;
+        long stateUpdates;
+        long notificationPosts;
+        long registrations;
+        long incomingScreens;
+        /** Incoming call screens shown while another call still rang on one. */
+        long overlappingScreens;
+        long waitingNotices;
+        long rejectedCalls;
+        long busyCalls;
+        long answeredCalls;
+        long callScreens;
+        long mainThreadNanos;
+    }
+
+    final Counts counts = new Counts();
+    private final Looper looper = Looper.getMainLooper();
+    private final Handler handler = new Handler(looper);
+    private final ServiceController controller = new ServiceController(this, handler);
+    private final ArrayDeque<RegistrationState> outcomes = new ArrayDeque<>();
+
+    @Nullable
+    private RegistrationState accountState;
+    private boolean savedCredentials = true;
+    private boolean registerEnabled = true;
+    private boolean reachable = true;
+    private int callCount;
+    @Nullable
+    private Call onScreen;
+
+    ScriptedCore() {
+        looper.reset();
+    }
+
+    /** Outcomes of the next REGISTERs, in order; Ok once they run out. */
+    ScriptedCore registrationOutcomes(RegistrationState... states) {
+        outcomes.addAll(Arrays.asList(states));
+        return this;
+    }
+
+    ScriptedCore withoutSavedCredentials() {
+        savedCredentials = false;
+        return this;
+    }
+
+    /** Creates the account and sends the first REGISTER. */
+    ScriptedCore login() {
+        dispatch(this::registerFromSavedCredentials);
+        return this;
+    }
+
+    /** The user unregisters at {@code atMs}; the registrar clears the account. */
+    ScriptedCore unregister(long atMs) {
+        at(atMs, () -> {
+            registerEnabled = false;
+            setAccountState(RegistrationState.Cleared, "Unregistered");
+        });
+        return this;
+    }
+
+    /** A call ringing at {@code atMs}, answered after {@code answerMs} or missed when negative. */
+    ScriptedCore incomingCall(long atMs, long answerMs, long durationMs) {
+        Call call = new Call(new Address("2010" + (1000000 + callCount), "Caller " + callCount++));
+        at(atMs, () -> callState(call, Call.State.IncomingReceived));
+        if (answerMs < 0) {
+            at(atMs + 30_000, () -> callState(call, Call.State.End));
+            at(atMs + 30_000, () -> callState(call, Call.State.Released));
+            return this;
+        }
+        at(atMs + answerMs, () -> callState(call, Call.State.Connected));
+        at(atMs + answerMs, () -> callState(call, Call.State.StreamsRunning));
+        at(atMs + answerMs + durationMs, () -> callState(call, Call.State.End));
+        at(atMs + answerMs + durationMs, () -> callState(call, Call.State.Released));
+        return this;
+    }
+
+    /** The network drops at {@code atMs}, failing the registration, and is back {@code downMs} later. */
+    ScriptedCore networkFlap(long atMs, long downMs) {
+        at(atMs, () -> {
+            reachable = false;
+            controller.onNetworkReachable(false);
+            setAccountState(RegistrationState.Failed, "io error");
+        });
+        at(atMs + downMs, () -> {
+            reachable = true;
+            controller.onNetworkReachable(true);
+        });
+        return this;
+    }
+
+    ScriptedCore audioDeviceChange(long atMs) {
+        at(atMs, controller::onAudioDeviceChanged);
+        return this;
+    }
+
+    /**
+     * {@code calls} calls ringing {@code spacingMs} apart from {@code atMs};
+     * each caller hangs up after {@code ringMs} unless the call was answered.
+     */
+    ScriptedCore inviteBurst(long atMs, int calls, long spacingMs, long ringMs) {
+        for (int i = 0; i < calls; i++) {
+            Call call = new Call(new Address("2010" + (1000000 + callCount), "Caller " + callCount++));
+            long ringAt = atMs + spacingMs * i;
+            at(ringAt, () -> callState(call, Call.State.IncomingReceived));
+            at(ringAt + ringMs, () -> {
+                if (call.getState() == Call.State.IncomingReceived) {
+                    end(call);
+                }
+            });
+        }
+        return this;
+    }
+
+    /** Plays the script for {@code durationMs} of virtual time. */
+    Counts run(long durationMs) {
+        looper.idleFor(durationMs);
+        controller.cancelReconnect();
+        looper.reset();
+        return counts;
+    }
+
+    int reconnectAttempts() {
+        return controller.reconnectAttempts();
+    }
+
+    private void at(long atMs, Runnable event) {
+        handler.postDelayed(() -> dispatch(event), atMs);
+    }
+
+    private void dispatch(Runnable event) {
+        long start = System.nanoTime();
+        counts.callbacks++;
+        event.run();
+        counts.mainThreadNanos += System.nanoTime() - start;
+    }
+
+    private void callState(Call call, Call.State state) {
+        if (call.getState() == Call.State.Released) {
+            // Already declined by the controller
+            return;
+        }
+        call.setState(state);
+        controller.onCallStateChanged(call, state);
+    }
+
+    private void end(Call call) {
+        callState(call, Call.State.End);
+        callState(call, Call.State.Released);
+    }
+
+    private void setAccountState(RegistrationState state, String message) {
+        accountState = state;
+        controller.onRegistrationStateChanged(state, message);
+    }
+
+    private void sendRegister() {
+        counts.registrations++;
+        setAccountState(RegistrationState.Progress, "Registration in progress");
+        at(REGISTRATION_LATENCY_MS, () -> {
+            RegistrationState outcome = reachable ? outcomes.poll() : RegistrationState.Failed;
+            setAccountState(outcome != null ? outcome : RegistrationState.Ok, "");
+        });
+    }
+
+    @Override
+    public boolean hasCore() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public RegistrationState accountState() {
+        return accountState;
+    }
+
+    @Override
+    public boolean registrationEnabled() {
+        return registerEnabled;
+    }
+
+    @Override
+    public boolean refreshRegistration() {
+        if (accountState == null || !registerEnabled) {
+            return false;
+        }
+        sendRegister();
+        return true;
+    }
+
+    @Override
+    public boolean registerFromSavedCredentials() {
+        if (!savedCredentials) {
+            return false;
+        }
+        accountState = RegistrationState.None;
+        sendRegister();
+        return true;
+    }
+
+    @Override
+    public void updateNotification(@NonNull String content, boolean registered) {
+        counts.notificationPosts++;
+    }
+
+    @Override
+    public void stateChanged() {
+        counts.stateUpdates++;
+    }
+
+    @Override
+    public void showIncomingCall(@NonNull Call call) {
+        counts.incomingScreens++;
+        if (onScreen != null && onScreen.getState() == Call.State.IncomingReceived) {
+            counts.overlappingScreens++;
+        }
+        onScreen = call;
+    }
+
+    @Override
+    public void showWaitingCall(@NonNull Call call) {
+        counts.waitingNotices++;
+    }
+
+    @Override
+    public void dismissWaitingCall(@NonNull Call call) {
+    }
+
+    @Override
+    public void rejectCall(@NonNull Call call, boolean busy) {
+        counts.rejectedCalls++;
+        if (busy) {
+            counts.busyCalls++;
+        }
+        // The decline ends the call on the next iteration
+        at(0, () -> end(call));
+    }
+
+    @Override
+    public void answerCall(@NonNull Call call) {
+        counts.answeredCalls++;
+        at(0, () -> {
+            callState(call, Call.State.Connected);
+            callState(call, Call.State.StreamsRunning);
+        });
+    }
+
+    @Override
+    public void showCallConnected(@NonNull Call call) {
+        counts.callScreens++;
+        // The ongoing call notification
+        counts.notificationPosts++;
+    }
+
+    @Override
+    public void showCallEnded() {
+        // The service notification is restored
+        counts.notificationPosts++;
+    }
+}
@@ -0,0 +1,113 @@
+package com.egytelecoms.hatif;
+
+import org.linphone.core.RegistrationState;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scripted service scenarios against {@link ScriptedCore}: the primary score
+ * is the time to play one scenario, and the counters are what a single run
+ * asked of the service. Virtual time, so a ten minute outage costs only the
+ * work done in it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceScenarioBenchmark {
+    @Param({ "registrationFailures", "incomingCallStorm", "networkFlaps", "audioDeviceChanges", "inviteBurstBusy",
+            "inviteBurstQueue", "inviteBurstWaiting", "unregisteredNetworkFlaps" })
+    public String scenario;
+
+    /** Per scenario run; each field is overwritten, not summed. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long callbacks;
+        public long stateUpdates;
+        public long notificationPosts;
+        public long registrations;
+        public long incomingScreens;
+        public long waitingNotices;
+        public long busyCalls;
+        public long callbackMicros;
+    }
+
+    @Benchmark
+    public void play(Counters counters) {
+        ScriptedCore.Counts counts = play(scenario);
+        counters.callbacks = counts.callbacks;
+        counters.stateUpdates = counts.stateUpdates;
+        counters.notificationPosts = counts.notificationPosts;
+        counters.registrations = counts.registrations;
+        counters.incomingScreens = counts.incomingScreens;
+        counters.waitingNotices = counts.waitingNotices;
+        counters.busyCalls = counts.busyCalls;
+        counters.callbackMicros = counts.mainThreadNanos / 1000;
+    }
+
+    static ScriptedCore.Counts play(String scenario) {
+        ScriptedCore core = new ScriptedCore();
+        IncomingCallPolicy.set(IncomingCallPolicy.DEFAULT);
+        switch (scenario) {
+            case "registrationFailures":
+                // Registrar down for a while: backoff up to the one minute cap
+                RegistrationState[] failures = new RegistrationState[12];
+                Arrays.fill(failures, RegistrationState.Failed);
+                return core.registrationOutcomes(failures).login().run(TimeUnit.MINUTES.toMillis(10));
+            case "incomingCallStorm":
+                core.login();
+                for (int i = 0; i < 50; i++) {
+                    core.incomingCall(1_000 + 500L * i, i % 2 == 0 ? 2_000 : -1, 5_000);
+                }
+                return core.run(TimeUnit.MINUTES.toMillis(2));
+            case "networkFlaps":
+                core.login();
+                for (int i = 0; i < 20; i++) {
+                    core.networkFlap(5_000 + 15_000L * i, 3_000);
+                }
+                return core.run(TimeUnit.MINUTES.toMillis(6));
+            case "unregisteredNetworkFlaps":
+                // Flaps after a deliberate unregister must not send a REGISTER
+                core.login().unregister(2_000);
+                for (int i = 0; i < 20; i++) {
+                    core.networkFlap(5_000 + 15_000L * i, 3_000);
+                }
+                return core.run(TimeUnit.MINUTES.toMillis(6));
+            case "audioDeviceChanges":
+                core.login().incomingCall(1_000, 1_000, 30_000);
+                for (int i = 0; i < 100; i++) {
+                    core.audioDeviceChange(3_000 + 250L * i);
+                }
+                return core.run(TimeUnit.MINUTES.toMillis(1));
+            case "inviteBurstBusy":
+                return inviteBurst(core, IncomingCallPolicy.Overflow.BUSY);
+            case "inviteBurstQueue":
+                return inviteBurst(core, IncomingCallPolicy.Overflow.QUEUE);
+            case "inviteBurstWaiting":
+                return inviteBurst(core, IncomingCallPolicy.Overflow.CALL_WAITING);
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    /**
+     * Thirty INVITEs 50 ms apart while the first one rings, each caller
+     * giving up after 20 s: however many arrive, only one call may hold the
+     * incoming call screen.
+     */
+    private static ScriptedCore.Counts inviteBurst(ScriptedCore core, IncomingCallPolicy.Overflow overflow) {
+        IncomingCallPolicy.set(new IncomingCallPolicy(IncomingCallPolicy.DEFAULT_MAX_RINGING, overflow,
+                IncomingCallPolicy.DEFAULT_MAX_QUEUED));
+        return core.login().inviteBurst(1_000, 30, 50, 20_000).run(TimeUnit.MINUTES.toMillis(2));
+    }
+}
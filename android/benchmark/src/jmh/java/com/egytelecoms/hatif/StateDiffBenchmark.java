@@ -0,0 +1,65 @@
+package com.egytelecoms.hatif;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffing two plugin states as the state tracker does on every refresh:
+ * once with nothing changed, the common case, and once with a call's state
+ * changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StateDiffBenchmark {
+    private Map<String, Object> previous;
+    private Map<String, Object> same;
+    private Map<String, Object> changed;
+
+    @Setup
+    public void setUp() {
+        previous = state("StreamsRunning");
+        same = state("StreamsRunning");
+        changed = state("Paused");
+    }
+
+    private static Map<String, Object> state(String callState) {
+        Map<String, Object> call = new HashMap<>();
+        call.put("callId", "call-1");
+        call.put("state", callState);
+        call.put("remoteAddress", "sip:20101234567@example.org");
+        call.put("muted", false);
+        call.put("speaker", true);
+
+        Map<String, Object> registration = new HashMap<>();
+        registration.put("state", "Ok");
+        registration.put("identity", "sip:1001@example.org");
+
+        Map<String, Object> state = new HashMap<>();
+        state.put("registration", registration);
+        state.put("call", call);
+        state.put("callsNb", 1);
+        state.put("audioDevice", "Speaker");
+        state.put("network", "WIFI");
+        return state;
+    }
+
+    @Benchmark
+    public Map<String, Object> unchanged() {
+        return StateDiff.changes(previous, same);
+    }
+
+    @Benchmark
+    public Map<String, Object> callStateChanged() {
+        return StateDiff.changes(previous, changed);
+    }
+}
@@ -0,0 +1,71 @@
+package com.egytelecoms.hatif;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The outcomes {@link ServiceScenarioBenchmark} only reports, checked: the
+ * invite bursts against each overflow policy and network flaps after an
+ * unregister.
+ */
+public class ServiceScenarioTest {
+    // Thirty INVITEs while the first one rings
+    private static final int BURST = 30;
+
+    @Before
+    public void resetPolicyStats() {
+        IncomingCallPolicy.snapshotStats(true);
+    }
+
+    @Test
+    public void inviteBurstBusy() {
+        ScriptedCore.Counts counts = ServiceScenarioBenchmark.play("inviteBurstBusy");
+        Map<String, Object> stats = IncomingCallPolicy.snapshotStats(true);
+
+        assertEquals(1, counts.incomingScreens);
+        assertEquals(0, counts.overlappingScreens);
+        assertEquals(BURST - 1, counts.busyCalls);
+        assertEquals(0, counts.waitingNotices);
+        assertEquals(0L, stats.get("queued"));
+    }
+
+    @Test
+    public void inviteBurstQueue() {
+        ScriptedCore.Counts counts = ServiceScenarioBenchmark.play("inviteBurstQueue");
+        Map<String, Object> stats = IncomingCallPolicy.snapshotStats(true);
+        int queued = IncomingCallPolicy.DEFAULT_MAX_QUEUED;
+
+        // Each queued call gets the screen once the one before it is gone
+        assertEquals(1 + queued, counts.incomingScreens);
+        assertEquals(0, counts.overlappingScreens);
+        assertEquals(BURST - 1 - queued, counts.busyCalls);
+        assertEquals(0, counts.waitingNotices);
+        assertEquals((long) queued, stats.get("queued"));
+        assertEquals((long) queued, stats.get("dequeued"));
+    }
+
+    @Test
+    public void inviteBurstWaiting() {
+        ScriptedCore.Counts counts = ServiceScenarioBenchmark.play("inviteBurstWaiting");
+        Map<String, Object> stats = IncomingCallPolicy.snapshotStats(true);
+        int waiting = IncomingCallPolicy.DEFAULT_MAX_QUEUED;
+
+        assertEquals(1, counts.incomingScreens);
+        assertEquals(0, counts.overlappingScreens);
+        assertEquals(BURST - 1 - waiting, counts.busyCalls);
+        assertEquals(waiting, counts.waitingNotices);
+        assertEquals(0L, stats.get("queued"));
+    }
+
+    @Test
+    public void unregisteredNetworkFlaps() {
+        ScriptedCore.Counts counts = ServiceScenarioBenchmark.play("unregisteredNetworkFlaps");
+
+        // Only the login REGISTER
+        assertEquals(1, counts.registrations);
+    }
+}
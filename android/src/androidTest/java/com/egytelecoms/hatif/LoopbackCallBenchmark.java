@@ -0,0 +1,525 @@
+package com.egytelecoms.hatif;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.linphone.core.Account;
+import org.linphone.core.Address;
+import org.linphone.core.AuthInfo;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+import org.linphone.core.CallParams;
+import org.linphone.core.CallStats;
+import org.linphone.core.Core;
+import org.linphone.core.CoreListenerStub;
+import org.linphone.core.Factory;
+import org.linphone.core.StreamType;
+import org.linphone.core.Transports;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.BinaryMessenger;
+
+/**
+ * Calls between the plugin's shared core and a peer core over localhost, so
+ * call setup and media latency can be measured on a device without a PBX.
+ *
+ * The plugin side is driven only through {@link LinPhoneHelper}: it logs in
+ * with the peer as registrar, places calls with {@link LinPhoneHelper#call}
+ * and answers the peer's with {@link LinPhoneHelper#answerCall}. The peer is
+ * a private core on a random UDP port, which only this test creates. Both
+ * use files instead of sound cards: the caller plays a short tone burst every
+ * second and the callee records what it receives. The shared core is the
+ * app's, so tearDown removes the benchmark account, its auth info and the
+ * calls it logged, and gives the default account back.
+ *
+ * Per call it reports INVITE to 200 OK (Connected on the caller), INVITE to
+ * StreamsRunning, INVITE until the first burst reaches the callee's output,
+ * the one-way audio delay estimated from the recorded burst onsets, and the
+ * RTCP round trip and jitter buffer from the callee's audio stats, then the
+ * medians as instrumentation status. Stream start times come from state
+ * callbacks, so the audio figures are estimates to within an iteration
+ * (20 ms).
+ *
+ *   ./gradlew :linphone_flutter_plugin:connectedDebugAndroidTest \
+ *       -Pandroid.testInstrumentationRunnerArguments.class=com.egytelecoms.hatif.LoopbackCallBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class LoopbackCallBenchmark {
+    private static final String TAG = "LoopbackCallBenchmark";
+    private static final int CALLS = 3;
+    private static final long CALL_MS = 5_000;
+    private static final long TIMEOUT_MS = 10_000;
+    private static final int SAMPLE_RATE = 8_000;
+    private static final int BURST_PERIOD_MS = 1_000;
+    private static final int BURST_MS = 40;
+    // Amplitude above which a recorded sample is part of a burst
+    private static final int ONSET_THRESHOLD = 4_000;
+    private static final String PEER_USER = "loopback";
+    private static final String USER = "benchmark";
+
+    // Event channels with no engine behind them
+    private static final BinaryMessenger NO_ENGINE = new BinaryMessenger() {
+        @Override
+        public void send(@NonNull String channel, @Nullable ByteBuffer message) {
+        }
+
+        @Override
+        public void send(@NonNull String channel, @Nullable ByteBuffer message, @Nullable BinaryReply callback) {
+        }
+
+        @Override
+        public void setMessageHandler(@NonNull String channel, @Nullable BinaryMessageHandler handler) {
+        }
+    };
+
+    private File dir;
+    private File bursts;
+    private EventChannelHelper loginEvents;
+    private EventChannelHelper callEvents;
+    private LinPhoneHelper helper;
+    private Core pluginCore;
+    private Side plugin;
+    private Peer peer;
+    private String domain;
+    // The app's state on the shared core before the test, core thread
+    @Nullable
+    private Account previousDefault;
+    private final Set<String> previousCallIds = new HashSet<>();
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dir = new File(context.getCacheDir(), "loopback");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        bursts = new File(dir, "bursts.wav");
+        writeBursts(bursts, (int) (CALL_MS / 1000) + 5);
+
+        loginEvents = new EventChannelHelper(NO_ENGINE, LinphonesdkPlugin.LOGIN_EVENTS);
+        callEvents = new EventChannelHelper(NO_ENGINE, LinphonesdkPlugin.CALL_EVENTS);
+        helper = new LinPhoneHelper(context, loginEvents, callEvents);
+        plugin = new Side(helper);
+        peer = onCore(() -> new Peer(context, dir));
+        domain = "127.0.0.1:" + peer.port;
+        onCore(() -> {
+            Core existing = CoreOwner.get();
+            if (existing != null) {
+                previousDefault = existing.getDefaultAccount();
+            }
+            // The peer does not register anyone, but the account routes calls to it
+            helper.login(USER, domain, USER);
+            pluginCore = CoreOwner.get();
+            for (CallLog log : pluginCore.getCallLogs()) {
+                previousCallIds.add(log.getCallId());
+            }
+            pluginCore.addListener(plugin);
+            pluginCore.setUseFiles(true);
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        onCore(() -> {
+            if (pluginCore != null) {
+                pluginCore.removeListener(plugin);
+                pluginCore.setUseFiles(false);
+                removeCallLogs();
+            }
+            // Releases the core; AccountSetup misses auth info whose domain has a port
+            helper.removeLoginListener();
+            if (pluginCore != null) {
+                removeAccount();
+            }
+            if (peer != null) {
+                peer.destroy();
+            }
+            return null;
+        });
+        loginEvents.dispose();
+        callEvents.dispose();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /** Calls this test logged on the shared core, from its database and the history index. */
+    private void removeCallLogs() {
+        for (CallLog log : pluginCore.getCallLogs()) {
+            if (!previousCallIds.contains(log.getCallId())) {
+                pluginCore.removeCallLog(log);
+            }
+        }
+        CallHistoryIndex.rebuild(pluginCore);
+    }
+
+    /** Whatever of the benchmark account is left in the app's configuration. */
+    private void removeAccount() {
+        for (Account account : pluginCore.getAccountList()) {
+            Address identity = account.getParams().getIdentityAddress();
+            if (identity != null && USER.equals(identity.getUsername())
+                    && "127.0.0.1".equals(identity.getDomain())) {
+                pluginCore.removeAccount(account);
+            }
+        }
+        for (AuthInfo authInfo : pluginCore.getAuthInfoList()) {
+            if (USER.equals(authInfo.getUsername()) && domain.equals(authInfo.getDomain())) {
+                pluginCore.removeAuthInfo(authInfo);
+            }
+        }
+        if (previousDefault != null && pluginCore.getDefaultAccount() != previousDefault) {
+            pluginCore.setDefaultAccount(previousDefault);
+        }
+    }
+
+    @Test
+    public void outgoingCalls() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            results.add(placeCall(plugin, pluginCore, peer.side, peer.core, new File(dir, "received-" + i + ".wav"),
+                    () -> {
+                        helper.call(PEER_USER);
+                        return pluginCore.getCallsNb() > 0;
+                    }));
+        }
+        report("outgoing", results);
+    }
+
+    @Test
+    public void incomingCalls() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        int pluginPort = onCore(() -> pluginCore.getTransportsUsed().getUdpPort());
+        for (int i = 0; i < CALLS; i++) {
+            results.add(placeCall(peer.side, peer.core, plugin, pluginCore, new File(dir, "received-" + i + ".wav"),
+                    () -> {
+                        Address to = Factory.instance().createAddress("sip:benchmark@127.0.0.1:" + pluginPort);
+                        CallParams params = peer.core.createCallParams(null);
+                        params.setVideoEnabled(false);
+                        return to != null && peer.core.inviteAddressWithParams(to, params) != null;
+                    }));
+        }
+        report("incoming", results);
+    }
+
+    private Map<String, Object> placeCall(Side caller, Core callerCore, Side callee, Core calleeCore, File received,
+            Callable<Boolean> invite) throws Exception {
+        long invitedMs = onCore(() -> {
+            // Each call must find the core iterating, however long the last one took
+            CoreOwner.wake("benchmark");
+            caller.reset();
+            callee.reset();
+            callerCore.setPlayFile(bursts.getPath());
+            calleeCore.setRecordFile(received.getPath());
+            long now = SystemClock.elapsedRealtime();
+            if (!invite.call()) {
+                throw new IllegalStateException("Could not invite the loopback peer");
+            }
+            return now;
+        });
+        await(caller.streamsRunning, "No media from the loopback peer");
+        if (caller.streamsRunningMs == 0) {
+            throw new IllegalStateException("The loopback call failed");
+        }
+        Thread.sleep(CALL_MS);
+
+        float[] stats = onCore(() -> {
+            CallStats audio = callee.call != null ? callee.call.getStats(StreamType.Audio) : null;
+            if (caller.call != null) {
+                caller.call.terminate();
+            }
+            return audio != null ? new float[] { audio.getRoundTripDelay(), audio.getJitterBufferSizeMs() }
+                    : new float[] { -1, -1 };
+        });
+        await(caller.released, "The call did not end");
+        await(callee.released, "The call did not end");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inviteToOkMs", caller.connectedMs - invitedMs);
+        result.put("inviteToStreamsMs", caller.streamsRunningMs - invitedMs);
+        List<Long> onsets = onsetsMs(received);
+        if (!onsets.isEmpty()) {
+            result.put("firstAudioMs", callee.streamsRunningMs + onsets.get(0) - invitedMs);
+            // Bursts leave the caller every period from its stream start; the
+            // delay is assumed shorter than a period.
+            List<Long> delays = new ArrayList<>(onsets.size());
+            for (long onset : onsets) {
+                long arrival = callee.streamsRunningMs + onset - caller.streamsRunningMs;
+                delays.add(Math.floorMod(arrival, (long) BURST_PERIOD_MS));
+            }
+            Collections.sort(delays);
+            result.put("audioDelayMs", delays.get(delays.size() / 2));
+        }
+        if (stats[0] >= 0) {
+            result.put("roundTripMs", (double) stats[0] * 1000);
+            result.put("jitterBufferMs", (double) stats[1]);
+        }
+        return result;
+    }
+
+    /** Sends each call and the medians as instrumentation status, shown by "am instrument -r". */
+    private static void report(String direction, List<Map<String, Object>> results) {
+        Bundle status = new Bundle();
+        for (int i = 0; i < results.size(); i++) {
+            status.putString(direction + ".call" + i, String.valueOf(results.get(i)));
+        }
+        Map<String, Object> median = new LinkedHashMap<>();
+        for (String key : new String[] { "inviteToOkMs", "inviteToStreamsMs", "firstAudioMs", "audioDelayMs",
+                "roundTripMs", "jitterBufferMs" }) {
+            median.put(key, median(results, key));
+        }
+        status.putString(direction + ".median", String.valueOf(median));
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+        PluginLog.w(TAG, "Loopback " + direction + " calls: " + median);
+    }
+
+    /** Call timings of one side. Written on the core thread, read after the latches. */
+    private static final class Side extends CoreListenerStub {
+        // Answers incoming calls like the app does, or accepts them directly when null
+        @Nullable
+        private final LinPhoneHelper answerer;
+
+        volatile Call call;
+        volatile long connectedMs;
+        volatile long streamsRunningMs;
+        volatile CountDownLatch streamsRunning;
+        volatile CountDownLatch released;
+
+        Side(@Nullable LinPhoneHelper answerer) {
+            this.answerer = answerer;
+            reset();
+        }
+
+        void reset() {
+            call = null;
+            connectedMs = 0;
+            streamsRunningMs = 0;
+            streamsRunning = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        @Override
+        public void onCallStateChanged(@NonNull Core core, @NonNull Call call, Call.State state,
+                @NonNull String message) {
+            long now = SystemClock.elapsedRealtime();
+            switch (state) {
+                case IncomingReceived:
+                    if (answerer != null) {
+                        answerer.answerCall();
+                    } else {
+                        CallParams params = core.createCallParams(call);
+                        params.setVideoEnabled(false);
+                        call.acceptWithParams(params);
+                    }
+                    break;
+                case Connected:
+                    this.call = call;
+                    connectedMs = now;
+                    break;
+                case StreamsRunning:
+                    if (streamsRunningMs == 0) {
+                        streamsRunningMs = now;
+                        streamsRunning.countDown();
+                    }
+                    break;
+                case Error:
+                    PluginLog.w(TAG, "Loopback call failed: " + message);
+                    streamsRunning.countDown();
+                    released.countDown();
+                    break;
+                case Released:
+                    released.countDown();
+                    break;
+            }
+        }
+    }
+
+    /** The far end: a private core on a random local port with file-based audio. Core thread. */
+    private static final class Peer {
+        final Core core;
+        final int port;
+        final Side side = new Side(null);
+
+        Peer(Context context, File dir) throws IOException {
+            // Own configuration and database, so nothing leaks into the app's history
+            File config = new File(dir, "peer.rc");
+            try (FileWriter writer = new FileWriter(config)) {
+                writer.write("[storage]\nuri=" + new File(dir, "peer.db").getPath() + "\n");
+            }
+            core = Factory.instance().createCore(config.getPath(), null, context.getApplicationContext());
+            core.setAutoIterateEnabled(false);
+            core.setNativeRingingEnabled(false);
+            core.setRing(null);
+            core.setUseFiles(true);
+            core.setEchoCancellationEnabled(false);
+            core.setAudioPort(-1);
+            core.setVideoPort(-1);
+            Transports transports = Factory.instance().createTransports();
+            transports.setUdpPort(-1);
+            transports.setTcpPort(0);
+            transports.setTlsPort(0);
+            core.setTransports(transports);
+            core.addListener(side);
+            core.start();
+            port = core.getTransportsUsed().getUdpPort();
+            PluginExecutors.startIterating(core);
+        }
+
+        void destroy() {
+            PluginExecutors.stopIterating(core);
+            core.removeListener(side);
+            core.stop();
+        }
+    }
+
+    private static <T> T onCore(Callable<T> task) throws Exception {
+        Object[] result = new Object[1];
+        Exception[] failure = new Exception[1];
+        CountDownLatch done = new CountDownLatch(1);
+        PluginExecutors.runOnCore(() -> {
+            try {
+                result[0] = task.call();
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+            done.countDown();
+        });
+        await(done, "The core thread did not respond");
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    private static void await(CountDownLatch latch, String timeoutMessage) throws InterruptedException {
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            throw new AssertionError(timeoutMessage);
+        }
+    }
+
+    private static Object median(List<Map<String, Object>> results, String key) {
+        List<Double> values = new ArrayList<>();
+        for (Map<String, Object> result : results) {
+            Object value = result.get(key);
+            if (value instanceof Number) {
+                values.add(((Number) value).doubleValue());
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+
+    // 16-bit mono PCM: a 1 kHz burst at the start of every period, silence otherwise
+    private static void writeBursts(File file, int seconds) throws IOException {
+        int samples = SAMPLE_RATE * seconds;
+        ByteBuffer data = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        data.put(new byte[] { 'R', 'I', 'F', 'F' }).putInt(36 + samples * 2);
+        data.put(new byte[] { 'W', 'A', 'V', 'E', 'f', 'm', 't', ' ' }).putInt(16);
+        data.putShort((short) 1).putShort((short) 1).putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2);
+        data.putShort((short) 2).putShort((short) 16);
+        data.put(new byte[] { 'd', 'a', 't', 'a' }).putInt(samples * 2);
+        int period = SAMPLE_RATE * BURST_PERIOD_MS / 1000;
+        int burst = SAMPLE_RATE * BURST_MS / 1000;
+        for (int i = 0; i < samples; i++) {
+            double sample = i % period < burst ? Math.sin(2 * Math.PI * 1000 * i / SAMPLE_RATE) * 16_000 : 0;
+            data.putShort((short) sample);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data.array());
+        }
+    }
+
+    // Offsets in the recording at which a burst starts after at least half a period of quiet
+    private static List<Long> onsetsMs(File file) {
+        List<Long> onsets = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            DataInputStream stream = new DataInputStream(in);
+            byte[] header = new byte[12];
+            stream.readFully(header);
+            int sampleRate = SAMPLE_RATE;
+            int channels = 1;
+            byte[] chunk = new byte[8];
+            while (true) {
+                stream.readFully(chunk);
+                ByteBuffer chunkHeader = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+                String id = new String(chunk, 0, 4, "US-ASCII");
+                int size = chunkHeader.getInt(4);
+                if (id.equals("fmt ")) {
+                    byte[] format = new byte[size];
+                    stream.readFully(format);
+                    ByteBuffer fmt = ByteBuffer.wrap(format).order(ByteOrder.LITTLE_ENDIAN);
+                    channels = fmt.getShort(2);
+                    sampleRate = fmt.getInt(4);
+                } else if (id.equals("data")) {
+                    break;
+                } else {
+                    stream.skipBytes(size);
+                }
+            }
+
+            int quietNeeded = sampleRate * BURST_PERIOD_MS / 2000;
+            int quiet = quietNeeded;
+            long index = 0;
+            byte[] frame = new byte[2 * channels];
+            while (true) {
+                stream.readFully(frame);
+                short sample = (short) ((frame[0] & 0xff) | (frame[1] << 8));
+                if (Math.abs(sample) >= ONSET_THRESHOLD) {
+                    if (quiet >= quietNeeded) {
+                        onsets.add(index * 1000 / sampleRate);
+                    }
+                    quiet = 0;
+                } else {
+                    quiet++;
+                }
+                index++;
+            }
+        } catch (EOFException e) {
+            // End of the recording
+        } catch (IOException e) {
+            PluginLog.w(TAG, "Cannot read the recording: " + e.getMessage());
+        }
+        return onsets;
+    }
+}
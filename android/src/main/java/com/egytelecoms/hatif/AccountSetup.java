@@ -0,0 +1,188 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Account;
+import org.linphone.core.AccountParams;
+import org.linphone.core.Address;
+import org.linphone.core.AuthInfo;
+import org.linphone.core.Core;
+import org.linphone.core.Factory;
+import org.linphone.core.TransportType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the core's SIP account in line with requested credentials while
+ * touching as little as possible, so an app resume that logs in again with
+ * the same credentials does not cost a new REGISTER and 401 challenge.
+ *
+ * An account with the same identity and registrar is reused: with nothing
+ * changed it is left alone, a new password updates its auth info in place,
+ * and other differences (registration disabled, push flags) update its
+ * params. Only a different identity or registrar creates a new account.
+ *
+ * The service and the plugin set up accounts on the same core, so each
+ * account remembers the holders that {@link #apply applied} it and is only
+ * removed once the last of them {@link #release releases} it.
+ */
+final class AccountSetup {
+    private static final String TAG = "AccountSetup";
+
+    // Core thread only
+    private static final Map<Account, Set<String>> owners = new HashMap<>();
+
+    enum Outcome {
+        UNCHANGED, CREDENTIALS_UPDATED, PARAMS_UPDATED, CREATED
+    }
+
+    static final class Result {
+        final Account account;
+        final Outcome outcome;
+
+        Result(Account account, Outcome outcome) {
+            this.account = account;
+            this.outcome = outcome;
+        }
+
+        /** Sent back to Dart by "login". */
+        @NonNull
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("outcome", outcome.name());
+            map.put("state", account.getState().name());
+            return map;
+        }
+    }
+
+    private AccountSetup() {
+    }
+
+    /**
+     * Core thread. Counts {@code holder} as an owner of the account.
+     * {@code pushNotifications} null keeps whatever the account has, or the
+     * SDK default for a new one.
+     */
+    @NonNull
+    static Result apply(@NonNull Core core, @NonNull String holder, @NonNull String username,
+            @NonNull String password, @NonNull String domain, @Nullable Boolean pushNotifications) {
+        Result result = applyAccount(core, username, password, domain, pushNotifications);
+        owners.computeIfAbsent(result.account, k -> new HashSet<>()).add(holder);
+        return result;
+    }
+
+    /**
+     * Core thread. Removes {@code account} and its credentials once no
+     * other holder owns it.
+     */
+    static void release(@NonNull Core core, @NonNull String holder, @NonNull Account account) {
+        Set<String> holders = owners.get(account);
+        if (holders != null) {
+            holders.remove(holder);
+            if (!holders.isEmpty()) {
+                PluginLog.d(TAG, holder + " released an account still owned by " + holders);
+                return;
+            }
+            owners.remove(account);
+        }
+        remove(core, account);
+    }
+
+    private static Result applyAccount(Core core, String username, String password, String domain,
+            @Nullable Boolean pushNotifications) {
+        Account account = find(core, username, domain);
+        if (account == null) {
+            return new Result(create(core, username, password, domain, pushNotifications), Outcome.CREATED);
+        }
+        Outcome outcome = Outcome.UNCHANGED;
+
+        AuthInfo authInfo = core.findAuthInfo(null, username, domain);
+        if (authInfo == null || !password.equals(authInfo.getPassword())) {
+            AuthInfo updated = authInfo != null ? authInfo.clone()
+                    : Factory.instance().createAuthInfo(username, null, password, null, null, domain, null);
+            updated.setPassword(password);
+            updated.setHa1(null);
+            core.addAuthInfo(updated);
+            outcome = Outcome.CREDENTIALS_UPDATED;
+        }
+
+        AccountParams params = account.getParams();
+        boolean pushChanged = pushNotifications != null
+                && (params.isPushNotificationAllowed() != pushNotifications
+                        || params.isRemotePushNotificationAllowed() != pushNotifications);
+        if (!params.isRegisterEnabled() || pushChanged) {
+            AccountParams updated = params.clone();
+            updated.setRegisterEnabled(true);
+            if (pushNotifications != null) {
+                updated.setPushNotificationAllowed(pushNotifications);
+                updated.setRemotePushNotificationAllowed(pushNotifications);
+            }
+            // Setting params re-registers with the current auth info
+            account.setParams(updated);
+            outcome = Outcome.PARAMS_UPDATED;
+        } else if (outcome == Outcome.CREDENTIALS_UPDATED) {
+            account.refreshRegister();
+        }
+
+        if (core.getDefaultAccount() != account) {
+            core.setDefaultAccount(account);
+        }
+        PluginLog.d(TAG, username + "@" + domain + ": " + outcome);
+        return new Result(account, outcome);
+    }
+
+    private static void remove(@NonNull Core core, @NonNull Account account) {
+        Address identity = account.getParams().getIdentityAddress();
+        core.removeAccount(account);
+        if (identity != null) {
+            AuthInfo authInfo = core.findAuthInfo(null, identity.getUsername(), identity.getDomain());
+            if (authInfo != null) {
+                core.removeAuthInfo(authInfo);
+            }
+        }
+    }
+
+    @Nullable
+    private static Account find(Core core, String username, String domain) {
+        for (Account account : core.getAccountList()) {
+            AccountParams params = account.getParams();
+            Address identity = params.getIdentityAddress();
+            Address server = params.getServerAddress();
+            if (identity != null && username.equals(identity.getUsername()) && domain.equals(identity.getDomain())
+                    && server != null && domain.equals(server.getDomain())
+                    && server.getTransport() == TransportType.Udp) {
+                return account;
+            }
+        }
+        return null;
+    }
+
+    private static Account create(Core core, String username, String password, String domain,
+            @Nullable Boolean pushNotifications) {
+        AuthInfo authInfo = Factory.instance().createAuthInfo(username, null, password, null, null, domain, null);
+        AccountParams params = core.createAccountParams();
+
+        Address identity = Factory.instance().createAddress("sip:" + username + "@" + domain);
+        params.setIdentityAddress(identity);
+
+        Address address = Factory.instance().createAddress("sip:" + domain);
+        address.setTransport(TransportType.Udp);
+        params.setServerAddress(address);
+        params.setRegisterEnabled(true);
+        if (pushNotifications != null) {
+            params.setPushNotificationAllowed(pushNotifications);
+            params.setRemotePushNotificationAllowed(pushNotifications);
+        }
+
+        Account account = core.createAccount(params);
+        core.addAuthInfo(authInfo);
+        core.addAccount(account);
+        core.setDefaultAccount(account);
+        PluginLog.d(TAG, username + "@" + domain + ": " + Outcome.CREATED);
+        return account;
+    }
+}
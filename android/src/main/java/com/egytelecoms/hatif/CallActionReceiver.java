@@ -4,7 +4,6 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
-import android.util.Log;
 
 /**
  * Production-grade BroadcastReceiver to handle incoming call notification
@@ -25,13 +24,13 @@ public class CallActionReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
-        Log.d(TAG, "📱 Received action: " + action);
+        PluginLog.d(TAG, "📱 Received action: " + action);
 
         if (ACTION_ANSWER_CALL.equals(action)) {
-            Log.i(TAG, "✓ Answer call action received from notification");
+            PluginLog.i(TAG, "✓ Answer call action received from notification");
             handleAnswerCall(context);
         } else if (ACTION_DECLINE_CALL.equals(action)) {
-            Log.i(TAG, "✗ Decline call action received from notification");
+            PluginLog.i(TAG, "✗ Decline call action received from notification");
             LinphoneBackgroundService.declineCallFromNotification();
         }
     }
@@ -40,16 +39,16 @@ public class CallActionReceiver extends BroadcastReceiver {
      * ULTIMATE FIX: Accept call via service and ensure UI launches
      */
     private void handleAnswerCall(Context context) {
-        Log.i(TAG, "🎯 handleAnswerCall: ULTIMATE FIX approach");
+        PluginLog.i(TAG, "🎯 handleAnswerCall: ULTIMATE FIX approach");
 
         // Check service state first
         LinphoneBackgroundService service = LinphoneBackgroundService.getInstance();
 
         if (service != null) {
-            Log.d(TAG, "✓ Service instance EXISTS - calling answerCallFromNotification()");
+            PluginLog.d(TAG, "✓ Service instance EXISTS - calling answerCallFromNotification()");
             LinphoneBackgroundService.answerCallFromNotification();
         } else {
-            Log.w(TAG, "⚠️ Service instance is NULL");
+            PluginLog.w(TAG, "⚠️ Service instance is NULL");
 
             // Start/resurrect the service with answer action
             try {
@@ -57,18 +56,17 @@ public class CallActionReceiver extends BroadcastReceiver {
                 serviceIntent.setAction("ANSWER_CALL_FROM_NOTIFICATION");
 
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    Log.d(TAG, "Starting foreground service (Android O+)");
+                    PluginLog.d(TAG, "Starting foreground service (Android O+)");
                     context.startForegroundService(serviceIntent);
                 } else {
-                    Log.d(TAG, "Starting service (pre-Android O)");
+                    PluginLog.d(TAG, "Starting service (pre-Android O)");
                     context.startService(serviceIntent);
                 }
 
-                Log.d(TAG, "✓ Service start/resurrection requested via startService");
+                PluginLog.d(TAG, "✓ Service start/resurrection requested via startService");
 
             } catch (Exception e) {
-                Log.e(TAG, "❌ Failed to start service", e);
-                e.printStackTrace();
+                PluginLog.e(TAG, "❌ Failed to start service", e);
             }
         }
     }
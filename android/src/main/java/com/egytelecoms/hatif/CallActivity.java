@@ -9,29 +9,40 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.Chronometer;
 import android.widget.EditText;
 import android.widget.GridLayout;
 import android.widget.TextView;
 import android.widget.ImageView;
 
+import androidx.annotation.Nullable;
+
 import org.linphone.core.Call;
 import org.linphone.core.Core;
 import org.linphone.core.CoreListenerStub;
 import org.linphone.core.AudioDevice;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-call screen. Rendered from {@link CallViewState}s built on the core
+ * thread; only the views whose field changed since the last render are
+ * updated, and the timer is a {@link Chronometer} anchored on the call's own
+ * duration.
+ */
 public class CallActivity extends Activity {
     private static final String TAG = "CallActivity";
 
     private TextView callerNameText;
     private TextView callerNumberText;
     private TextView callStatusText;
-    private TextView callTimerText;
+    private Chronometer callTimer;
 
     private View muteButton;
     private View speakerButton;
@@ -41,46 +52,43 @@ public class CallActivity extends Activity {
     private View transferButton;
     private View dtmfPanel;
 
-    private boolean isMuted = false;
-    private boolean isSpeaker = false;
-    private boolean isOnHold = false;
+    // Looked up once in createCallView
+    private ImageView muteIcon;
+    private TextView muteLabel;
+    private ImageView speakerIcon;
+    private TextView speakerLabel;
+    private ImageView holdIcon;
+    private TextView holdLabel;
 
-    private Handler timerHandler;
-    private Runnable timerRunnable;
-    private long callStartTime = 0;
     private AudioManager audioManager;
 
+    // Main thread only
+    private CallViewState rendered;
+    // Latest state not yet rendered; states published meanwhile replace it
+    private final AtomicReference<CallViewState> pendingState = new AtomicReference<>();
+    private final Runnable renderPending = () -> {
+        CallViewState state = pendingState.getAndSet(null);
+        if (state != null && !isDestroyed()) {
+            render(state);
+        }
+    };
+
+    // Core thread only
+    private Call shownCall;
+
     private CoreListenerStub coreListener = new CoreListenerStub() {
         @Override
         public void onCallStateChanged(Core core, Call call, Call.State state, String message) {
-            runOnUiThread(() -> {
-                updateCallStatus(state);
-
-                if (state == Call.State.End || state == Call.State.Released || state == Call.State.Error) {
-                    Log.d(TAG, "📴 Call ended, closing activity. State: " + state);
-
-                    // Stop timer
-                    if (timerHandler != null && timerRunnable != null) {
-                        timerHandler.removeCallbacks(timerRunnable);
-                    }
+            if (call != shownCall && call != CallViewState.shownCall(core)) {
+                // A call ringing behind the one on screen has its own notice
+                return;
+            }
+            showCurrent(core);
+        }
 
-                    // Close activity completely and remove from recent apps
-                    if (!isFinishing()) {
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                            finishAndRemoveTask();
-                        } else {
-                            finish();
-                        }
-                        Log.d(TAG, "✅ Activity closed and removed from recent apps");
-                    }
-                } else if (state == Call.State.Connected || state == Call.State.StreamsRunning) {
-                    if (callStartTime == 0) {
-                        callStartTime = System.currentTimeMillis();
-                        startCallTimer();
-                        Log.d(TAG, "⏱ Call timer started");
-                    }
-                }
-            });
+        @Override
+        public void onAudioDeviceChanged(Core core, AudioDevice audioDevice) {
+            showCurrent(core);
         }
     };
 
@@ -130,26 +138,25 @@ public class CallActivity extends Activity {
 
         // Initialize audio routing - CRITICAL: Proper order for stability
         if (audioManager != null) {
-            Log.d(TAG, "🔧 Initializing audio routing to earpiece");
+            PluginLog.d(TAG, "🔧 Initializing audio routing to earpiece");
 
             // Set mode first
             audioManager.setMode(AudioManager.MODE_IN_COMMUNICATION);
 
             // Disable speaker (use earpiece by default)
             audioManager.setSpeakerphoneOn(false);
-            isSpeaker = false;
 
             // Verify audio routing after small delay
             new Handler(Looper.getMainLooper()).postDelayed(() -> {
                 if (audioManager != null) {
                     boolean speakerStatus = audioManager.isSpeakerphoneOn();
                     int mode = audioManager.getMode();
-                    Log.d(TAG, "✅ Audio initialized - Mode: " + mode + ", Speaker: " + speakerStatus);
+                    PluginLog.d(TAG, "✅ Audio initialized - Mode: " + mode + ", Speaker: " + speakerStatus);
 
                     // Force earpiece again if speaker is still on
                     if (speakerStatus) {
                         audioManager.setSpeakerphoneOn(false);
-                        Log.d(TAG, "🔄 Forced earpiece mode again");
+                        PluginLog.d(TAG, "🔄 Forced earpiece mode again");
                     }
                 }
             }, 150);
@@ -158,54 +165,49 @@ public class CallActivity extends Activity {
         // CRITICAL FIX: Auto-accept call if launched from notification accept button
         boolean acceptOnCreate = getIntent().getBooleanExtra("accept_on_create", false);
         if (acceptOnCreate) {
-            Log.i(TAG, "🎯 accept_on_create=true, auto-accepting call from notification");
+            PluginLog.i(TAG, "🎯 accept_on_create=true, auto-accepting call from notification");
             // Accept the call immediately
-            Core core = LinphoneBackgroundService.getCore();
-            if (core != null) {
-                Call currentCall = core.getCurrentCall();
-                if (currentCall == null && core.getCallsNb() > 0) {
-                    currentCall = core.getCalls()[0];
-                }
-                if (currentCall != null && currentCall.getState() == Call.State.IncomingReceived) {
-                    try {
-                        currentCall.accept();
-                        Log.d(TAG, "✓ Call accepted successfully from CallActivity.onCreate()");
-                        // Close IncomingCallActivity if it's open
-                        sendBroadcast(new Intent("com.egytelecoms.hatif.CLOSE_INCOMING_CALL"));
-                        // Dismiss incoming notification
-                        if (LinphoneBackgroundService.getInstance() != null) {
-                            LinphoneBackgroundService.getInstance().dismissIncomingCallNotification();
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "❌ Failed to accept call", e);
-                    }
-                } else {
-                    Log.w(TAG, "⚠️ No incoming call found to accept");
-                }
-            } else {
-                Log.e(TAG, "❌ Core is null, cannot accept call");
-            }
+            PluginExecutors.runOnCore(this::acceptOnCreate);
         }
 
         // Hide notification when call screen is visible
         LinphoneBackgroundService.setCallActivityVisible(true);
 
-        // Register listener
-        Core core = LinphoneBackgroundService.getCore();
+        // Register listener; the reference keeps the core up while shown
+        Core core = CoreOwner.retain(TAG);
         if (core != null) {
             core.addListener(coreListener);
+            // Render whatever the call is in now, e.g. after a configuration change
+            requestRender();
+        }
+    }
 
-            // Check current call state
+    // Core thread
+    private void acceptOnCreate() {
+        Core core = LinphoneBackgroundService.getCore();
+        if (core != null) {
             Call currentCall = core.getCurrentCall();
-            if (currentCall != null) {
-                updateCallStatus(currentCall.getState());
-
-                if (currentCall.getState() == Call.State.Connected ||
-                        currentCall.getState() == Call.State.StreamsRunning) {
-                    callStartTime = System.currentTimeMillis() - (currentCall.getDuration() * 1000);
-                    startCallTimer();
+            if (currentCall == null && core.getCallsNb() > 0) {
+                currentCall = core.getCalls()[0];
+            }
+            if (currentCall != null && currentCall.getState() == Call.State.IncomingReceived) {
+                try {
+                    currentCall.accept();
+                    PluginLog.d(TAG, "✓ Call accepted successfully from CallActivity.onCreate()");
+                    // Close IncomingCallActivity if it's open
+                    sendBroadcast(new Intent("com.egytelecoms.hatif.CLOSE_INCOMING_CALL"));
+                    // Dismiss incoming notification
+                    if (LinphoneBackgroundService.getInstance() != null) {
+                        LinphoneBackgroundService.getInstance().dismissIncomingCallNotification();
+                    }
+                } catch (Exception e) {
+                    PluginLog.e(TAG, "❌ Failed to accept call", e);
                 }
+            } else {
+                PluginLog.w(TAG, "⚠️ No incoming call found to accept");
             }
+        } else {
+            PluginLog.e(TAG, "❌ Core is null, cannot accept call");
         }
     }
 
@@ -215,7 +217,7 @@ public class CallActivity extends Activity {
         callerNameText = view.findViewById(R.id.caller_name);
         callerNumberText = view.findViewById(R.id.caller_number);
         callStatusText = view.findViewById(R.id.call_status);
-        callTimerText = view.findViewById(R.id.call_timer);
+        callTimer = view.findViewById(R.id.call_timer);
 
         muteButton = view.findViewById(R.id.mute_button);
         speakerButton = view.findViewById(R.id.speaker_button);
@@ -225,6 +227,20 @@ public class CallActivity extends Activity {
         transferButton = view.findViewById(R.id.transfer_button);
         dtmfPanel = view.findViewById(R.id.dtmf_panel);
 
+        muteIcon = muteButton.findViewById(R.id.mute_icon);
+        muteLabel = muteButton.findViewById(R.id.mute_label);
+        speakerIcon = speakerButton.findViewById(R.id.speaker_icon);
+        speakerLabel = speakerButton.findViewById(R.id.speaker_label);
+        holdIcon = holdButton.findViewById(R.id.hold_icon);
+        holdLabel = holdButton.findViewById(R.id.hold_label);
+        // The icons never change, only their alpha
+        if (speakerIcon != null) {
+            speakerIcon.setImageResource(R.drawable.ic_speaker);
+        }
+        if (holdIcon != null) {
+            holdIcon.setImageResource(R.drawable.ic_pause);
+        }
+
         muteButton.setOnClickListener(v -> toggleMute());
         speakerButton.setOnClickListener(v -> toggleSpeaker());
         holdButton.setOnClickListener(v -> toggleHold());
@@ -232,8 +248,6 @@ public class CallActivity extends Activity {
         dtmfButton.setOnClickListener(v -> toggleDTMFPanel());
         transferButton.setOnClickListener(v -> showTransferDialog());
 
-        updateButtonStates();
-
         return view;
     }
 
@@ -242,9 +256,9 @@ public class CallActivity extends Activity {
         View dtmfHideButton = findViewById(R.id.dtmf_hide);
         if (dtmfHideButton != null) {
             dtmfHideButton.setOnClickListener(v -> toggleDTMFPanel());
-            Log.d(TAG, "DTMF hide button listener attached");
+            PluginLog.d(TAG, "DTMF hide button listener attached");
         } else {
-            Log.e(TAG, "DTMF hide button not found!");
+            PluginLog.e(TAG, "DTMF hide button not found!");
         }
 
         // Setup DTMF digit buttons
@@ -267,9 +281,9 @@ public class CallActivity extends Activity {
                     v.animate().scaleX(0.9f).scaleY(0.9f).setDuration(100)
                             .withEndAction(() -> v.animate().scaleX(1f).scaleY(1f).setDuration(100).start()).start();
                 });
-                Log.d(TAG, "DTMF button " + digit + " listener attached");
+                PluginLog.d(TAG, "DTMF button " + digit + " listener attached");
             } else {
-                Log.e(TAG, "DTMF button for digit " + digits[i] + " not found!");
+                PluginLog.e(TAG, "DTMF button for digit " + digits[i] + " not found!");
             }
         }
 
@@ -279,11 +293,13 @@ public class CallActivity extends Activity {
     }
 
     private void sendDTMF(String digit) {
-        Core core = LinphoneBackgroundService.getCore();
-        if (core != null && core.getCurrentCall() != null) {
-            core.getCurrentCall().sendDtmf(digit.charAt(0));
-            Log.d(TAG, "DTMF sent: " + digit);
-        }
+        PluginExecutors.runOnCore(() -> {
+            Core core = LinphoneBackgroundService.getCore();
+            if (core != null && core.getCurrentCall() != null) {
+                core.getCurrentCall().sendDtmf(digit.charAt(0));
+                PluginLog.d(TAG, "DTMF sent: " + digit);
+            }
+        });
     }
 
     private void toggleDTMFPanel() {
@@ -310,7 +326,7 @@ public class CallActivity extends Activity {
                         .start();
             }
 
-            Log.d(TAG, "DTMF panel toggled: " + (isVisible ? "hidden" : "visible"));
+            PluginLog.d(TAG, "DTMF panel toggled: " + (isVisible ? "hidden" : "visible"));
         }
     }
 
@@ -337,37 +353,47 @@ public class CallActivity extends Activity {
     }
 
     private void transferCall(String address) {
-        Core core = LinphoneBackgroundService.getCore();
-        if (core != null && core.getCurrentCall() != null) {
-            try {
-                core.getCurrentCall().transfer(address);
-                Log.d(TAG, "Call transferred to: " + address);
-            } catch (Exception e) {
-                Log.e(TAG, "Error transferring call", e);
+        PluginExecutors.runOnCore(() -> {
+            Core core = LinphoneBackgroundService.getCore();
+            if (core != null && core.getCurrentCall() != null) {
+                try {
+                    core.getCurrentCall().transfer(address);
+                    PluginLog.d(TAG, "Call transferred to: " + address);
+                } catch (Exception e) {
+                    PluginLog.e(TAG, "Error transferring call", e);
+                }
             }
-        }
+        });
     }
 
     private void toggleMute() {
-        Core core = LinphoneBackgroundService.getCore();
-        if (core != null) {
-            isMuted = !isMuted;
-            core.enableMic(!isMuted);
-            updateButtonStates();
-            Log.d(TAG, "Microphone muted: " + isMuted);
-        }
+        // Toggled from what is on screen, read on the main thread
+        boolean mute = rendered == null || !rendered.muted;
+        PluginExecutors.runOnCore(() -> {
+            Core core = LinphoneBackgroundService.getCore();
+            if (core != null) {
+                core.enableMic(!mute);
+                PluginStateTracker.requestUpdate();
+                showCurrent(core);
+                PluginLog.d(TAG, "Microphone muted: " + mute);
+            }
+        });
     }
 
     private void toggleSpeaker() {
+        boolean isSpeaker = rendered == null || !rendered.speaker;
+        PluginExecutors.runOnCore(() -> setSpeaker(isSpeaker));
+    }
+
+    // Core thread
+    private void setSpeaker(boolean isSpeaker) {
         Core core = LinphoneBackgroundService.getCore();
         if (core == null || audioManager == null) {
-            Log.e(TAG, "Core or AudioManager is null");
+            PluginLog.e(TAG, "Core or AudioManager is null");
             return;
         }
 
-        // Toggle state
-        isSpeaker = !isSpeaker;
-        Log.d(TAG, "🔊 Toggling speaker to: " + isSpeaker);
+        PluginLog.d(TAG, "🔊 Toggling speaker to: " + isSpeaker);
 
         try {
             // Get current call
@@ -377,18 +403,15 @@ public class CallActivity extends Activity {
             }
 
             if (currentCall == null) {
-                Log.e(TAG, "No active call found");
+                PluginLog.e(TAG, "No active call found");
                 return;
             }
 
             final Call finalCall = currentCall;
 
-            // Update UI immediately
-            updateButtonStates();
-
             // CRITICAL FIX: Change AudioManager AND force Linphone to reload audio
             if (isSpeaker) {
-                Log.d(TAG, "▶ Enabling speaker mode");
+                PluginLog.d(TAG, "▶ Enabling speaker mode");
 
                 // Stop bluetooth
                 if (audioManager.isBluetoothScoOn()) {
@@ -408,7 +431,7 @@ public class CallActivity extends Activity {
                 }
 
                 // CRITICAL: Force Linphone to reload audio devices
-                new Handler(Looper.getMainLooper()).postDelayed(() -> {
+                PluginExecutors.coreHandler().postDelayed(() -> {
                     try {
                         // Find and set speaker device
                         AudioDevice[] devices = core.getAudioDevices();
@@ -425,29 +448,30 @@ public class CallActivity extends Activity {
                             // Set on both call and core
                             finalCall.setOutputAudioDevice(speakerDevice);
                             core.setOutputAudioDevice(speakerDevice);
-                            Log.d(TAG, "✅ Forced Linphone to use speaker: " + speakerDevice.getDeviceName());
+                            PluginLog.d(TAG, "✅ Forced Linphone to use speaker: " + speakerDevice.getDeviceName());
                         } else {
-                            Log.e(TAG, "❌ No speaker device found");
+                            PluginLog.e(TAG, "❌ No speaker device found");
                         }
 
                         // Final verification
                         boolean actualState = audioManager.isSpeakerphoneOn();
-                        Log.d(TAG, "🔍 Final check - AudioManager: " + actualState);
+                        PluginLog.d(TAG, "🔍 Final check - AudioManager: " + actualState);
+                        requestRender();
 
                     } catch (Exception e) {
-                        Log.e(TAG, "❌ Error setting speaker", e);
+                        PluginLog.e(TAG, "❌ Error setting speaker", e);
                     }
                 }, 150);
 
             } else {
-                Log.d(TAG, "▶ Disabling speaker, using earpiece");
+                PluginLog.d(TAG, "▶ Disabling speaker, using earpiece");
 
                 // Disable speaker via AudioManager
                 audioManager.setSpeakerphoneOn(false);
                 audioManager.setMode(AudioManager.MODE_IN_COMMUNICATION);
 
                 // CRITICAL: Force Linphone to reload audio devices
-                new Handler(Looper.getMainLooper()).postDelayed(() -> {
+                PluginExecutors.coreHandler().postDelayed(() -> {
                     try {
                         // Find and set earpiece device
                         AudioDevice[] devices = core.getAudioDevices();
@@ -464,113 +488,71 @@ public class CallActivity extends Activity {
                             // Set on both call and core
                             finalCall.setOutputAudioDevice(earpieceDevice);
                             core.setOutputAudioDevice(earpieceDevice);
-                            Log.d(TAG, "✅ Forced Linphone to use earpiece: " + earpieceDevice.getDeviceName());
+                            PluginLog.d(TAG, "✅ Forced Linphone to use earpiece: " + earpieceDevice.getDeviceName());
                         } else {
-                            Log.w(TAG, "⚠️ No earpiece device found");
+                            PluginLog.w(TAG, "⚠️ No earpiece device found");
                         }
 
                         // Final verification
                         boolean actualState = audioManager.isSpeakerphoneOn();
-                        Log.d(TAG, "🔍 Final check - AudioManager: " + actualState);
+                        PluginLog.d(TAG, "🔍 Final check - AudioManager: " + actualState);
+                        requestRender();
 
                     } catch (Exception e) {
-                        Log.e(TAG, "❌ Error setting earpiece", e);
+                        PluginLog.e(TAG, "❌ Error setting earpiece", e);
                     }
                 }, 150);
             }
 
         } catch (Exception e) {
-            Log.e(TAG, "❌ Critical error toggling speaker", e);
-            e.printStackTrace();
-            isSpeaker = !isSpeaker;
-            updateButtonStates();
+            PluginLog.e(TAG, "❌ Critical error toggling speaker", e);
+            requestRender();
         }
     }
 
     private void toggleHold() {
-        Core core = LinphoneBackgroundService.getCore();
-        if (core != null && core.getCallsNb() > 0) {
-            Call call = core.getCurrentCall();
-            if (call == null)
-                call = core.getCalls()[0];
+        boolean hold = rendered == null || !rendered.onHold;
+        PluginExecutors.runOnCore(() -> {
+            Core core = LinphoneBackgroundService.getCore();
+            if (core != null && core.getCallsNb() > 0) {
+                Call call = core.getCurrentCall();
+                if (call == null)
+                    call = core.getCalls()[0];
 
-            if (call != null) {
-                try {
-                    isOnHold = !isOnHold;
-                    if (isOnHold) {
-                        call.pause();
-                    } else {
-                        call.resume();
+                if (call != null) {
+                    try {
+                        // The Pausing/Resuming state change renders the new state
+                        if (hold) {
+                            call.pause();
+                        } else {
+                            call.resume();
+                        }
+                        PluginLog.d(TAG, "Call on hold: " + hold);
+                    } catch (Exception e) {
+                        PluginLog.e(TAG, "Error toggling hold", e);
                     }
-                    updateButtonStates();
-                    Log.d(TAG, "Call on hold: " + isOnHold);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error toggling hold", e);
                 }
             }
-        }
-    }
-
-    private void updateButtonStates() {
-        runOnUiThread(() -> {
-            // Update mute button
-            if (muteButton != null) {
-                ImageView muteIcon = muteButton.findViewById(R.id.mute_icon);
-                TextView muteLabel = muteButton.findViewById(R.id.mute_label);
-                if (muteIcon != null) {
-                    muteIcon.setImageResource(isMuted ? R.drawable.ic_mic_off : R.drawable.ic_mic_on);
-                }
-                if (muteLabel != null) {
-                    muteLabel.setText(isMuted ? "Unmute" : "Mute");
-                }
-                muteButton.setAlpha(isMuted ? 1.0f : 0.85f);
-            }
-
-            // Update speaker button
-            if (speakerButton != null) {
-                ImageView speakerIcon = speakerButton.findViewById(R.id.speaker_icon);
-                TextView speakerLabel = speakerButton.findViewById(R.id.speaker_label);
-                if (speakerIcon != null) {
-                    speakerIcon.setImageResource(R.drawable.ic_speaker);
-                    speakerIcon.setAlpha(isSpeaker ? 1.0f : 0.5f);
-                }
-                if (speakerLabel != null) {
-                    speakerLabel.setText(isSpeaker ? "Speaker ON" : "Speaker");
-                }
-                speakerButton.setAlpha(isSpeaker ? 1.0f : 0.85f);
-            }
-
-            // Update hold button
-            if (holdButton != null) {
-                ImageView holdIcon = holdButton.findViewById(R.id.hold_icon);
-                TextView holdLabel = holdButton.findViewById(R.id.hold_label);
-                if (holdIcon != null) {
-                    holdIcon.setImageResource(R.drawable.ic_pause);
-                    holdIcon.setAlpha(isOnHold ? 1.0f : 0.5f);
-                }
-                if (holdLabel != null) {
-                    holdLabel.setText(isOnHold ? "Resume" : "Hold");
-                }
-                holdButton.setAlpha(isOnHold ? 1.0f : 0.85f);
-            }
         });
     }
 
     private void hangupCall() {
-        Log.d(TAG, "Hangup button pressed");
-        Core core = LinphoneBackgroundService.getCore();
-        if (core != null && core.getCallsNb() > 0) {
-            Call call = core.getCurrentCall();
-            if (call == null)
-                call = core.getCalls()[0];
-
-            if (call != null) {
-                Log.d(TAG, "Terminating call, current state: " + call.getState());
-                call.terminate();
+        PluginLog.d(TAG, "Hangup button pressed");
+        PluginExecutors.runOnCore(() -> {
+            Core core = LinphoneBackgroundService.getCore();
+            if (core != null && core.getCallsNb() > 0) {
+                Call call = core.getCurrentCall();
+                if (call == null)
+                    call = core.getCalls()[0];
+
+                if (call != null) {
+                    PluginLog.d(TAG, "Terminating call, current state: " + call.getState());
+                    call.terminate();
+                }
+            } else {
+                PluginLog.w(TAG, "No active call found, finishing activity anyway");
             }
-        } else {
-            Log.w(TAG, "No active call found, finishing activity anyway");
-        }
+        });
 
         // Always finish the activity when hangup is pressed
         if (!isFinishing()) {
@@ -578,58 +560,79 @@ public class CallActivity extends Activity {
         }
     }
 
-    private void updateCallStatus(Call.State state) {
-        String status;
-        switch (state) {
-            case IncomingReceived:
-                status = "Incoming call...";
-                break;
-            case OutgoingInit:
-            case OutgoingProgress:
-            case OutgoingRinging:
-                status = "Calling...";
-                break;
-            case Connected:
-            case StreamsRunning:
-                status = "Connected";
-                break;
-            case Paused:
-            case PausedByRemote:
-                status = "On Hold";
-                break;
-            case Updating:
-            case UpdatedByRemote:
-                status = "Updating...";
-                break;
-            default:
-                status = "Call ended";
-                break;
+    /** Rebuilds the state from the core on the core thread and renders it. */
+    private void requestRender() {
+        PluginExecutors.runOnCore(() -> showCurrent(CoreOwner.get()));
+    }
+
+    // Core thread
+    private void showCurrent(@Nullable Core core) {
+        shownCall = core != null ? CallViewState.shownCall(core) : null;
+        publish(CallViewState.current(core));
+    }
+
+    // Any thread; renders on the main thread, folding states published before it runs
+    private void publish(CallViewState state) {
+        if (pendingState.getAndSet(state) == null) {
+            PluginExecutors.mainHandler().post(renderPending);
         }
-        callStatusText.setText(status);
     }
 
-    private void startCallTimer() {
-        timerHandler = new Handler(Looper.getMainLooper());
-        timerRunnable = new Runnable() {
-            @Override
-            public void run() {
-                long elapsed = System.currentTimeMillis() - callStartTime;
-                int seconds = (int) (elapsed / 1000) % 60;
-                int minutes = (int) (elapsed / 1000 / 60) % 60;
-                int hours = (int) (elapsed / 1000 / 60 / 60);
-
-                String time;
-                if (hours > 0) {
-                    time = String.format("%02d:%02d:%02d", hours, minutes, seconds);
-                } else {
-                    time = String.format("%02d:%02d", minutes, seconds);
-                }
+    private void render(CallViewState state) {
+        CallViewState previous = rendered;
+        rendered = state;
 
-                callTimerText.setText(time);
-                timerHandler.postDelayed(this, 1000);
+        if (previous == null || !previous.status.equals(state.status)) {
+            callStatusText.setText(state.status);
+        }
+        if (previous == null || previous.muted != state.muted) {
+            if (muteIcon != null) {
+                muteIcon.setImageResource(state.muted ? R.drawable.ic_mic_off : R.drawable.ic_mic_on);
             }
-        };
-        timerHandler.post(timerRunnable);
+            if (muteLabel != null) {
+                muteLabel.setText(state.muted ? "Unmute" : "Mute");
+            }
+            muteButton.setAlpha(state.muted ? 1.0f : 0.85f);
+        }
+        if (previous == null || previous.speaker != state.speaker) {
+            if (speakerIcon != null) {
+                speakerIcon.setAlpha(state.speaker ? 1.0f : 0.5f);
+            }
+            if (speakerLabel != null) {
+                speakerLabel.setText(state.speaker ? "Speaker ON" : "Speaker");
+            }
+            speakerButton.setAlpha(state.speaker ? 1.0f : 0.85f);
+        }
+        if (previous == null || previous.onHold != state.onHold) {
+            if (holdIcon != null) {
+                holdIcon.setAlpha(state.onHold ? 1.0f : 0.5f);
+            }
+            if (holdLabel != null) {
+                holdLabel.setText(state.onHold ? "Resume" : "Hold");
+            }
+            holdButton.setAlpha(state.onHold ? 1.0f : 0.85f);
+        }
+        if (previous == null || previous.answered != state.answered) {
+            if (state.answered) {
+                // Anchored once; the chronometer then ticks on its own
+                callTimer.setBase(SystemClock.elapsedRealtime() - state.duration * 1000L);
+                callTimer.start();
+                PluginLog.d(TAG, "⏱ Call timer started at " + state.duration + "s");
+            } else {
+                callTimer.stop();
+            }
+        }
+
+        if (state.ended && !isFinishing()) {
+            PluginLog.d(TAG, "📴 Call ended, closing activity");
+            // Close activity completely and remove from recent apps
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                finishAndRemoveTask();
+            } else {
+                finish();
+            }
+            PluginLog.d(TAG, "✅ Activity closed and removed from recent apps");
+        }
     }
 
     @Override
@@ -657,9 +660,8 @@ public class CallActivity extends Activity {
     protected void onDestroy() {
         super.onDestroy();
 
-        if (timerHandler != null && timerRunnable != null) {
-            timerHandler.removeCallbacks(timerRunnable);
-        }
+        callTimer.stop();
+        PluginExecutors.mainHandler().removeCallbacks(renderPending);
 
         // Reset audio routing
         if (audioManager != null) {
@@ -667,10 +669,11 @@ public class CallActivity extends Activity {
             audioManager.setMode(AudioManager.MODE_NORMAL);
         }
 
-        Core core = LinphoneBackgroundService.getCore();
+        Core core = CoreOwner.get();
         if (core != null) {
             core.removeListener(coreListener);
         }
+        CoreOwner.release(TAG);
 
         LinphoneBackgroundService.setCallActivityVisible(false);
     }
@@ -1,12 +1,17 @@
 package com.egytelecoms.hatif;
 
-import org.linphone.core.Call;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
 
 public class CallHistory {
     private String number;
     private int duration;
     private String status;
     private long date;
+    private String callId;
+    private String direction;
+    private String displayName;
 
     public String getNumber() {
         return number;
@@ -40,6 +45,60 @@ public class CallHistory {
         this.date = date;
     }
 
+    public String getCallId() {
+        return callId;
+    }
+
+    public void setCallId(String callId) {
+        this.callId = callId;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @NonNull
+    ArrayList<Object> toList() {
+        ArrayList<Object> list = new ArrayList<>(7);
+        list.add(number);
+        list.add(duration);
+        list.add(status);
+        list.add(date);
+        list.add(callId);
+        list.add(direction);
+        list.add(displayName);
+        return list;
+    }
+
+    @NonNull
+    static CallHistory fromList(@NonNull ArrayList<Object> list) {
+        CallHistory history = new CallHistory();
+        history.number = (String) list.get(0);
+        history.duration = ((Number) list.get(1)).intValue();
+        history.status = (String) list.get(2);
+        history.date = ((Number) list.get(3)).longValue();
+        if (list.size() > 4) {
+            history.callId = (String) list.get(4);
+            history.direction = (String) list.get(5);
+        }
+        if (list.size() > 6) {
+            history.displayName = (String) list.get(6);
+        }
+        return history;
+    }
+
     @Override
     public String toString() {
         return "CallHistory{" +
@@ -47,6 +106,9 @@ public class CallHistory {
                 ", duration=" + duration +
                 ", status=" + status +
                 ", date=" + date +
+                ", callId=" + callId +
+                ", direction=" + direction +
+                ", displayName=" + displayName +
                 '}';
     }
 }
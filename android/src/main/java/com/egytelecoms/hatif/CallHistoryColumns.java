@@ -0,0 +1,183 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Call history laid out by column for "call_logs_columns".
+ *
+ * Fields are copied straight from each {@link CallLog} into primitive arrays:
+ * strings as one UTF-8 blob per column with an offsets array, dates and
+ * durations as long/int arrays, and status and direction as byte codes. The
+ * codec then writes a dozen arrays instead of one tagged list per call, and
+ * Dart reads an entry only when it is accessed.
+ */
+public final class CallHistoryColumns {
+    private static final Call.Status[] STATUSES = Call.Status.values();
+
+    private final int count;
+    private final StringColumn numbers;
+    private final StringColumn displayNames;
+    private final StringColumn callIds;
+    private final long[] dates;
+    private final int[] durations;
+    private final byte[] statuses;
+    private final byte[] directions;
+
+    private CallHistoryColumns(int count, StringColumn numbers, StringColumn displayNames, StringColumn callIds,
+            long[] dates, int[] durations, byte[] statuses, byte[] directions) {
+        this.count = count;
+        this.numbers = numbers;
+        this.displayNames = displayNames;
+        this.callIds = callIds;
+        this.dates = dates;
+        this.durations = durations;
+        this.statuses = statuses;
+        this.directions = directions;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** Reads {@code logs} in their order, most recent first. Core thread. */
+    @NonNull
+    static CallHistoryColumns fromCallLogs(@NonNull CallLog[] logs) {
+        Builder builder = new Builder(logs.length);
+        for (CallLog log : logs) {
+            Address remote = log.getDir() == Call.Dir.Incoming ? log.getFromAddress() : log.getToAddress();
+            builder.add(remote != null ? remote.getUsername() : null,
+                    remote != null ? remote.getDisplayName() : null,
+                    log.getCallId(), log.getStartDate(), log.getDuration(),
+                    log.getStatus(), log.getDir() == Call.Dir.Outgoing);
+        }
+        return builder.build();
+    }
+
+    @NonNull
+    ArrayList<Object> toList() {
+        List<String> statusNames = new ArrayList<>(STATUSES.length);
+        for (Call.Status status : STATUSES) {
+            statusNames.add(status.name());
+        }
+        ArrayList<Object> list = new ArrayList<>(12);
+        list.add(count);
+        list.add(numbers.bytes);
+        list.add(numbers.offsets);
+        list.add(displayNames.bytes);
+        list.add(displayNames.offsets);
+        list.add(callIds.bytes);
+        list.add(callIds.offsets);
+        list.add(dates);
+        list.add(durations);
+        list.add(statuses);
+        list.add(statusNames);
+        list.add(directions);
+        return list;
+    }
+
+    @NonNull
+    static CallHistoryColumns fromList(@NonNull ArrayList<Object> list) {
+        return new CallHistoryColumns(((Number) list.get(0)).intValue(),
+                new StringColumn((byte[]) list.get(1), (int[]) list.get(2)),
+                new StringColumn((byte[]) list.get(3), (int[]) list.get(4)),
+                new StringColumn((byte[]) list.get(5), (int[]) list.get(6)),
+                (long[]) list.get(7), (int[]) list.get(8), (byte[]) list.get(9), (byte[]) list.get(11));
+    }
+
+    /** Appends calls one by one into growing primitive arrays. */
+    static final class Builder {
+        private int count;
+        private final StringColumn.Builder numbers;
+        private final StringColumn.Builder displayNames;
+        private final StringColumn.Builder callIds;
+        private long[] dates;
+        private int[] durations;
+        private byte[] statuses;
+        private byte[] directions;
+
+        Builder(int capacity) {
+            capacity = Math.max(capacity, 16);
+            numbers = new StringColumn.Builder(capacity, 12);
+            displayNames = new StringColumn.Builder(capacity, 12);
+            callIds = new StringColumn.Builder(capacity, 32);
+            dates = new long[capacity];
+            durations = new int[capacity];
+            statuses = new byte[capacity];
+            directions = new byte[capacity];
+        }
+
+        void add(@Nullable String number, @Nullable String displayName, @Nullable String callId, long date,
+                int duration, @NonNull Call.Status status, boolean outgoing) {
+            if (count == dates.length) {
+                int capacity = count * 2;
+                dates = Arrays.copyOf(dates, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                directions = Arrays.copyOf(directions, capacity);
+            }
+            numbers.add(number);
+            displayNames.add(displayName);
+            callIds.add(callId);
+            dates[count] = date;
+            durations[count] = duration;
+            statuses[count] = (byte) status.ordinal();
+            directions[count] = (byte) (outgoing ? 1 : 0);
+            count++;
+        }
+
+        @NonNull
+        CallHistoryColumns build() {
+            return new CallHistoryColumns(count, numbers.build(), displayNames.build(), callIds.build(),
+                    Arrays.copyOf(dates, count), Arrays.copyOf(durations, count),
+                    Arrays.copyOf(statuses, count), Arrays.copyOf(directions, count));
+        }
+    }
+
+    /** Strings of one column: entry i is bytes[offsets[i], offsets[i + 1]). Null is stored as empty. */
+    private static final class StringColumn {
+        final byte[] bytes;
+        final int[] offsets;
+
+        StringColumn(byte[] bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+
+        static final class Builder {
+            private final ByteArrayOutputStream bytes;
+            private int[] offsets;
+            private int count;
+
+            Builder(int capacity, int averageLength) {
+                bytes = new ByteArrayOutputStream(capacity * averageLength);
+                offsets = new int[capacity + 1];
+            }
+
+            void add(@Nullable String value) {
+                if (value != null && !value.isEmpty()) {
+                    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                    bytes.write(encoded, 0, encoded.length);
+                }
+                if (count + 1 == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[++count] = bytes.size();
+            }
+
+            StringColumn build() {
+                return new StringColumn(bytes.toByteArray(), Arrays.copyOf(offsets, count + 1));
+            }
+        }
+    }
+}
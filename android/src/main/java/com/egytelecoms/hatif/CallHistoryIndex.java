@@ -0,0 +1,340 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.egytelecoms.hatif.PluginMessages.CallLogPage;
+import com.egytelecoms.hatif.PluginMessages.CallLogQuery;
+import com.egytelecoms.hatif.PluginMessages.HistoryGroup;
+import com.egytelecoms.hatif.PluginMessages.HistorySearch;
+
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+import org.linphone.core.Core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the call history for "search_call_history" and the
+ * pages of "call_logs".
+ *
+ * Built from {@code core.getCallLogs()} when a core starts and kept up to
+ * date from {@code onCallLogUpdated} on the core thread. Searches run on the
+ * I/O pool under a read lock. Prefix search walks a sorted map of number,
+ * display name and name-word keys; substring search scans the pre-lowered
+ * search text of each entry, newest first, and stops at the limit.
+ *
+ * Page cursors and change tokens are "startDate:callId" of an entry, so they
+ * stay valid when new calls are logged in front of the history. A page
+ * finds its cursor by binary search on the date and only turns the entries
+ * it returns into {@link CallHistory}.
+ */
+final class CallHistoryIndex {
+    private static final String TAG = "CallHistoryIndex";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Oldest first; searches walk it backwards
+    private static final ArrayList<Entry> entries = new ArrayList<>();
+    private static final Map<String, Entry> byCallId = new HashMap<>();
+    private static final TreeMap<String, Set<Entry>> prefixes = new TreeMap<>();
+
+    private CallHistoryIndex() {
+    }
+
+    /** Replaces the index with the history of {@code core}. Core thread. */
+    static void rebuild(@NonNull Core core) {
+        CallLog[] logs = core.getCallLogs();
+        List<Entry> built = new ArrayList<>(logs.length);
+        // Logs are most recent first
+        for (int i = logs.length - 1; i >= 0; i--) {
+            built.add(new Entry(logs[i]));
+        }
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byCallId.clear();
+            prefixes.clear();
+            for (Entry entry : built) {
+                insert(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        PluginLog.d(TAG, "Indexed " + built.size() + " calls");
+    }
+
+    /** Adds or refreshes one entry from {@code onCallLogUpdated}. Core thread. */
+    static void update(@NonNull CallLog log) {
+        Entry entry = new Entry(log);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entry.callId != null ? byCallId.get(entry.callId) : null;
+            if (previous != null) {
+                entries.remove(previous);
+                for (String key : previous.keys) {
+                    Set<Entry> set = prefixes.get(key);
+                    if (set != null && set.remove(previous) && set.isEmpty()) {
+                        prefixes.remove(key);
+                    }
+                }
+            }
+            insert(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write lock held
+    private static void insert(Entry entry) {
+        int index = entries.size();
+        while (index > 0 && entries.get(index - 1).date > entry.date) {
+            index--;
+        }
+        entries.add(index, entry);
+        if (entry.callId != null) {
+            byCallId.put(entry.callId, entry);
+        }
+        for (String key : entry.keys) {
+            prefixes.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(entry);
+        }
+    }
+
+    /** Returns a list of {@link CallHistory} or, when grouping, of {@link HistoryGroup}. */
+    @NonNull
+    static List<Object> search(@NonNull HistorySearch search) {
+        int limit = Math.max(1, Math.min(search.getLimit(), MAX_LIMIT));
+        String query = search.getQuery() != null ? search.getQuery().trim().toLowerCase(Locale.ROOT) : "";
+        lock.readLock().lock();
+        try {
+            Collection<Entry> matches;
+            if (query.isEmpty()) {
+                matches = newestFirst(entries, search.isGroupByContact() ? Integer.MAX_VALUE : limit);
+            } else if (search.isSubstring()) {
+                matches = substringMatches(query, search.isGroupByContact() ? Integer.MAX_VALUE : limit);
+            } else {
+                matches = prefixMatches(query);
+            }
+            return search.isGroupByContact() ? group(matches, limit) : toHistory(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @NonNull
+    static CallLogPage page(@NonNull CallLogQuery query) {
+        int pageSize = Math.max(1, Math.min(query.getPageSize(), MAX_PAGE_SIZE));
+        lock.readLock().lock();
+        try {
+            String changeToken = !entries.isEmpty() ? entries.get(entries.size() - 1).token()
+                    : query.getChangeToken();
+            // Walks back from the newest entry older than the cursor to the
+            // one named by the change token, which the caller already has.
+            int start = entries.size() - 1;
+            if (query.getCursor() != null) {
+                start = positionOf(query.getCursor());
+                if (start >= 0 && query.getCursor().equals(entries.get(start).token())) {
+                    start--;
+                }
+            }
+            int end = query.getChangeToken() != null ? positionOf(query.getChangeToken()) : -1;
+
+            List<CallHistory> page = new ArrayList<>(Math.min(pageSize, Math.max(0, start - end)));
+            String nextCursor = null;
+            Entry last = null;
+            for (int i = start; i > end; i--) {
+                Entry entry = entries.get(i);
+                if (entry.date < query.getSince()) {
+                    // Everything before is older still
+                    break;
+                }
+                if (!entry.matches(query)) {
+                    continue;
+                }
+                if (page.size() == pageSize) {
+                    nextCursor = last.token();
+                    break;
+                }
+                page.add(entry.toHistory());
+                last = entry;
+            }
+            return new CallLogPage(page, nextCursor, changeToken);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Position of the entry named by {@code token}, or of the newest one
+     * older than it if it is gone; -1 when there is none. Read lock held.
+     */
+    private static int positionOf(String token) {
+        int separator = token.indexOf(':');
+        long date;
+        try {
+            date = Long.parseLong(separator > 0 ? token.substring(0, separator) : token);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        String callId = separator > 0 ? token.substring(separator + 1) : null;
+        // First entry newer than the token
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).date <= date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int i = low - 1;
+        while (i >= 0 && entries.get(i).date == date
+                && (callId == null || !callId.equals(entries.get(i).callId))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static List<Entry> newestFirst(List<Entry> source, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, source.size()));
+        for (int i = source.size() - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(source.get(i));
+        }
+        return result;
+    }
+
+    private static List<Entry> substringMatches(String query, int limit) {
+        List<Entry> result = new ArrayList<>();
+        for (int i = entries.size() - 1; i >= 0 && result.size() < limit; i--) {
+            Entry entry = entries.get(i);
+            if (entry.searchText.contains(query)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private static List<Entry> prefixMatches(String query) {
+        Set<Entry> found = new LinkedHashSet<>();
+        for (Set<Entry> set : prefixes.subMap(query, true, query + Character.MAX_VALUE, true).values()) {
+            found.addAll(set);
+        }
+        List<Entry> result = new ArrayList<>(found);
+        result.sort((a, b) -> Long.compare(b.date, a.date));
+        return result;
+    }
+
+    private static List<Object> toHistory(Collection<Entry> matches, int limit) {
+        List<Object> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Entry entry : matches) {
+            if (result.size() == limit) break;
+            result.add(entry.toHistory());
+        }
+        return result;
+    }
+
+    // Matches are newest first, so the first entry of a contact is its latest call
+    private static List<Object> group(Collection<Entry> matches, int limit) {
+        Map<String, HistoryGroup> groups = new LinkedHashMap<>();
+        for (Entry entry : matches) {
+            HistoryGroup group = groups.get(entry.number);
+            if (group == null) {
+                if (groups.size() == limit) continue;
+                group = new HistoryGroup(entry.number, entry.displayName, entry.date);
+                groups.put(entry.number, group);
+            }
+            group.count(Call.Status.Missed.name().equals(entry.status));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /** The number is the remote party's, as in search, columns and statistics. */
+    @NonNull
+    static CallHistory toHistory(@NonNull CallLog log) {
+        Address remote = log.getDir() == Call.Dir.Incoming ? log.getFromAddress() : log.getToAddress();
+        CallHistory history = new CallHistory();
+        history.setNumber(remote != null ? remote.getUsername() : null);
+        history.setStatus(log.getStatus().name());
+        history.setDate(log.getStartDate());
+        history.setDuration(log.getDuration());
+        history.setCallId(log.getCallId());
+        history.setDirection(log.getDir().name());
+        return history;
+    }
+
+    private static final class Entry {
+        final String callId;
+        final String number;
+        @Nullable
+        final String displayName;
+        final long date;
+        final int duration;
+        final String direction;
+        final String status;
+        final String searchText;
+        final List<String> keys = new ArrayList<>(4);
+
+        Entry(CallLog log) {
+            Address remote = log.getDir() == Call.Dir.Incoming ? log.getFromAddress() : log.getToAddress();
+            callId = log.getCallId();
+            number = remote != null && remote.getUsername() != null ? remote.getUsername() : "";
+            displayName = remote != null ? remote.getDisplayName() : null;
+            date = log.getStartDate();
+            duration = log.getDuration();
+            direction = log.getDir().name();
+            status = log.getStatus().name();
+
+            String lowerNumber = number.toLowerCase(Locale.ROOT);
+            String lowerName = displayName != null ? displayName.toLowerCase(Locale.ROOT) : "";
+            searchText = lowerNumber + '\n' + lowerName;
+            addKey(lowerNumber);
+            addKey(lowerName);
+            for (String word : lowerName.split("\\s+")) {
+                addKey(word);
+            }
+        }
+
+        private void addKey(String key) {
+            if (!key.isEmpty() && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        String token() {
+            return date + ":" + callId;
+        }
+
+        boolean matches(CallLogQuery query) {
+            if (query.getDirection() != null && !query.getDirection().equals(direction)) {
+                return false;
+            }
+            return query.getStatus() == null || query.getStatus().equals(status);
+        }
+
+        CallHistory toHistory() {
+            CallHistory history = new CallHistory();
+            history.setNumber(number);
+            history.setDisplayName(displayName);
+            history.setDate(date);
+            history.setDuration(duration);
+            history.setStatus(status);
+            history.setCallId(callId);
+            history.setDirection(direction);
+            return history;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Decides what happens to an incoming call before anything rings: ring it,
+ * reject it or answer it.
+ *
+ * A rule set is compiled from what "set_call_routing_rules" sends into a
+ * hash set of exact numbers and a prefix trie for each list, so routing a
+ * call is a hash probe and a walk down at most one trie node per digit. The
+ * lists are checked in order, first match wins:
+ * <ol>
+ *     <li>allow: VIP callers, always ring</li>
+ *     <li>block: rejected</li>
+ *     <li>autoAnswer: intercoms, answered at once</li>
+ * </ol>
+ * Calls that match none ring during business hours and are rejected outside
+ * them. Rule sets are compiled off the core thread and swapped in with one
+ * volatile write, so routing never waits for a load and always sees a whole
+ * set.
+ */
+public final class CallRoutingRules {
+    private static final String TAG = "CallRoutingRules";
+
+    public enum Action {
+        RING, REJECT, AUTO_ANSWER
+    }
+
+    /** Why a call was routed the way it was. */
+    public enum Rule {
+        ALLOW(Action.RING),
+        BLOCK(Action.REJECT),
+        AUTO_ANSWER(Action.AUTO_ANSWER),
+        OUTSIDE_HOURS(Action.REJECT),
+        NONE(Action.RING);
+
+        public final Action action;
+
+        Rule(Action action) {
+            this.action = action;
+        }
+    }
+
+    static final CallRoutingRules EMPTY = new CallRoutingRules(null, NumberList.EMPTY, NumberList.EMPTY,
+            NumberList.EMPTY, null);
+
+    private static volatile CallRoutingRules current = EMPTY;
+    private static volatile long compileMs;
+    // Guarded by the class
+    private static final long[] routed = new long[Rule.values().length];
+    private static long routeNanos;
+    private static long maxRouteNanos;
+
+    @Nullable
+    private final String version;
+    private final NumberList allow;
+    private final NumberList block;
+    private final NumberList autoAnswer;
+    @Nullable
+    private final BusinessHours hours;
+
+    private CallRoutingRules(@Nullable String version, NumberList allow, NumberList block, NumberList autoAnswer,
+            @Nullable BusinessHours hours) {
+        this.version = version;
+        this.allow = allow;
+        this.block = block;
+        this.autoAnswer = autoAnswer;
+        this.hours = hours;
+    }
+
+    /** The rule set calls are routed with. */
+    @NonNull
+    static CallRoutingRules current() {
+        return current;
+    }
+
+    /** Routes a call from {@code number} with the current rule set and counts the outcome. */
+    @NonNull
+    static Rule route(@Nullable String number) {
+        long start = System.nanoTime();
+        Rule rule = current.match(number, System.currentTimeMillis());
+        long elapsed = System.nanoTime() - start;
+        synchronized (CallRoutingRules.class) {
+            routed[rule.ordinal()]++;
+            routeNanos += elapsed;
+            maxRouteNanos = Math.max(maxRouteNanos, elapsed);
+        }
+        return rule;
+    }
+
+    /** Which rule applies to a call from {@code number} received at {@code timeMs}. */
+    @NonNull
+    Rule match(@Nullable String number, long timeMs) {
+        if (number != null) {
+            String normalized = normalize(number);
+            if (allow.contains(normalized)) {
+                return Rule.ALLOW;
+            }
+            if (block.contains(normalized)) {
+                return Rule.BLOCK;
+            }
+            if (autoAnswer.contains(normalized)) {
+                return Rule.AUTO_ANSWER;
+            }
+        }
+        return hours != null && !hours.isOpen(timeMs) ? Rule.OUTSIDE_HOURS : Rule.NONE;
+    }
+
+    /**
+     * Compiles {@code arguments} and makes it the current rule set; an empty
+     * map removes every rule. Off the core thread.
+     *
+     * @return the new set's version, entry counts and compile time
+     */
+    @NonNull
+    static Map<String, Object> load(@NonNull Map<?, ?> arguments) throws PluginException {
+        long start = System.nanoTime();
+        CallRoutingRules rules = compile(arguments);
+        current = rules;
+        compileMs = (System.nanoTime() - start) / 1_000_000;
+        PluginLog.i(TAG, "Loaded call routing rules " + rules.version + " in " + compileMs + " ms");
+        return rules.describe();
+    }
+
+    @NonNull
+    static CallRoutingRules compile(@NonNull Map<?, ?> arguments) throws PluginException {
+        Object version = arguments.get("version");
+        return new CallRoutingRules(version != null ? String.valueOf(version) : null,
+                NumberList.compile("allow", arguments.get("allow")),
+                NumberList.compile("block", arguments.get("block")),
+                NumberList.compile("autoAnswer", arguments.get("autoAnswer")),
+                BusinessHours.compile(arguments.get("businessHours")));
+    }
+
+    /**
+     * @return the current set's version and entry counts, calls routed per
+     *         rule and the average and worst routing time, ready to be sent
+     *         over the channel
+     */
+    @NonNull
+    static Map<String, Object> snapshotStats() {
+        Map<String, Object> stats = current.describe();
+        stats.put("compileMs", compileMs);
+        Map<String, Object> counts = new HashMap<>();
+        synchronized (CallRoutingRules.class) {
+            long total = 0;
+            for (Rule rule : Rule.values()) {
+                counts.put(rule.name(), routed[rule.ordinal()]);
+                total += routed[rule.ordinal()];
+            }
+            stats.put("avgRouteNanos", total == 0 ? 0L : routeNanos / total);
+            stats.put("maxRouteNanos", maxRouteNanos);
+        }
+        stats.put("routed", counts);
+        return stats;
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> description = new HashMap<>();
+        description.put("version", version);
+        description.put("allow", allow.size());
+        description.put("block", block.size());
+        description.put("autoAnswer", autoAnswer.size());
+        description.put("businessHours", hours != null);
+        return description;
+    }
+
+    /** Drops the separators people and address books put in numbers. */
+    static String normalize(String number) {
+        int length = number.length();
+        int i = 0;
+        while (i < length && !isSeparator(number.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return number;
+        }
+        StringBuilder normalized = new StringBuilder(length);
+        normalized.append(number, 0, i);
+        for (; i < length; i++) {
+            char c = number.charAt(i);
+            if (!isSeparator(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '(' || c == ')' || c == '.';
+    }
+
+    /** Exact numbers in a hash set, prefixes in a trie over dial pad symbols. */
+    private static final class NumberList {
+        static final NumberList EMPTY = new NumberList(new HashSet<>(), new int[Trie.SYMBOLS], new boolean[1], 0);
+
+        private final Set<String> numbers;
+        // children[node * SYMBOLS + symbol] is the child node, 0 for none; node 0 is the root
+        private final int[] children;
+        private final boolean[] terminal;
+        private final int prefixes;
+
+        NumberList(Set<String> numbers, int[] children, boolean[] terminal, int prefixes) {
+            this.numbers = numbers;
+            this.children = children;
+            this.terminal = terminal;
+            this.prefixes = prefixes;
+        }
+
+        static NumberList compile(String name, @Nullable Object list) throws PluginException {
+            if (list == null) {
+                return EMPTY;
+            }
+            if (!(list instanceof Map)) {
+                throw new PluginException("Invalid Arguments", "Expected numbers and prefixes for " + name, null);
+            }
+            Map<?, ?> map = (Map<?, ?>) list;
+            List<?> numbers = asList(name, map.get("numbers"));
+            List<?> prefixes = asList(name, map.get("prefixes"));
+            Set<String> exact = new HashSet<>(numbers.size() * 4 / 3 + 1);
+            for (Object number : numbers) {
+                exact.add(normalize(String.valueOf(number)));
+            }
+            Trie trie = new Trie(prefixes.size() * 4);
+            for (Object prefix : prefixes) {
+                trie.add(name, normalize(String.valueOf(prefix)));
+            }
+            return new NumberList(exact, Arrays.copyOf(trie.children, trie.nodes * Trie.SYMBOLS),
+                    Arrays.copyOf(trie.terminal, trie.nodes), prefixes.size());
+        }
+
+        boolean contains(String number) {
+            if (numbers.contains(number)) {
+                return true;
+            }
+            int node = 0;
+            for (int i = 0, length = number.length(); i < length; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                int symbol = Trie.symbol(number.charAt(i));
+                if (symbol < 0) {
+                    return false;
+                }
+                node = children[node * Trie.SYMBOLS + symbol];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+
+        int size() {
+            return numbers.size() + prefixes;
+        }
+
+        private static List<?> asList(String name, @Nullable Object value) throws PluginException {
+            if (value == null) {
+                return Collections.emptyList();
+            }
+            if (!(value instanceof List)) {
+                throw new PluginException("Invalid Arguments", "Expected a list of numbers for " + name, null);
+            }
+            return (List<?>) value;
+        }
+    }
+
+    /** Growable trie used while compiling a {@link NumberList}. */
+    private static final class Trie {
+        // 0-9, +, *, #
+        static final int SYMBOLS = 13;
+
+        int[] children;
+        boolean[] terminal;
+        int nodes = 1;
+
+        Trie(int expectedNodes) {
+            int capacity = Math.max(expectedNodes, 16);
+            children = new int[capacity * SYMBOLS];
+            terminal = new boolean[capacity];
+        }
+
+        void add(String name, String prefix) throws PluginException {
+            if (prefix.isEmpty()) {
+                throw new PluginException("Invalid Arguments", "Empty prefix in " + name, null);
+            }
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                int symbol = symbol(prefix.charAt(i));
+                if (symbol < 0) {
+                    throw new PluginException("Invalid Arguments", "Prefixes can only hold dial pad symbols",
+                            name + ": " + prefix);
+                }
+                int slot = node * SYMBOLS + symbol;
+                if (children[slot] == 0) {
+                    if (nodes == terminal.length) {
+                        children = Arrays.copyOf(children, children.length * 2);
+                        terminal = Arrays.copyOf(terminal, terminal.length * 2);
+                    }
+                    children[slot] = nodes++;
+                }
+                node = children[slot];
+            }
+            terminal[node] = true;
+        }
+
+        static int symbol(char c) {
+            if (c >= '0' && c <= '9') {
+                return c - '0';
+            }
+            switch (c) {
+                case '+':
+                    return 10;
+                case '*':
+                    return 11;
+                case '#':
+                    return 12;
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    /** Open days and hours in a time zone; the range wraps past midnight when it ends before it starts. */
+    private static final class BusinessHours {
+        private static final long DAY_MS = 86_400_000L;
+
+        private final TimeZone zone;
+        // Bit n set when ISO day n (1 = Monday) is open
+        private final int days;
+        private final int startMinute;
+        private final int endMinute;
+
+        BusinessHours(TimeZone zone, int days, int startMinute, int endMinute) {
+            this.zone = zone;
+            this.days = days;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        @Nullable
+        static BusinessHours compile(@Nullable Object value) throws PluginException {
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof Map)) {
+                throw new PluginException("Invalid Arguments", "Expected business hours", null);
+            }
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object zoneId = map.get("timeZone");
+            TimeZone zone = zoneId != null ? TimeZone.getTimeZone(String.valueOf(zoneId)) : TimeZone.getDefault();
+            int days = 0;
+            for (Object day : NumberList.asList("businessHours", map.get("days"))) {
+                if (!(day instanceof Number) || ((Number) day).intValue() < 1 || ((Number) day).intValue() > 7) {
+                    throw new PluginException("Invalid Arguments", "Days run from 1 (Monday) to 7 (Sunday)",
+                            String.valueOf(day));
+                }
+                days |= 1 << ((Number) day).intValue();
+            }
+            return new BusinessHours(zone, days, minute(map.get("start")), minute(map.get("end")));
+        }
+
+        boolean isOpen(long timeMs) {
+            long local = timeMs + zone.getOffset(timeMs);
+            int day = (int) Math.floorMod(Math.floorDiv(local, DAY_MS) + 3, 7L) + 1;
+            int minute = (int) (Math.floorMod(local, DAY_MS) / 60_000);
+            if ((days & (1 << day)) == 0) {
+                return false;
+            }
+            return startMinute <= endMinute
+                    ? minute >= startMinute && minute < endMinute
+                    : minute >= startMinute || minute < endMinute;
+        }
+
+        private static int minute(@Nullable Object value) throws PluginException {
+            if (!(value instanceof Number) || ((Number) value).intValue() < 0 || ((Number) value).intValue() > 1440) {
+                throw new PluginException("Invalid Arguments", "Expected minutes since midnight",
+                        String.valueOf(value));
+            }
+            return ((Number) value).intValue();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+import org.linphone.core.Core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Running call totals per number and per day for "get_call_statistics".
+ *
+ * Rebuilt once from {@code core.getCallLogs()} when a core starts, then kept
+ * current from {@code onCallLogUpdated}. Each call's last contribution is
+ * remembered by call ID, so a log updated twice is counted once. Day totals
+ * are stored as prefix sums over consecutive local days: a window of any
+ * length is one subtraction, and a finished call only touches the sums from
+ * its day on, which is normally just today. Each number keeps its own
+ * totals per day, few enough to add up for a window.
+ *
+ * Everything here runs on the core thread, "get_call_statistics" included,
+ * so reads never wait for a rebuild.
+ */
+final class CallStatistics {
+    private static final String TAG = "CallStatistics";
+    private static final int CALLS = 0;
+    private static final int ANSWERED = 1;
+    private static final int MISSED = 2;
+    private static final int TALK_SECONDS = 3;
+    private static final int FIELDS = 4;
+
+    // Core thread only
+    private static final Map<String, Contribution> byCallId = new HashMap<>();
+    private static final Map<String, NumberTotals> byNumber = new HashMap<>();
+    private static final long[] total = new long[FIELDS];
+    // prefix[d * FIELDS + f] holds field f summed over days firstDay..firstDay + d - 1
+    private static long[] prefix = new long[FIELDS];
+    private static long firstDay;
+    private static int dayCount;
+
+    private CallStatistics() {
+    }
+
+    /** Replaces the totals with those of {@code core}'s history. */
+    static void rebuild(@NonNull Core core) {
+        byCallId.clear();
+        byNumber.clear();
+        Arrays.fill(total, 0);
+        prefix = new long[FIELDS];
+        dayCount = 0;
+        CallLog[] logs = core.getCallLogs();
+        // Oldest first so days are appended at the end
+        for (int i = logs.length - 1; i >= 0; i--) {
+            apply(new Contribution(logs[i]), 1);
+        }
+        PluginLog.d(TAG, "Aggregated " + logs.length + " calls over " + dayCount + " days");
+    }
+
+    /** Counts a finished or updated call. */
+    static void update(@NonNull CallLog log) {
+        Contribution contribution = new Contribution(log);
+        Contribution previous = contribution.callId != null ? byCallId.get(contribution.callId) : null;
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(contribution, 1);
+    }
+
+    private static void apply(Contribution contribution, int sign) {
+        if (contribution.callId != null) {
+            if (sign > 0) {
+                byCallId.put(contribution.callId, contribution);
+            } else {
+                byCallId.remove(contribution.callId);
+            }
+        }
+        NumberTotals perNumber = byNumber.computeIfAbsent(contribution.number, k -> new NumberTotals());
+        long[] numberDay = perNumber.byDay.computeIfAbsent(contribution.day, k -> new long[FIELDS]);
+        int dayIndex = dayIndex(contribution.day);
+        for (int field = 0; field < FIELDS; field++) {
+            long delta = sign * contribution.values[field];
+            total[field] += delta;
+            perNumber.total[field] += delta;
+            numberDay[field] += delta;
+            for (int d = dayIndex + 1; d <= dayCount; d++) {
+                prefix[d * FIELDS + field] += delta;
+            }
+        }
+        if (numberDay[CALLS] == 0) {
+            perNumber.byDay.remove(contribution.day);
+        }
+    }
+
+    // Grows the day range to include day and returns its index
+    private static int dayIndex(long day) {
+        if (dayCount == 0) {
+            firstDay = day;
+        }
+        if (day < firstDay) {
+            // Older than anything seen: shift everything right
+            int shift = (int) (firstDay - day);
+            long[] grown = new long[(dayCount + shift + 1) * FIELDS];
+            System.arraycopy(prefix, 0, grown, shift * FIELDS, (dayCount + 1) * FIELDS);
+            prefix = grown;
+            firstDay = day;
+            dayCount += shift;
+        }
+        int index = (int) (day - firstDay);
+        if (index >= dayCount) {
+            int newCount = index + 1;
+            int capacity = prefix.length / FIELDS;
+            if (newCount + 1 > capacity) {
+                prefix = Arrays.copyOf(prefix, Math.max(newCount + 1, capacity * 2) * FIELDS);
+            }
+            // New days carry the running total forward
+            for (int d = dayCount + 1; d <= newCount; d++) {
+                System.arraycopy(prefix, dayCount * FIELDS, prefix, d * FIELDS, FIELDS);
+            }
+            dayCount = newCount;
+        }
+        return index;
+    }
+
+    /**
+     * Totals over the last {@code days} local days including today, or over
+     * the whole history when {@code days} is not positive; for one number
+     * only when {@code number} is set.
+     */
+    @NonNull
+    static Map<String, Object> summary(@Nullable String number, int days) {
+        long[] values = new long[FIELDS];
+        if (number != null) {
+            NumberTotals perNumber = byNumber.get(number);
+            if (perNumber != null && days <= 0) {
+                System.arraycopy(perNumber.total, 0, values, 0, FIELDS);
+            } else if (perNumber != null) {
+                long today = localDay(System.currentTimeMillis() / 1000);
+                for (long[] day : perNumber.byDay.subMap(today - days + 1, true, today, true).values()) {
+                    for (int field = 0; field < FIELDS; field++) {
+                        values[field] += day[field];
+                    }
+                }
+            }
+        } else if (days <= 0) {
+            System.arraycopy(total, 0, values, 0, FIELDS);
+        } else if (dayCount > 0) {
+            long today = localDay(System.currentTimeMillis() / 1000);
+            int to = (int) Math.min(today - firstDay + 1, dayCount);
+            int from = (int) Math.max(today - days + 1 - firstDay, 0);
+            for (int field = 0; field < FIELDS && to > from; field++) {
+                values[field] = prefix[to * FIELDS + field] - prefix[from * FIELDS + field];
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("calls", values[CALLS]);
+        summary.put("answered", values[ANSWERED]);
+        summary.put("missed", values[MISSED]);
+        summary.put("talkSeconds", values[TALK_SECONDS]);
+        summary.put("averageTalkSeconds", values[ANSWERED] == 0 ? 0L : values[TALK_SECONDS] / values[ANSWERED]);
+        return summary;
+    }
+
+    /** Decodes {"number", "days"} for "get_call_statistics". */
+    @NonNull
+    static Map<String, Object> summaryFor(@Nullable Object arguments) throws PluginException {
+        if (arguments == null) {
+            return summary(null, 0);
+        }
+        Map<?, ?> map = PluginMessages.asMap(arguments);
+        Object days = map.get("days");
+        return summary((String) map.get("number"), days instanceof Number ? ((Number) days).intValue() : 0);
+    }
+
+    private static long localDay(long epochSeconds) {
+        long millis = epochSeconds * 1000;
+        return Math.floorDiv(millis + TimeZone.getDefault().getOffset(millis), 86_400_000L);
+    }
+
+    private static final class NumberTotals {
+        final long[] total = new long[FIELDS];
+        // Local day to that day's values, days without calls left out
+        final TreeMap<Long, long[]> byDay = new TreeMap<>();
+    }
+
+    private static final class Contribution {
+        final String callId;
+        final String number;
+        final long day;
+        final long[] values = new long[FIELDS];
+
+        Contribution(CallLog log) {
+            Address remote = log.getDir() == Call.Dir.Incoming ? log.getFromAddress() : log.getToAddress();
+            callId = log.getCallId();
+            number = remote != null && remote.getUsername() != null ? remote.getUsername() : "";
+            day = localDay(log.getStartDate());
+            values[CALLS] = 1;
+            values[ANSWERED] = log.getStatus() == Call.Status.Success ? 1 : 0;
+            values[MISSED] = log.getStatus() == Call.Status.Missed ? 1 : 0;
+            values[TALK_SECONDS] = log.getStatus() == Call.Status.Success ? log.getDuration() : 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.AudioDevice;
+import org.linphone.core.Call;
+import org.linphone.core.Core;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What {@link CallActivity} shows, read from the core rather than tracked by
+ * the activity, so a recreated activity renders the same screen.
+ *
+ * Built on the core thread and rendered on the main thread; the activity
+ * compares it with the last rendered state and only touches views whose
+ * field changed.
+ */
+final class CallViewState {
+    /** States in which the call has been answered and its duration is running. */
+    private static final Set<Call.State> ANSWERED_STATES = EnumSet.of(
+            Call.State.Connected, Call.State.StreamsRunning, Call.State.Pausing,
+            Call.State.Paused, Call.State.PausedByRemote, Call.State.Resuming,
+            Call.State.Updating, Call.State.UpdatedByRemote);
+
+    private static final Set<Call.State> ENDED_STATES = EnumSet.of(
+            Call.State.End, Call.State.Released, Call.State.Error);
+
+    static final CallViewState NO_CALL = new CallViewState("Call ended", true, false, false, false, false, 0);
+
+    final String status;
+    final boolean ended;
+    final boolean muted;
+    final boolean speaker;
+    final boolean onHold;
+    final boolean answered;
+    /** Seconds since the call was answered, for anchoring the timer. */
+    final int duration;
+
+    private CallViewState(String status, boolean ended, boolean muted, boolean speaker, boolean onHold,
+            boolean answered, int duration) {
+        this.status = status;
+        this.ended = ended;
+        this.muted = muted;
+        this.speaker = speaker;
+        this.onHold = onHold;
+        this.answered = answered;
+        this.duration = duration;
+    }
+
+    /** The {@link #shownCall shown call}, or {@link #NO_CALL}. Core thread. */
+    @NonNull
+    static CallViewState current(@Nullable Core core) {
+        Call call = core != null ? shownCall(core) : null;
+        return call != null ? of(core, call) : NO_CALL;
+    }
+
+    /**
+     * The call the screen is about: the current call, else one already
+     * answered or placed (a held call, say), else one still ringing. Null
+     * once no call is left; calls that are ending count as gone. Core thread.
+     */
+    @Nullable
+    static Call shownCall(@NonNull Core core) {
+        if (core.getCallsNb() == 0) {
+            return null;
+        }
+        Call current = core.getCurrentCall();
+        if (current != null && !ENDED_STATES.contains(current.getState())) {
+            return current;
+        }
+        Call ringing = null;
+        for (Call call : core.getCalls()) {
+            Call.State state = call.getState();
+            if (ENDED_STATES.contains(state)) {
+                continue;
+            }
+            if (state != Call.State.IncomingReceived && state != Call.State.IncomingEarlyMedia) {
+                return call;
+            }
+            if (ringing == null) {
+                ringing = call;
+            }
+        }
+        return ringing;
+    }
+
+    private static CallViewState of(Core core, Call call) {
+        Call.State state = call.getState();
+        AudioDevice output = call.getOutputAudioDevice();
+        if (output == null) {
+            output = core.getOutputAudioDevice();
+        }
+        boolean answered = ANSWERED_STATES.contains(state);
+        // Only NO_CALL has ended
+        return new CallViewState(statusOf(state), false, !core.isMicEnabled(),
+                output != null && output.getType() == AudioDevice.Type.Speaker,
+                state == Call.State.Pausing || state == Call.State.Paused,
+                answered,
+                answered ? call.getDuration() : 0);
+    }
+
+    private static String statusOf(Call.State state) {
+        switch (state) {
+            case IncomingReceived:
+                return "Incoming call...";
+            case OutgoingInit:
+            case OutgoingProgress:
+            case OutgoingRinging:
+                return "Calling...";
+            case Connected:
+            case StreamsRunning:
+            case Resuming:
+                return "Connected";
+            case Pausing:
+            case Paused:
+            case PausedByRemote:
+                return "On Hold";
+            case Updating:
+            case UpdatedByRemote:
+                return "Updating...";
+            default:
+                return "Call ended";
+        }
+    }
+}
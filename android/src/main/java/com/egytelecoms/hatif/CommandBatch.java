@@ -0,0 +1,105 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.egytelecoms.hatif.PluginMessages.BatchCommand;
+import com.egytelecoms.hatif.PluginMessages.BatchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * Runs an ordered list of commands received in a single "execute_batch"
+ * call and replies once with one {@link BatchResult} per command.
+ *
+ * Consecutive commands with the same {@link ExecutionClass} run together in
+ * one turn of that executor, so a burst of core queries costs a single hop
+ * onto the core thread instead of one channel round trip each.
+ */
+class CommandBatch {
+    private static final String TAG = "CommandBatch";
+    static final String METHOD = "execute_batch";
+
+    private final CommandRegistry registry;
+    private final List<BatchCommand> commands;
+    private final List<BatchResult> results;
+    private final MethodChannel.Result reply;
+
+    private CommandBatch(CommandRegistry registry, List<BatchCommand> commands, MethodChannel.Result reply) {
+        this.registry = registry;
+        this.commands = commands;
+        this.results = new ArrayList<>(commands.size());
+        this.reply = reply;
+    }
+
+    static void execute(@NonNull CommandRegistry registry, @Nullable Object arguments,
+            @NonNull MethodChannel.Result result) {
+        List<BatchCommand> commands = new ArrayList<>();
+        try {
+            if (!(arguments instanceof List)) {
+                throw new PluginException("Invalid Arguments", "Expected a list of commands", String.valueOf(arguments));
+            }
+            for (Object entry : (List<?>) arguments) {
+                commands.add(BatchCommand.fromArguments(entry));
+            }
+        } catch (PluginException e) {
+            result.error(e.getCode(), e.getMessage(), e.getDetails());
+            return;
+        }
+        new CommandBatch(registry, commands, new MainThreadResult(result)).runFrom(0);
+    }
+
+    private void runFrom(int start) {
+        if (start == commands.size()) {
+            reply.success(results);
+            return;
+        }
+        ExecutionClass executionClass = executionClassOf(commands.get(start));
+        int end = start + 1;
+        while (end < commands.size() && executionClassOf(commands.get(end)) == executionClass) {
+            end++;
+        }
+        final int runEnd = end;
+        PluginExecutors.execute(executionClass, () -> {
+            if (wakesCore(start, runEnd)) {
+                CoreOwner.wake("batch");
+            }
+            for (int i = start; i < runEnd; i++) {
+                results.add(runOne(commands.get(i)));
+            }
+            runFrom(runEnd);
+        });
+    }
+
+    private boolean wakesCore(int start, int end) {
+        for (int i = start; i < end; i++) {
+            String method = commands.get(i).getMethod();
+            if (method != null && registry.wakesCore(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ExecutionClass executionClassOf(BatchCommand command) {
+        return command.getMethod() != null ? registry.executionClassOf(command.getMethod()) : ExecutionClass.UI;
+    }
+
+    private BatchResult runOne(BatchCommand command) {
+        String method = command.getMethod();
+        if (method == null || METHOD.equals(method)) {
+            return BatchResult.error(method, "Invalid Arguments", "Batches cannot contain " + method, null);
+        }
+        try {
+            return BatchResult.success(method, registry.dispatch(method, command.getArguments()));
+        } catch (PluginException e) {
+            return BatchResult.error(method, e.getCode(), e.getMessage(), e.getDetails());
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Batched command " + method + " failed", e);
+            return BatchResult.error(method, null, e.toString(), null);
+        }
+    }
+}
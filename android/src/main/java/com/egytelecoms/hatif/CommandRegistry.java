@@ -0,0 +1,190 @@
+package com.egytelecoms.hatif;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of the commands exposed on the "linphonesdk" method channel.
+ *
+ * Each command is registered once with a decoder that turns the raw channel
+ * arguments into its typed request, and a handler that returns the response.
+ * Lookups are a single hash probe instead of a string switch, and every
+ * dispatch is timed so the per-method cost can be read back through
+ * {@link #snapshotStats()}.
+ *
+ * Every command declares the {@link ExecutionClass} it runs on. Commands that
+ * run on the main thread are checked against {@link #MAIN_THREAD_BUDGET_NANOS};
+ * any that overrun it are logged and counted. Core commands wake a suspended
+ * core unless registered with {@link #registerCoreRead} as reads only.
+ */
+public class CommandRegistry {
+    private static final String TAG = "CommandRegistry";
+    static final long MAIN_THREAD_BUDGET_NANOS = 8_000_000L;
+
+    public interface Decoder<T> {
+        T decode(@Nullable Object arguments) throws PluginException;
+    }
+
+    public interface Handler<T> {
+        Object handle(T request) throws PluginException;
+    }
+
+    public interface NoArgHandler {
+        Object handle() throws PluginException;
+    }
+
+    static final class Command<T> {
+        final String method;
+        final ExecutionClass executionClass;
+        final boolean wakesCore;
+        final Decoder<T> decoder;
+        final Handler<T> handler;
+
+        // Dispatch timing, guarded by the command itself
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long overBudget;
+
+        Command(String method, ExecutionClass executionClass, boolean wakesCore, Decoder<T> decoder,
+                Handler<T> handler) {
+            this.method = method;
+            this.executionClass = executionClass;
+            this.wakesCore = wakesCore;
+            this.decoder = decoder;
+            this.handler = handler;
+        }
+
+        Object run(@Nullable Object arguments) throws PluginException {
+            return handler.handle(decoder.decode(arguments));
+        }
+    }
+
+    private final Map<String, Command<?>> commands = new HashMap<>();
+
+    public <T> void register(@NonNull String method, @NonNull ExecutionClass executionClass,
+            @NonNull Decoder<T> decoder, @NonNull Handler<T> handler) {
+        add(new Command<>(method, executionClass, executionClass == ExecutionClass.CORE, decoder, handler));
+    }
+
+    public void register(@NonNull String method, @NonNull ExecutionClass executionClass,
+            @NonNull NoArgHandler handler) {
+        register(method, executionClass, arguments -> null, request -> handler.handle());
+    }
+
+    /**
+     * Registers a {@link ExecutionClass#CORE} command that only reads what the
+     * core already knows. It does not wake a suspended core, so Dart polling
+     * it does not keep the core from suspending.
+     */
+    public <T> void registerCoreRead(@NonNull String method, @NonNull Decoder<T> decoder,
+            @NonNull Handler<T> handler) {
+        add(new Command<>(method, ExecutionClass.CORE, false, decoder, handler));
+    }
+
+    public void registerCoreRead(@NonNull String method, @NonNull NoArgHandler handler) {
+        registerCoreRead(method, arguments -> null, request -> handler.handle());
+    }
+
+    private void add(Command<?> command) {
+        if (commands.containsKey(command.method)) {
+            throw new IllegalStateException("Command already registered: " + command.method);
+        }
+        commands.put(command.method, command);
+    }
+
+    public boolean contains(@NonNull String method) {
+        return commands.containsKey(method);
+    }
+
+    @Nullable
+    Command<?> lookup(@NonNull String method) {
+        return commands.get(method);
+    }
+
+    @NonNull
+    public ExecutionClass executionClassOf(@NonNull String method) {
+        Command<?> command = commands.get(method);
+        return command != null ? command.executionClass : ExecutionClass.UI;
+    }
+
+    /** Whether {@code method} needs a suspended core to iterate again before it runs. */
+    public boolean wakesCore(@NonNull String method) {
+        Command<?> command = commands.get(method);
+        return command != null && command.wakesCore;
+    }
+
+    /**
+     * Runs the command registered for {@code method} on the calling thread.
+     * Callers are expected to be on the command's execution class already.
+     *
+     * @throws PluginException if the handler fails or no such command exists
+     */
+    public Object dispatch(@NonNull String method, @Nullable Object arguments) throws PluginException {
+        Command<?> command = commands.get(method);
+        if (command == null) {
+            throw new PluginException("Not Implemented", "Unknown method: " + method);
+        }
+        boolean onMainThread = PluginExecutors.isMainThread();
+        long start = System.nanoTime();
+        try {
+            return command.run(arguments);
+        } finally {
+            record(command, System.nanoTime() - start, onMainThread);
+        }
+    }
+
+    private static void record(Command<?> command, long elapsedNanos, boolean onMainThread) {
+        boolean overBudget = onMainThread && elapsedNanos > MAIN_THREAD_BUDGET_NANOS;
+        synchronized (command) {
+            command.count++;
+            command.totalNanos += elapsedNanos;
+            if (elapsedNanos > command.maxNanos) {
+                command.maxNanos = elapsedNanos;
+            }
+            if (overBudget) {
+                command.overBudget++;
+            }
+        }
+        if (overBudget) {
+            PluginLog.w(TAG, "'" + command.method + "' blocked the main thread for " + (elapsedNanos / 1_000_000)
+                    + " ms (budget " + (MAIN_THREAD_BUDGET_NANOS / 1_000_000) + " ms)");
+        }
+    }
+
+    /**
+     * @return per-method execution class, call count, average and worst
+     *         dispatch time in microseconds and main-thread budget overruns,
+     *         ready to be sent over the channel
+     */
+    public Map<String, Object> snapshotStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String method : sortedMethods()) {
+            Command<?> command = commands.get(method);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("executionClass", command.executionClass.name());
+            synchronized (command) {
+                entry.put("count", command.count);
+                entry.put("avgMicros", command.count == 0 ? 0L : command.totalNanos / command.count / 1000);
+                entry.put("maxMicros", command.maxNanos / 1000);
+                entry.put("overBudget", command.overBudget);
+            }
+            stats.put(method, entry);
+        }
+        return stats;
+    }
+
+    private List<String> sortedMethods() {
+        List<String> methods = new ArrayList<>(commands.keySet());
+        Collections.sort(methods);
+        return methods;
+    }
+}
@@ -0,0 +1,358 @@
+package com.egytelecoms.hatif;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Account;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+import org.linphone.core.Core;
+import org.linphone.core.CoreListener;
+import org.linphone.core.CoreListenerStub;
+import org.linphone.core.Factory;
+import org.linphone.core.RegistrationState;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The only place a Linphone {@link Core} is created.
+ *
+ * The background service and the plugin {@link #acquire} the core, which
+ * creates and starts it on first use; activities showing a call
+ * {@link #retain} it so it is not shut down under them. Every holder
+ * {@link #release}s its reference when done. When the last one is gone the
+ * core is stopped after {@link #setIdleShutdownDelay idle delay}, so a quick
+ * re-login or service restart reuses the running core instead of building a
+ * new one.
+ *
+ * A running core with no call and no account registered or registering,
+ * e.g. after an unregister, is suspended after {@link #setIdleSuspendDelay
+ * idle delay}: it is put into Linphone's background mode and no longer
+ * iterated, so it costs no wakeups. Acquiring or retaining it, a core
+ * command that needs it, a push or a network change {@link #wake}s it,
+ * which brings it back to the foreground and restarts the iteration without
+ * the cost of a restart.
+ *
+ * Registration and call state changes of the core are sent to every engine
+ * from here, whoever holds it, so each reaches Dart exactly once.
+ *
+ * While a core runs, {@link DeviceConditions} changes adjust how often it is
+ * iterated without a call and cap its media bandwidth on metered networks or
+ * a constrained device, so the codec and bitrate chosen for new calls stay
+ * cheap.
+ */
+public final class CoreOwner {
+    private static final String TAG = "CoreOwner";
+    static final long DEFAULT_IDLE_SHUTDOWN_MS = 30_000;
+    static final long DEFAULT_IDLE_SUSPEND_MS = 5_000;
+    /** Iteration interval without a call while the screen is off or the device is constrained. */
+    static final long LOW_POWER_ITERATE_INTERVAL_MS = 80;
+    /** Upload and download cap for the economy media profile, in kbit/s. */
+    static final int ECONOMY_BANDWIDTH_KBPS = 40;
+
+    private static Core core;
+    private static final Map<String, Integer> holders = new HashMap<>();
+    private static int references;
+    private static long idleShutdownMs = DEFAULT_IDLE_SHUTDOWN_MS;
+    private static boolean economyMedia;
+    private static long idleSuspendMs = DEFAULT_IDLE_SUSPEND_MS;
+
+    // Suspension, in elapsed realtime so deep sleep counts
+    private static boolean suspended;
+    private static long suspendedSinceMs;
+    private static long suspendedTotalMs;
+    private static long startedAtMs;
+    private static long runningTotalMs;
+    private static int suspensions;
+    private static String lastWakeReason;
+
+    private static final Runnable shutdownRunnable = CoreOwner::shutdownIfIdle;
+    private static final Runnable suspendRunnable = CoreOwner::suspendIfIdle;
+
+    private CoreOwner() {
+    }
+
+    /** The running core, or null. Never creates one. */
+    @Nullable
+    public static synchronized Core get() {
+        return core;
+    }
+
+    /**
+     * Returns the shared core, creating and starting it if needed, and counts
+     * a reference for {@code holder}. Core thread only.
+     */
+    @NonNull
+    public static synchronized Core acquire(@NonNull Context context, @NonNull String holder) {
+        if (!PluginExecutors.isCoreThread()) {
+            throw new IllegalStateException("The core must be acquired on the core thread");
+        }
+        if (core == null) {
+            Factory factory = Factory.instance();
+            LinphoneLogBridge.attach(factory);
+            core = factory.createCore(null, null, context.getApplicationContext());
+            // Iterated on the core thread by PluginExecutors, not the main looper
+            core.setAutoIterateEnabled(false);
+            core.addListener(historyListener);
+            core.addListener(idleListener);
+            core.addListener(eventListener);
+            core.start();
+            startedAtMs = SystemClock.elapsedRealtime();
+            CallHistoryIndex.rebuild(core);
+            CallStatistics.rebuild(core);
+            applyDeviceState(core, DeviceConditions.current());
+            DeviceConditions.addListener(conditionsListener);
+            PluginExecutors.startIterating(core);
+            PluginLog.d(TAG, "Core created for " + holder);
+        }
+        PluginExecutors.coreHandler().removeCallbacks(shutdownRunnable);
+        addHolder(holder);
+        wake(holder);
+        return core;
+    }
+
+    /**
+     * Counts a reference for {@code holder} if a core is running and returns
+     * it, or returns null without counting. Any thread.
+     */
+    @Nullable
+    public static synchronized Core retain(@NonNull String holder) {
+        if (core == null) {
+            return null;
+        }
+        PluginExecutors.coreHandler().removeCallbacks(shutdownRunnable);
+        addHolder(holder);
+        wake(holder);
+        return core;
+    }
+
+    /** Drops one reference of {@code holder}; unknown holders are ignored. Any thread. */
+    public static synchronized void release(@NonNull String holder) {
+        Integer count = holders.get(holder);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            holders.remove(holder);
+        } else {
+            holders.put(holder, count - 1);
+        }
+        references--;
+        if (references == 0 && idleShutdownMs >= 0) {
+            PluginExecutors.coreHandler().postDelayed(shutdownRunnable, idleShutdownMs);
+        }
+    }
+
+    /**
+     * Resumes iterating a suspended core, e.g. for a command or a push, and
+     * restarts the idle delay before it may be suspended again. Does nothing
+     * without a core. Any thread.
+     *
+     * @return whether the core was suspended
+     */
+    public static synchronized boolean wake(@NonNull String reason) {
+        if (core == null) {
+            return false;
+        }
+        scheduleSuspendCheck();
+        if (!suspended) {
+            return false;
+        }
+        suspended = false;
+        long suspendedMs = SystemClock.elapsedRealtime() - suspendedSinceMs;
+        suspendedTotalMs += suspendedMs;
+        lastWakeReason = reason;
+        // Posted ahead of the first iteration when called off the core thread
+        PluginExecutors.runOnCore(core::enterForeground);
+        PluginExecutors.startIterating(core);
+        PluginLog.d(TAG, "Core woken by " + reason + " after " + suspendedMs + " ms suspended");
+        return true;
+    }
+
+    /**
+     * Delay before an idle core is suspended. A negative delay never
+     * suspends it and wakes it if it is.
+     */
+    public static synchronized void setIdleSuspendDelay(long delayMs) {
+        idleSuspendMs = delayMs;
+        if (delayMs < 0) {
+            wake("settings");
+        }
+        scheduleSuspendCheck();
+    }
+
+    /**
+     * Delay before an unreferenced core is stopped. 0 stops it as soon as the
+     * last reference is released, a negative delay keeps it running.
+     */
+    public static synchronized void setIdleShutdownDelay(long delayMs) {
+        idleShutdownMs = delayMs;
+        PluginExecutors.coreHandler().removeCallbacks(shutdownRunnable);
+        if (references == 0 && core != null && delayMs >= 0) {
+            PluginExecutors.coreHandler().postDelayed(shutdownRunnable, delayMs);
+        }
+    }
+
+    /** Holders and their reference counts, for diagnostics. */
+    @NonNull
+    public static synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("running", core != null);
+        snapshot.put("references", references);
+        snapshot.put("holders", new HashMap<>(holders));
+        snapshot.put("idleShutdownMs", idleShutdownMs);
+        snapshot.put("economyMedia", economyMedia);
+        long now = SystemClock.elapsedRealtime();
+        snapshot.put("suspended", suspended);
+        snapshot.put("idleSuspendMs", idleSuspendMs);
+        snapshot.put("suspensions", suspensions);
+        snapshot.put("suspendedMs", suspendedTotalMs + (suspended ? now - suspendedSinceMs : 0));
+        snapshot.put("runningMs", runningTotalMs + (core != null ? now - startedAtMs : 0));
+        snapshot.put("lastWakeReason", lastWakeReason);
+        return snapshot;
+    }
+
+    private static void addHolder(String holder) {
+        Integer count = holders.get(holder);
+        holders.put(holder, count == null ? 1 : count + 1);
+        references++;
+    }
+
+    private static synchronized void scheduleSuspendCheck() {
+        Handler handler = PluginExecutors.coreHandler();
+        handler.removeCallbacks(suspendRunnable);
+        if (core != null && idleSuspendMs >= 0) {
+            handler.postDelayed(suspendRunnable, idleSuspendMs);
+        }
+    }
+
+    // Core thread
+    private static synchronized void suspendIfIdle() {
+        if (core == null || suspended || !isIdle(core)) {
+            return;
+        }
+        suspended = true;
+        suspendedSinceMs = SystemClock.elapsedRealtime();
+        suspensions++;
+        core.enterBackground();
+        PluginExecutors.stopIterating(core);
+        PluginLog.d(TAG, "Core suspended while idle");
+    }
+
+    /** No call, and no account registered or with a registration or unregistration in flight. */
+    private static boolean isIdle(Core core) {
+        if (core.getCallsNb() > 0) {
+            return false;
+        }
+        for (Account account : core.getAccountList()) {
+            if (account.getParams().isRegisterEnabled()) {
+                return false;
+            }
+            RegistrationState state = account.getState();
+            if (state == RegistrationState.Ok || state == RegistrationState.Progress
+                    || state == RegistrationState.Refreshing) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Core thread
+    private static synchronized void shutdownIfIdle() {
+        if (core == null || references > 0) {
+            return;
+        }
+        Core stopping = core;
+        core = null;
+        long now = SystemClock.elapsedRealtime();
+        if (suspended) {
+            suspended = false;
+            suspendedTotalMs += now - suspendedSinceMs;
+        }
+        runningTotalMs += now - startedAtMs;
+        PluginExecutors.coreHandler().removeCallbacks(suspendRunnable);
+        PluginExecutors.stopIterating(stopping);
+        DeviceConditions.removeListener(conditionsListener);
+        economyMedia = false;
+        stopping.removeListener(historyListener);
+        stopping.removeListener(idleListener);
+        stopping.removeListener(eventListener);
+        stopping.stop();
+        PluginStateTracker.requestUpdate();
+        PluginLog.d(TAG, "Core stopped after being idle");
+    }
+
+    // Core thread
+    private static synchronized void applyDeviceState(Core core, DeviceState state) {
+        boolean lowPower = state.isConstrained() || !state.screenOn;
+        PluginExecutors.setIdleIterateInterval(
+                lowPower ? LOW_POWER_ITERATE_INTERVAL_MS : PluginExecutors.ITERATE_INTERVAL_MS);
+
+        // Linphone picks codecs and bitrates that fit the bandwidth, for calls started from now on
+        boolean economy = state.metered || state.isConstrained();
+        if (economy != economyMedia) {
+            economyMedia = economy;
+            int bandwidth = economy ? ECONOMY_BANDWIDTH_KBPS : 0;
+            core.setUploadBandwidth(bandwidth);
+            core.setDownloadBandwidth(bandwidth);
+            PluginLog.d(TAG, "Media profile: " + (economy ? "economy" : "normal"));
+        }
+    }
+
+    private static final DeviceConditions.Listener conditionsListener = (previous, current) -> {
+        if (current.network != previous.network && current.network != DeviceState.Network.NONE) {
+            wake("network");
+        }
+        Core running = get();
+        if (running != null) {
+            applyDeviceState(running, current);
+        }
+    };
+
+    private static final CoreListener historyListener = new CoreListenerStub() {
+        @Override
+        public void onCallLogUpdated(@NonNull Core core, @NonNull CallLog callLog) {
+            CallHistoryIndex.update(callLog);
+            CallStatistics.update(callLog);
+        }
+    };
+
+    private static final CoreListener eventListener = new CoreListenerStub() {
+        @Override
+        public void onAccountRegistrationStateChanged(@NonNull Core core, @NonNull Account account,
+                RegistrationState state, @NonNull String message) {
+            EventChannelHelper.broadcast(LinphonesdkPlugin.LOGIN_EVENTS,
+                    PluginEvents.forAccount(account, state, message));
+            PluginStateTracker.requestUpdate();
+        }
+
+        @Override
+        public void onCallStateChanged(@NonNull Core core, @NonNull Call call, Call.State state,
+                @NonNull String message) {
+            if (PluginEvents.isReported(state)) {
+                EventChannelHelper.broadcast(LinphonesdkPlugin.CALL_EVENTS, PluginEvents.forCall(call, state.name()));
+            }
+            PluginStateTracker.requestUpdate();
+        }
+    };
+
+    // Restarts the idle delay whenever the core's activity changes
+    private static final CoreListener idleListener = new CoreListenerStub() {
+        @Override
+        public void onAccountRegistrationStateChanged(@NonNull Core core, @NonNull Account account,
+                RegistrationState state, @NonNull String message) {
+            scheduleSuspendCheck();
+        }
+
+        @Override
+        public void onCallStateChanged(@NonNull Core core, @NonNull Call call, Call.State state,
+                @NonNull String message) {
+            scheduleSuspendCheck();
+        }
+    };
+}
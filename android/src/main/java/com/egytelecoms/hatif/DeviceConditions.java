@@ -0,0 +1,203 @@
+package com.egytelecoms.hatif;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watches battery, power saver, thermal status, screen and the default
+ * network, and publishes a {@link DeviceState} whenever one of them changes.
+ *
+ * System callbacks only schedule a refresh; the state is then read on the
+ * core thread, compared with the last one and, if different, handed to the
+ * {@link Listener}s and pushed on "linphonesdk/device_state". The plugin and
+ * the background service each {@link #start} and {@link #stop} it; it runs
+ * while either does.
+ */
+public final class DeviceConditions {
+    private static final String TAG = "DeviceConditions";
+
+    /** Called on the core thread with the state before and after a change. */
+    public interface Listener {
+        void onDeviceStateChanged(@NonNull DeviceState previous, @NonNull DeviceState current);
+    }
+
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    private static Context context;
+    private static int starts;
+    private static ConnectivityManager.NetworkCallback networkCallback;
+    private static PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    // Written on the core thread, read anywhere
+    private static volatile DeviceState current = DeviceState.UNKNOWN;
+
+    private static final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            requestRefresh();
+        }
+    };
+
+    private DeviceConditions() {
+    }
+
+    public static synchronized void start(@NonNull Context context) {
+        if (starts++ > 0) {
+            return;
+        }
+        DeviceConditions.context = context.getApplicationContext();
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        }
+        DeviceConditions.context.registerReceiver(receiver, filter);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                    requestRefresh();
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    requestRefresh();
+                }
+            };
+            connectivityManager().registerDefaultNetworkCallback(networkCallback);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermalListener = status -> requestRefresh();
+            powerManager().addThermalStatusListener(thermalListener);
+        }
+        requestRefresh();
+        PluginLog.d(TAG, "Started");
+    }
+
+    public static synchronized void stop() {
+        if (starts == 0 || --starts > 0) {
+            return;
+        }
+        context.unregisterReceiver(receiver);
+        if (networkCallback != null) {
+            connectivityManager().unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            powerManager().removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+        PluginLog.d(TAG, "Stopped");
+    }
+
+    /** The last published state; {@link DeviceState#UNKNOWN} before the first. */
+    @NonNull
+    public static DeviceState current() {
+        return current;
+    }
+
+    /** Adds {@code listener}; it is not called with the current state. */
+    public static void addListener(@NonNull Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** The current state as a replay snapshot for the event channel. */
+    @NonNull
+    static List<Object> snapshot() {
+        List<Object> snapshot = new ArrayList<>(1);
+        if (current != DeviceState.UNKNOWN) {
+            snapshot.add(current);
+        }
+        return snapshot;
+    }
+
+    private static void requestRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            PluginExecutors.coreHandler().post(() -> {
+                refreshPending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    // Core thread
+    private static void refresh() {
+        Context context;
+        synchronized (DeviceConditions.class) {
+            context = DeviceConditions.context;
+            if (starts == 0) {
+                return;
+            }
+        }
+        DeviceState state = read(context);
+        DeviceState previous = current;
+        if (state.equals(previous)) {
+            return;
+        }
+        current = state;
+        PluginLog.d(TAG, state.toString());
+        for (Listener listener : listeners) {
+            listener.onDeviceStateChanged(previous, state);
+        }
+        EventChannelHelper.broadcast(LinphonesdkPlugin.DEVICE_EVENTS, state);
+    }
+
+    private static DeviceState read(Context context) {
+        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        PowerManager powerManager = powerManager();
+        int battery = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        int thermal = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? powerManager.getCurrentThermalStatus() : -1;
+
+        DeviceState.Network network = DeviceState.Network.NONE;
+        boolean metered = false;
+        ConnectivityManager connectivityManager = connectivityManager();
+        Network active = connectivityManager.getActiveNetwork();
+        NetworkCapabilities capabilities = active != null ? connectivityManager.getNetworkCapabilities(active) : null;
+        if (capabilities != null) {
+            if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+                network = DeviceState.Network.WIFI;
+            } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+                network = DeviceState.Network.CELLULAR;
+            } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+                network = DeviceState.Network.ETHERNET;
+            } else {
+                network = DeviceState.Network.OTHER;
+            }
+            metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+        }
+
+        return new DeviceState(battery > 0 && battery <= 100 ? battery : -1, batteryManager.isCharging(),
+                powerManager.isPowerSaveMode(), thermal, powerManager.isInteractive(), network, metered);
+    }
+
+    private static ConnectivityManager connectivityManager() {
+        return (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    private static PowerManager powerManager() {
+        return (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+}
@@ -0,0 +1,106 @@
+package com.egytelecoms.hatif;
+
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Battery, power, thermal, screen and network conditions at one point in
+ * time, published by {@link DeviceConditions} and pushed on
+ * "linphonesdk/device_state".
+ */
+public final class DeviceState {
+    public enum Network {
+        NONE, WIFI, CELLULAR, ETHERNET, OTHER
+    }
+
+    /** Below this, unplugged, the device counts as constrained. */
+    static final int LOW_BATTERY_PERCENT = 15;
+
+    static final DeviceState UNKNOWN = new DeviceState(-1, false, false, -1, true, Network.OTHER, false);
+
+    /** 0-100, or -1 when unknown. */
+    final int batteryPercent;
+    final boolean charging;
+    final boolean powerSave;
+    /** A {@code PowerManager.THERMAL_STATUS_*} value, or -1 before Android 10. */
+    final int thermalStatus;
+    final boolean screenOn;
+    @NonNull
+    final Network network;
+    final boolean metered;
+
+    DeviceState(int batteryPercent, boolean charging, boolean powerSave, int thermalStatus, boolean screenOn,
+            @NonNull Network network, boolean metered) {
+        this.batteryPercent = batteryPercent;
+        this.charging = charging;
+        this.powerSave = powerSave;
+        this.thermalStatus = thermalStatus;
+        this.screenOn = screenOn;
+        this.network = network;
+        this.metered = metered;
+    }
+
+    /** Power saver on, low battery while unplugged, or severe thermal throttling. */
+    boolean isConstrained() {
+        return powerSave
+                || (!charging && batteryPercent >= 0 && batteryPercent <= LOW_BATTERY_PERCENT)
+                || thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeviceState)) {
+            return false;
+        }
+        DeviceState other = (DeviceState) o;
+        return batteryPercent == other.batteryPercent && charging == other.charging
+                && powerSave == other.powerSave && thermalStatus == other.thermalStatus
+                && screenOn == other.screenOn && network == other.network && metered == other.metered;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = batteryPercent;
+        result = 31 * result + (charging ? 1 : 0);
+        result = 31 * result + (powerSave ? 1 : 0);
+        result = 31 * result + thermalStatus;
+        result = 31 * result + (screenOn ? 1 : 0);
+        result = 31 * result + network.hashCode();
+        result = 31 * result + (metered ? 1 : 0);
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "battery=" + batteryPercent + (charging ? "+" : "") + " powerSave=" + powerSave
+                + " thermal=" + thermalStatus + " screenOn=" + screenOn + " network=" + network
+                + (metered ? " (metered)" : "");
+    }
+
+    @NonNull
+    ArrayList<Object> toList() {
+        ArrayList<Object> list = new ArrayList<>(7);
+        list.add(batteryPercent);
+        list.add(charging);
+        list.add(powerSave);
+        list.add(thermalStatus);
+        list.add(screenOn);
+        list.add(network.name());
+        list.add(metered);
+        return list;
+    }
+
+    @NonNull
+    static DeviceState fromList(@NonNull ArrayList<Object> list) {
+        return new DeviceState(((Number) list.get(0)).intValue(), (Boolean) list.get(1), (Boolean) list.get(2),
+                ((Number) list.get(3)).intValue(), (Boolean) list.get(4), Network.valueOf((String) list.get(5)),
+                (Boolean) list.get(6));
+    }
+}
@@ -1,43 +1,361 @@
 package com.egytelecoms.hatif;
 
 import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.EventChannel;
 
+/**
+ * Event channel whose events are queued without locking and delivered on the
+ * main thread at most once per frame.
+ *
+ * Producers on any thread append to a single FIFO queue, so events from one
+ * thread (every call and registration event comes from the core thread) keep
+ * their order. The queue is drained on the next vsync, or after
+ * {@link #MAX_DELAY_MS} when no frame is coming (app in background), and all
+ * pending events are sent to the sink as one list. Errors split the list so
+ * they still arrive in order.
+ *
+ * Events emitted while nobody listens are kept in a replay buffer bounded by
+ * size and age. When Dart subscribes, the buffered history is delivered
+ * first, followed by the current state from the channel's
+ * {@link SnapshotSource}, leaving out entries the history already ends with.
+ */
 public class EventChannelHelper {
     private final String TAG = EventChannelHelper.class.getSimpleName();
-    public Handler handler;
-    private EventChannel.EventSink eventSink;
+    static final int MAX_QUEUE_DEPTH = 512;
+    static final long MAX_DELAY_MS = 32;
+    static final int DEFAULT_REPLAY_SIZE = 32;
+    static final long DEFAULT_REPLAY_AGE_MS = 60_000;
+
+    /** Current state of a channel, as events, read on the core thread. */
+    public interface SnapshotSource {
+        @NonNull
+        List<Object> snapshot();
+    }
+
+    // One helper per channel name and attached engine
+    private static final CopyOnWriteArrayList<EventChannelHelper> channels = new CopyOnWriteArrayList<>();
+
+    private final String id;
+    private final EventChannel eventChannel;
+    private final Handler handler = PluginExecutors.mainHandler();
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile int maxDepth;
+    private volatile long batches;
+    private volatile EventChannel.EventSink eventSink;
+
+    // Guarded by replay
+    private final ArrayDeque<Replayed> replay = new ArrayDeque<>();
+    private volatile boolean replaying;
+    private volatile int replaySize;
+    private volatile long replayAgeMs;
+    @Nullable
+    private final SnapshotSource snapshotSource;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> drain();
+    private final Runnable drainRunnable = this::drain;
 
     public EventChannelHelper(BinaryMessenger messenger, String id) {
-        handler = new Handler(Looper.getMainLooper());
-        EventChannel eventChannel = new EventChannel(messenger, id);
+        this(messenger, id, DEFAULT_REPLAY_SIZE, DEFAULT_REPLAY_AGE_MS, null);
+    }
+
+    public EventChannelHelper(BinaryMessenger messenger, String id, int replaySize, long replayAgeMs,
+            @Nullable SnapshotSource snapshotSource) {
+        this.id = id;
+        this.replaySize = replaySize;
+        this.replayAgeMs = replayAgeMs;
+        this.snapshotSource = snapshotSource;
+        eventChannel = new EventChannel(messenger, id, PluginMessages.PluginCodec.METHOD_CODEC);
         eventChannel.setStreamHandler(new EventChannel.StreamHandler() {
             @Override
             public void onListen(Object arguments, EventChannel.EventSink events) {
-                synchronized (this) {
-                    EventChannelHelper.this.eventSink = events;
+                synchronized (replay) {
+                    replaying = true;
+                    eventSink = events;
                 }
+                PluginExecutors.runOnCore(EventChannelHelper.this::replayHistory);
             }
 
             @Override
             public void onCancel(Object arguments) {
-                synchronized ((this)) {
+                synchronized (replay) {
                     eventSink = null;
                 }
+                clear();
             }
         });
+        channels.add(this);
+    }
+
+    /** Sends {@code event} on channel {@code id} of every attached engine. */
+    static void broadcast(@NonNull String id, @NonNull Object event) {
+        for (EventChannelHelper helper : channels) {
+            if (helper.id.equals(id)) {
+                helper.success(event);
+            }
+        }
+    }
+
+    /** Detaches from the channel when the engine goes away. */
+    public void dispose() {
+        channels.remove(this);
+        eventChannel.setStreamHandler(null);
+        synchronized (replay) {
+            eventSink = null;
+            replay.clear();
+        }
+        clear();
+    }
+
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+        enqueue(new ErrorEvent(errorCode, errorMessage, errorDetails));
+    }
+
+    public void success(Object event) {
+        enqueue(event);
+    }
+
+    /** Changes the replay limits; a size of 0 turns replay off. */
+    public void setReplayLimits(int size, long maxAgeMs) {
+        synchronized (replay) {
+            replaySize = Math.max(0, size);
+            replayAgeMs = Math.max(0, maxAgeMs);
+            pruneReplay();
+        }
+    }
+
+    /** Discards events not yet delivered. */
+    public void clear() {
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+        }
+    }
+
+    private void enqueue(Object event) {
+        if (eventSink == null || replaying) {
+            synchronized (replay) {
+                if (eventSink == null || replaying) {
+                    replay.addLast(new Replayed(event, SystemClock.elapsedRealtime()));
+                    pruneReplay();
+                    return;
+                }
+            }
+        }
+        offer(event);
+    }
+
+    private void offer(Object event) {
+        int current = depth.incrementAndGet();
+        if (current > MAX_QUEUE_DEPTH) {
+            depth.decrementAndGet();
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 100 == 0) {
+                PluginLog.w(TAG, id + ": queue full, " + count + " events dropped");
+            }
+            return;
+        }
+        if (current > maxDepth) {
+            maxDepth = current;
+        }
+        queue.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            handler.post(this::scheduleDrain);
+        }
     }
 
-    public synchronized void error(String errorCode, String errorMessage, Object errorDetails) {
-        if (eventSink == null) return;
-        handler.post(() -> eventSink.error(errorCode, errorMessage, errorDetails));
+    // Core thread. Holds the replay lock while queueing so events from other
+    // threads cannot overtake the history.
+    private void replayHistory() {
+        synchronized (replay) {
+            if (eventSink == null) {
+                replaying = false;
+                return;
+            }
+            pruneReplay();
+            Map<Object, Object> lastStates = new HashMap<>();
+            for (Replayed replayed : replay) {
+                offer(replayed.event);
+                Object key = PluginEvents.keyOf(replayed.event);
+                if (key != null) {
+                    lastStates.put(key, PluginEvents.stateOf(replayed.event));
+                }
+            }
+            int history = replay.size();
+            replay.clear();
+            List<Object> snapshot = snapshotSource != null ? snapshotSource.snapshot() : Collections.emptyList();
+            for (Object event : snapshot) {
+                Object key = PluginEvents.keyOf(event);
+                if (key == null || !lastStates.containsKey(key)
+                        || !lastStates.get(key).equals(PluginEvents.stateOf(event))) {
+                    offer(event);
+                }
+            }
+            replaying = false;
+            if (history > 0) {
+                PluginLog.d(TAG, id + ": replayed " + history + " events");
+            }
+        }
+    }
+
+    // Guarded by replay
+    private void pruneReplay() {
+        long oldest = SystemClock.elapsedRealtime() - replayAgeMs;
+        while (!replay.isEmpty() && (replay.size() > replaySize || replay.peekFirst().timestampMs < oldest)) {
+            replay.pollFirst();
+        }
+    }
+
+    // Main thread
+    private void scheduleDrain() {
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+        handler.postDelayed(drainRunnable, MAX_DELAY_MS);
+    }
+
+    // Main thread
+    private void drain() {
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        handler.removeCallbacks(drainRunnable);
+        // Cleared before polling so an event added during the drain schedules
+        // the next one instead of being left behind.
+        drainScheduled.set(false);
+
+        EventChannel.EventSink sink = eventSink;
+        List<Object> batch = new ArrayList<>();
+        Object event;
+        while ((event = queue.poll()) != null) {
+            depth.decrementAndGet();
+            if (sink == null) {
+                // Nobody is listening any more
+                dropped.incrementAndGet();
+                continue;
+            }
+            if (event instanceof ErrorEvent) {
+                flush(sink, batch);
+                batch = new ArrayList<>();
+                ErrorEvent error = (ErrorEvent) event;
+                sink.error(error.code, error.message, error.details);
+                delivered.incrementAndGet();
+            } else {
+                batch.add(event);
+            }
+        }
+        if (sink != null) {
+            flush(sink, batch);
+        }
     }
 
-    public synchronized void success(String event) {
-        if (eventSink == null) return;
-        handler.post(() -> eventSink.success(event));
+    private void flush(EventChannel.EventSink sink, List<Object> batch) {
+        if (batch.isEmpty()) return;
+        sink.success(batch);
+        delivered.addAndGet(batch.size());
+        batches++;
+    }
+
+    @NonNull
+    Map<String, Object> snapshotStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("depth", depth.get());
+        stats.put("maxDepth", maxDepth);
+        stats.put("delivered", delivered.get());
+        stats.put("batches", batches);
+        stats.put("dropped", dropped.get());
+        synchronized (replay) {
+            stats.put("replayBuffered", replay.size());
+        }
+        return stats;
+    }
+
+    /**
+     * Queue statistics keyed by channel name, summed over the engines the
+     * channel is attached to; maxDepth is the largest of them.
+     */
+    @NonNull
+    static Map<String, Object> snapshotAllStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (EventChannelHelper helper : channels) {
+            Map<String, Object> channelStats = helper.snapshotStats();
+            channelStats.put("engines", 1);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> total = (Map<String, Object>) stats.get(helper.id);
+            if (total != null) {
+                for (Map.Entry<String, Object> entry : channelStats.entrySet()) {
+                    long value = ((Number) entry.getValue()).longValue();
+                    long current = ((Number) total.get(entry.getKey())).longValue();
+                    total.put(entry.getKey(), "maxDepth".equals(entry.getKey())
+                            ? Math.max(current, value) : current + value);
+                }
+            } else {
+                stats.put(helper.id, channelStats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Applies {"channel", "size", "maxAgeMs"} from "set_event_replay" to the
+     * named channel of every attached engine.
+     */
+    static boolean configureReplay(@NonNull Map<?, ?> arguments) throws PluginException {
+        Object channel = arguments.get("channel");
+        Object size = arguments.get("size");
+        Object maxAgeMs = arguments.get("maxAgeMs");
+        boolean found = false;
+        for (EventChannelHelper helper : channels) {
+            if (helper.id.equals(channel)) {
+                helper.setReplayLimits(
+                        size instanceof Number ? ((Number) size).intValue() : helper.replaySize,
+                        maxAgeMs instanceof Number ? ((Number) maxAgeMs).longValue() : helper.replayAgeMs);
+                found = true;
+            }
+        }
+        if (!found) {
+            throw new PluginException("Invalid Arguments", "Unknown event channel", String.valueOf(channel));
+        }
+        return true;
+    }
+
+    private static final class Replayed {
+        final Object event;
+        final long timestampMs;
+
+        Replayed(Object event, long timestampMs) {
+            this.event = event;
+            this.timestampMs = timestampMs;
+        }
+    }
+
+    private static final class ErrorEvent {
+        final String code;
+        final String message;
+        @Nullable
+        final Object details;
+
+        ErrorEvent(String code, String message, @Nullable Object details) {
+            this.code = code;
+            this.message = message;
+            this.details = details;
+        }
     }
 }
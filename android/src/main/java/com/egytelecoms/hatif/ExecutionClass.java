@@ -0,0 +1,13 @@
+package com.egytelecoms.hatif;
+
+/**
+ * Where a method channel command runs.
+ */
+public enum ExecutionClass {
+    /** Platform main thread. Only for cheap calls or calls that need the activity. */
+    UI,
+    /** The Linphone core thread, serialized with {@code core.iterate()}. */
+    CORE,
+    /** Shared background pool for blocking work that does not touch the core. */
+    IO
+}
@@ -0,0 +1,82 @@
+package com.egytelecoms.hatif;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import io.flutter.FlutterInjector;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.embedding.engine.loader.FlutterLoader;
+import io.flutter.view.FlutterCallbackInformation;
+
+/**
+ * Pre-warmed Flutter engine owned by {@link LinphoneBackgroundService}, so
+ * Dart code can react to call and registration events while no activity is
+ * attached.
+ *
+ * Dart registers a top-level entry point with "set_headless_callback"; its
+ * handle is persisted and the engine is started from it whenever the service
+ * starts. The plugin attaches to the engine like to any other, and the service
+ * broadcasts its events to every attached engine. The engine is kept in
+ * {@link FlutterEngineCache} under {@link #ENGINE_ID}.
+ */
+final class HeadlessEngine {
+    private static final String TAG = "HeadlessEngine";
+    static final String ENGINE_ID = "linphonesdk_headless";
+    private static final String PREFS_NAME = "LinphonePrefs";
+    private static final String KEY_CALLBACK_HANDLE = "headless_callback_handle";
+
+    private HeadlessEngine() {
+    }
+
+    static boolean setCallbackHandle(@NonNull Context context, long handle) {
+        prefs(context).edit().putLong(KEY_CALLBACK_HANDLE, handle).apply();
+        if (LinphoneBackgroundService.getInstance() != null) {
+            PluginExecutors.runOnMain(() -> start(context));
+        }
+        return true;
+    }
+
+    @MainThread
+    static void start(@NonNull Context context) {
+        if (FlutterEngineCache.getInstance().contains(ENGINE_ID)) {
+            return;
+        }
+        long handle = prefs(context).getLong(KEY_CALLBACK_HANDLE, 0);
+        if (handle == 0) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        FlutterLoader loader = FlutterInjector.instance().flutterLoader();
+        loader.startInitialization(appContext);
+        loader.ensureInitializationComplete(appContext, null);
+        FlutterCallbackInformation callback = FlutterCallbackInformation.lookupCallbackInformation(handle);
+        if (callback == null) {
+            PluginLog.w(TAG, "No Dart callback for handle " + handle);
+            return;
+        }
+        FlutterEngine engine = new FlutterEngine(appContext);
+        engine.getDartExecutor().executeDartCallback(
+                new DartExecutor.DartCallback(appContext.getAssets(), loader.findAppBundlePath(), callback));
+        FlutterEngineCache.getInstance().put(ENGINE_ID, engine);
+        PluginLog.d(TAG, "Started " + callback.callbackName);
+    }
+
+    @MainThread
+    static void stop() {
+        FlutterEngine engine = FlutterEngineCache.getInstance().get(ENGINE_ID);
+        if (engine != null) {
+            FlutterEngineCache.getInstance().remove(ENGINE_ID);
+            engine.destroy();
+            PluginLog.d(TAG, "Stopped");
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -20,6 +20,7 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.linphoneflutterplugin.IncomingCallAnimationHelper;
+import com.linphoneflutterplugin.IncomingCallAnimator;
 
 import org.linphone.core.Call;
 import org.linphone.core.CallParams;
@@ -43,6 +44,8 @@ public class IncomingCallActivity extends Activity {
     private float initialX;
     private float swipeThreshold = 200f; // pixels to trigger action
 
+    private IncomingCallAnimator animator;
+
     private Ringtone ringtone;
     private PowerManager.WakeLock wakeLock;
 
@@ -58,11 +61,21 @@ public class IncomingCallActivity extends Activity {
     private BroadcastReceiver closeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, android.content.Intent intent) {
-            android.util.Log.d(TAG, "Received broadcast to close IncomingCallActivity");
+            PluginLog.d(TAG, "Received broadcast to close IncomingCallActivity");
             finish();
         }
     };
 
+    // Animations only run while the screen is on
+    private BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, android.content.Intent intent) {
+            if (animator != null) {
+                animator.setScreenOn(android.content.Intent.ACTION_SCREEN_ON.equals(intent.getAction()));
+            }
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -127,10 +140,19 @@ public class IncomingCallActivity extends Activity {
         } else {
             registerReceiver(closeReceiver, filter);
         }
-        android.util.Log.d(TAG, "Registered broadcast receiver for closing activity");
+        PluginLog.d(TAG, "Registered broadcast receiver for closing activity");
 
-        // Register listener
-        Core core = LinphoneBackgroundService.getCore();
+        IntentFilter screenFilter = new IntentFilter(android.content.Intent.ACTION_SCREEN_OFF);
+        screenFilter.addAction(android.content.Intent.ACTION_SCREEN_ON);
+        if (Build.VERSION.SDK_INT >= 33) { // Android 13+
+            registerReceiver(screenReceiver, screenFilter, 4); // RECEIVER_NOT_EXPORTED = 4
+        } else {
+            registerReceiver(screenReceiver, screenFilter);
+        }
+        animator.setScreenOn(powerManager.isInteractive());
+
+        // Register listener; the reference keeps the core up while shown
+        Core core = CoreOwner.retain(TAG);
         if (core != null) {
             core.addListener(coreListener);
         }
@@ -167,8 +189,8 @@ public class IncomingCallActivity extends Activity {
         }
         callerInitial.setText(initial);
 
-        // Start all animations
-        IncomingCallAnimationHelper.startAllAnimations(
+        // One driver for every looping animation; started in onStart
+        animator = new IncomingCallAnimator(
                 pulseRingOuter,
                 pulseRingInner,
                 avatarContainer,
@@ -192,6 +214,7 @@ public class IncomingCallActivity extends Activity {
                 switch (event.getAction()) {
                     case MotionEvent.ACTION_DOWN:
                         initialX = event.getRawX();
+                        animator.setGestureActive(true);
                         return true;
 
                     case MotionEvent.ACTION_MOVE:
@@ -243,7 +266,8 @@ public class IncomingCallActivity extends Activity {
                                     });
                         } else {
                             // Return to center
-                            IncomingCallAnimationHelper.animateSwipeReturn(swipeButton);
+                            IncomingCallAnimationHelper.animateSwipeReturn(swipeButton,
+                                    () -> animator.setGestureActive(false));
                             IncomingCallAnimationHelper.animateHintGlow(acceptHint, false);
                             IncomingCallAnimationHelper.animateHintGlow(declineHint, false);
                         }
@@ -269,7 +293,7 @@ public class IncomingCallActivity extends Activity {
                 ringtone.play();
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            PluginLog.e(TAG, "Failed to play ringtone", e);
         }
     }
 
@@ -322,22 +346,41 @@ public class IncomingCallActivity extends Activity {
         finish();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        animator.start();
+    }
+
+    @Override
+    protected void onStop() {
+        animator.stop();
+        super.onStop();
+    }
+
     @Override
     protected void onDestroy() {
         stopRingtone();
+        animator.destroy();
 
         // Unregister broadcast receiver
         try {
             unregisterReceiver(closeReceiver);
-            android.util.Log.d(TAG, "Unregistered broadcast receiver");
+            PluginLog.d(TAG, "Unregistered broadcast receiver");
         } catch (Exception e) {
-            android.util.Log.e(TAG, "Error unregistering broadcast receiver", e);
+            PluginLog.e(TAG, "Error unregistering broadcast receiver", e);
+        }
+        try {
+            unregisterReceiver(screenReceiver);
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error unregistering screen receiver", e);
         }
 
-        Core core = LinphoneBackgroundService.getCore();
+        Core core = CoreOwner.get();
         if (core != null) {
             core.removeListener(coreListener);
         }
+        CoreOwner.release(TAG);
 
         if (wakeLock != null && wakeLock.isHeld()) {
             wakeLock.release();
@@ -0,0 +1,112 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * How many incoming calls may ring at once and what happens to the ones
+ * that arrive once that many do: answered with 486 Busy Here, queued
+ * silently until a ringing call ends or is answered, or announced as call
+ * waiting without taking the screen or ringtone.
+ *
+ * Set with "set_incoming_call_policy" and applied by
+ * {@link ServiceController}, which also counts every outcome here.
+ */
+final class IncomingCallPolicy {
+    static final int DEFAULT_MAX_RINGING = 1;
+    static final int DEFAULT_MAX_QUEUED = 3;
+
+    enum Overflow {
+        BUSY, QUEUE, CALL_WAITING
+    }
+
+    enum Outcome {
+        RUNG, BUSY, QUEUED, WAITING, DEQUEUED
+    }
+
+    static final IncomingCallPolicy DEFAULT = new IncomingCallPolicy(DEFAULT_MAX_RINGING, Overflow.BUSY,
+            DEFAULT_MAX_QUEUED);
+
+    private static volatile IncomingCallPolicy current = DEFAULT;
+
+    // Guarded by the class
+    private static final long[] outcomes = new long[Outcome.values().length];
+    private static int maxQueueDepth;
+
+    /** Calls ringing at once, the one on screen and those announced as waiting. */
+    final int maxRinging;
+    final Overflow overflow;
+    /** Calls queued or waiting beyond {@link #maxRinging}; more get 486 Busy Here. */
+    final int maxQueued;
+
+    IncomingCallPolicy(int maxRinging, @NonNull Overflow overflow, int maxQueued) {
+        this.maxRinging = maxRinging;
+        this.overflow = overflow;
+        this.maxQueued = maxQueued;
+    }
+
+    @NonNull
+    static IncomingCallPolicy current() {
+        return current;
+    }
+
+    static void set(@NonNull IncomingCallPolicy policy) {
+        current = policy;
+    }
+
+    /** Missing values keep those of the current policy. */
+    @NonNull
+    static IncomingCallPolicy fromArguments(@NonNull Map<?, ?> arguments) throws PluginException {
+        IncomingCallPolicy policy = current;
+        Object maxRinging = arguments.get("maxRinging");
+        Object overflow = arguments.get("overflow");
+        Object maxQueued = arguments.get("maxQueued");
+        Overflow parsed = policy.overflow;
+        if (overflow != null) {
+            try {
+                parsed = Overflow.valueOf(String.valueOf(overflow).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new PluginException("Invalid Arguments", "Unknown overflow policy", String.valueOf(overflow));
+            }
+        }
+        IncomingCallPolicy result = new IncomingCallPolicy(
+                maxRinging instanceof Number ? ((Number) maxRinging).intValue() : policy.maxRinging, parsed,
+                maxQueued instanceof Number ? ((Number) maxQueued).intValue() : policy.maxQueued);
+        if (result.maxRinging < 1 || result.maxQueued < 0) {
+            throw new PluginException("Invalid Arguments", "At least one call must be able to ring",
+                    String.valueOf(arguments));
+        }
+        return result;
+    }
+
+    static synchronized void count(@NonNull Outcome outcome, int queueDepth) {
+        outcomes[outcome.ordinal()]++;
+        maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+    }
+
+    /**
+     * @return the policy, calls per outcome and the deepest the queue or
+     *         waiting list got, ready to be sent over the channel
+     */
+    @NonNull
+    static synchronized Map<String, Object> snapshotStats(boolean reset) {
+        IncomingCallPolicy policy = current;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxRinging", policy.maxRinging);
+        stats.put("overflow", policy.overflow.name());
+        stats.put("maxQueued", policy.maxQueued);
+        for (Outcome outcome : Outcome.values()) {
+            stats.put(outcome.name().toLowerCase(Locale.ROOT), outcomes[outcome.ordinal()]);
+        }
+        stats.put("maxQueueDepth", maxQueueDepth);
+        if (reset) {
+            Arrays.fill(outcomes, 0);
+            maxQueueDepth = 0;
+        }
+        return stats;
+    }
+}
@@ -4,7 +4,6 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
-import android.util.Log;
 
 /**
  * BroadcastReceiver to launch IncomingCallActivity from terminated state.
@@ -19,7 +18,7 @@ public class IncomingCallReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
         if (ACTION_INCOMING_CALL.equals(intent.getAction())) {
-            Log.d(TAG, "📞 Incoming call broadcast received - launching IncomingCallActivity");
+            PluginLog.d(TAG, "📞 Incoming call broadcast received - launching IncomingCallActivity");
 
             String callerName = intent.getStringExtra("caller_name");
             String callerNumber = intent.getStringExtra("caller_number");
@@ -34,9 +33,9 @@ public class IncomingCallReceiver extends BroadcastReceiver {
 
             try {
                 context.startActivity(activityIntent);
-                Log.d(TAG, "✓ IncomingCallActivity launched from broadcast");
+                PluginLog.d(TAG, "✓ IncomingCallActivity launched from broadcast");
             } catch (Exception e) {
-                Log.e(TAG, "❌ Failed to launch IncomingCallActivity", e);
+                PluginLog.e(TAG, "❌ Failed to launch IncomingCallActivity", e);
             }
         }
     }
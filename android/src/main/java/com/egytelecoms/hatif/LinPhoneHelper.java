@@ -1,29 +1,23 @@
 package com.egytelecoms.hatif;
 
-import android.app.Activity;
 import android.content.Context;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.Gson;
+import com.egytelecoms.hatif.PluginMessages.CallLogPage;
+import com.egytelecoms.hatif.PluginMessages.CallLogQuery;
 
 import org.linphone.core.Account;
 import org.linphone.core.AccountListener;
-import org.linphone.core.AccountParams;
 import org.linphone.core.Address;
 import org.linphone.core.AudioDevice;
-import org.linphone.core.AuthInfo;
 import org.linphone.core.Call;
 import org.linphone.core.CallLog;
 import org.linphone.core.CallParams;
 import org.linphone.core.Core;
-import org.linphone.core.CoreListener;
-import org.linphone.core.CoreListenerStub;
 import org.linphone.core.Factory;
 import org.linphone.core.MediaEncryption;
 import org.linphone.core.RegistrationState;
-import org.linphone.core.TransportType;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,57 +27,53 @@ import io.flutter.plugin.common.MethodChannel;
 
 public class LinPhoneHelper {
     private final String TAG = "linphonesdk-----------";
-    private static Core core = null;
+    private static final String CORE_HOLDER = "plugin";
+    // Borrowed from CoreOwner between login and remove*Listener
+    private Core core = null;
+    private Account account = null;
     private Context context;
     private String domain, userName, password;
     private EventChannelHelper loginListener;
     private EventChannelHelper callEventListener;
 
-    public LinPhoneHelper(Activity context, EventChannelHelper loginListener, EventChannelHelper callEventListener) {
+    public LinPhoneHelper(Context context, EventChannelHelper loginListener, EventChannelHelper callEventListener) {
         this.context = context;
         this.loginListener = loginListener;
         this.callEventListener = callEventListener;
     }
 
-    public void login(String userName, String domain, String password) {
+    public Map<String, Object> login(String userName, String domain, String password) {
         this.domain = domain;
         this.userName = userName;
         this.password = password;
-        Factory factory = Factory.instance();
-        factory.setDebugMode(true, "LinPhoneSDKTest");
-        core = factory.createCore(null, null, context);
-
-        TransportType transportType = TransportType.Udp;
-        AuthInfo authInfo = Factory.instance().createAuthInfo(userName, null, password, null, null, domain, null);
-        AccountParams params = core.createAccountParams();
-
-        String sipAddress = "sip:" + userName + "@" + domain;
-        Address identity = Factory.instance().createAddress(sipAddress);
-        params.setIdentityAddress(identity);
+        if (core == null) {
+            // Registration and call events reach Dart through CoreOwner
+            core = CoreOwner.acquire(context, CORE_HOLDER);
+        }
 
-        Address address = Factory.instance().createAddress("sip:" + domain);
-        address.setTransport(transportType);
-        params.setServerAddress(address);
-        params.setRegisterEnabled(true);
+        AccountSetup.Result result = AccountSetup.apply(core, CORE_HOLDER, userName, password, domain, null);
+        if (account != null && account != result.account) {
+            // Logging in as someone else replaces the account of the previous login
+            account.removeListener(accountListener);
+            AccountSetup.release(core, CORE_HOLDER, account);
+        }
+        if (account != result.account) {
+            result.account.addListener(accountListener);
+        }
+        account = result.account;
+        return result.toMap();
+    }
 
-        Account account = core.createAccount(params);
-        core.addAuthInfo(authInfo);
-        core.addAccount(account);
-        core.setDefaultAccount(account);
-        core.addListener(coreListener);
-        account.addListener(new AccountListener() {
-            @Override
-            public void onRegistrationStateChanged(@NonNull Account account, RegistrationState registrationState,
-                    @NonNull String s) {
-                if (registrationState == RegistrationState.Ok) {
-                    loginListener.success("Login success (2)");
-                } else if (registrationState == RegistrationState.Failed) {
-                    loginListener.error("400", "Login failed", "Failed to login");
-                }
+    private final AccountListener accountListener = new AccountListener() {
+        @Override
+        public void onRegistrationStateChanged(@NonNull Account account, RegistrationState registrationState,
+                @NonNull String s) {
+            // Ok and the other states reach Dart through CoreOwner
+            if (registrationState == RegistrationState.Failed) {
+                loginListener.error("400", "Login failed", "Failed to login");
             }
-        });
-        core.start();
-    }
+        }
+    };
 
     public void call(String number) {
         if (core == null)
@@ -122,24 +112,23 @@ public class LinPhoneHelper {
         return true;
     }
 
-    public String callLogs() {
+    public List<CallHistory> callLogs() {
         if (core == null)
             return null;
         CallLog[] logs = core.getCallLogs();
-        List<CallHistory> callHistoryList = new ArrayList<>();
-        callHistoryList.clear();
-
+        List<CallHistory> callHistoryList = new ArrayList<>(logs.length);
         for (CallLog log : logs) {
-            CallHistory history = new CallHistory();
-            history.setNumber(log.getToAddress().getUsername());
-            history.setStatus(log.getStatus().name());
-            history.setDate(log.getStartDate());
-            history.setDuration(log.getDuration());
-            callHistoryList.add(history);
+            callHistoryList.add(CallHistoryIndex.toHistory(log));
         }
-        ListCallHistory list = new ListCallHistory();
-        list.setCallHistoryList(callHistoryList);
-        return new Gson().toJson(list);
+        return callHistoryList;
+    }
+
+    public CallHistoryColumns callLogColumns() {
+        return CallHistoryColumns.fromCallLogs(core != null ? core.getCallLogs() : new CallLog[0]);
+    }
+
+    public CallLogPage callLogs(CallLogQuery query) {
+        return CallHistoryIndex.page(query);
     }
 
     public void hangUp() {
@@ -154,20 +143,16 @@ public class LinPhoneHelper {
         if (call == null)
             return;
         call.terminate();
-        callEventListener.success("Released");
     }
 
     public boolean toggleMute() {
         if (core == null)
             return false;
         if (core.getCurrentCall() != null) {
-            if (core.getCurrentCall().getMicrophoneMuted()) {
-                core.getCurrentCall().setMicrophoneMuted(false);
-                return false;
-            } else {
-                core.getCurrentCall().setMicrophoneMuted(true);
-                return true;
-            }
+            boolean muted = !core.getCurrentCall().getMicrophoneMuted();
+            core.getCurrentCall().setMicrophoneMuted(muted);
+            PluginStateTracker.requestUpdate();
+            return muted;
         }
         return false;
     }
@@ -176,7 +161,7 @@ public class LinPhoneHelper {
         // Get the currently used audio device
         Call currentCall = core.getCurrentCall();
         if (currentCall == null) {
-            Log.e(TAG, "toggleSpeaker: No active call");
+            PluginLog.e(TAG, "toggleSpeaker: No active call");
             return;
         }
 
@@ -186,18 +171,20 @@ public class LinPhoneHelper {
         // We can get a list of all available audio devices using
         // Note that on tablets for example, there may be no Earpiece device
 
-        Log.e(TAG, "--------------toggleSpeaker: " + speakerEnabled);
-        Log.e(TAG, "--------------toggleSpeaker: " + currentAudioDevice.getType());
+        PluginLog.d(TAG, "--------------toggleSpeaker: " + speakerEnabled);
+        PluginLog.d(TAG, "--------------toggleSpeaker: " + currentAudioDevice.getType());
 
         for (int i = 0; i < core.getAudioDevices().length; i++) {
             AudioDevice audioDevice = core.getAudioDevices()[i];
             if (speakerEnabled && audioDevice.getType() == AudioDevice.Type.Earpiece) {
                 currentCall.setOutputAudioDevice(audioDevice);
-                Log.d(TAG, "Switched to Earpiece");
+                PluginStateTracker.requestUpdate();
+                PluginLog.d(TAG, "Switched to Earpiece");
                 return;
             } else if (!speakerEnabled && audioDevice.getType() == AudioDevice.Type.Speaker) {
                 currentCall.setOutputAudioDevice(audioDevice);
-                Log.d(TAG, "Switched to Speaker");
+                PluginStateTracker.requestUpdate();
+                PluginLog.d(TAG, "Switched to Speaker");
                 return;
             }
         }
@@ -215,7 +202,6 @@ public class LinPhoneHelper {
         if (params == null)
             return;
         call.acceptWithParams(params);
-        callEventListener.success("CallAnswered");
     }
 
     public void rejectCall() {
@@ -227,90 +213,30 @@ public class LinPhoneHelper {
         if (call == null)
             return;
         call.terminate();
-        callEventListener.success("CallRejected");
     }
 
     public void removeLoginListener() {
         if (core == null)
             return;
-        core.removeListener(coreListener);
-        core = null;
-        loginListener.handler = null;
+        releaseCore();
+        loginListener.clear();
     }
 
     public void removeCallListener() {
         if (core == null)
             return;
-        core.removeListener(coreListener);
-        core = null;
-        callEventListener.handler = null;
+        releaseCore();
+        callEventListener.clear();
     }
 
-    CoreListener coreListener = new CoreListenerStub() {
-        @Override
-        public void onAccountRegistrationStateChanged(@NonNull Core core, @NonNull Account account,
-                RegistrationState state, @NonNull String message) {
-            loginListener.success(state.name());
+    private void releaseCore() {
+        if (account != null) {
+            account.removeListener(accountListener);
+            // Unregisters it unless the service uses it too
+            AccountSetup.release(core, CORE_HOLDER, account);
         }
-
-        @Override
-        public void onCallStateChanged(@NonNull Core core, @NonNull Call call, Call.State state,
-                @NonNull String message) {
-            // super.onCallStateChanged(core, call, state, message);
-
-            switch (state) {
-                case IncomingReceived:
-                    Log.e(TAG, "onCallStateChanged: Incoming Received");
-                    callEventListener.success(state.name());
-                    break;
-                case OutgoingInit:
-                    Log.e(TAG, "onCallStateChanged: Outgoing init");
-                    callEventListener.success(state.name());
-                    break;
-                case OutgoingProgress:
-                    Log.e(TAG, "onCallStateChanged: Outgoing Progress");
-                    callEventListener.success(state.name());
-                    break;
-                case OutgoingRinging:
-                    Log.e(TAG, "onCallStateChanged: Ringing");
-                    callEventListener.success(state.name());
-                    break;
-                case Connected:
-                    Log.e(TAG, "onCallStateChanged: Connected");
-                    callEventListener.success(state.name());
-                    break;
-                case StreamsRunning:
-                    Log.e(TAG, "onCallStateChanged: StreamsRunning");
-                    callEventListener.success(state.name());
-                    break;
-                case Paused:
-                    Log.e(TAG, "onCallStateChanged: Paused");
-                    callEventListener.success(state.name());
-                    break;
-                case PausedByRemote:
-                    Log.e(TAG, "onCallStateChanged: PausedByRemote");
-                    callEventListener.success(state.name());
-                    break;
-                case Updating:
-                    Log.e(TAG, "onCallStateChanged: Updating");
-                    callEventListener.success(state.name());
-                    break;
-                case UpdatedByRemote:
-                    Log.e(TAG, "onCallStateChanged: UpdatedByRemote");
-                    callEventListener.success(state.name());
-                    break;
-                case Released:
-                    Log.e(TAG, "onCallStateChanged: Released");
-                    callEventListener.success(state.name());
-                    break;
-                case EarlyUpdatedByRemote:
-                    Log.e(TAG, "onCallStateChanged: EarlyUpdatedByRemote");
-                    callEventListener.success(state.name());
-                case Error:
-                    Log.e(TAG, "onCallStateChanged: Error");
-                    callEventListener.success(state.name());
-                    break;
-            }
-        }
-    };
+        core = null;
+        account = null;
+        CoreOwner.release(CORE_HOLDER);
+    }
 }
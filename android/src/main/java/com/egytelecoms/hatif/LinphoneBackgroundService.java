@@ -16,8 +16,6 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
-import android.os.Looper;
-import android.util.Log;
 import android.widget.RemoteViews;
 
 import androidx.annotation.NonNull;
@@ -27,17 +25,12 @@ import androidx.core.content.ContextCompat;
 import org.linphone.core.Account;
 import org.linphone.core.AccountParams;
 import org.linphone.core.Address;
-import org.linphone.core.AuthInfo;
 import org.linphone.core.Call;
 import org.linphone.core.Core;
 import org.linphone.core.CoreListener;
 import org.linphone.core.CoreListenerStub;
 import org.linphone.core.Factory;
 import org.linphone.core.RegistrationState;
-import org.linphone.core.TransportType;
-
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class LinphoneBackgroundService extends Service {
     private static final String TAG = "LinphoneBackgroundSvc";
@@ -47,9 +40,15 @@ public class LinphoneBackgroundService extends Service {
     private static final int INCOMING_CALL_NOTIFICATION_ID = 2001;
     private static final String CALL_CHANNEL_ID = "OngoingCallChannel";
     private static final int ONGOING_CALL_NOTIFICATION_ID = 2002;
+    // Tagged with the call id, one per waiting call
+    private static final int WAITING_CALL_NOTIFICATION_ID = 2003;
+    private static final String EXTRA_CALL_ID = "call_id";
 
+    private static final String CORE_HOLDER = "service";
+    // Borrowed from CoreOwner while the service runs
     private static Core core = null;
-    private Timer timer;
+    // Set up by registerAccount, core thread only; the plugin may have others on the core
+    private Account account;
     private static LinphoneBackgroundService instance = null;
     private static Call currentIncomingCall = null;
     private android.media.Ringtone ringtone;
@@ -58,14 +57,9 @@ public class LinphoneBackgroundService extends Service {
     private boolean isCallMuted = false;
     private static boolean isCallActivityVisible = false;
 
-    // Network monitoring and reconnection
-    private Handler reconnectHandler;
-    private Runnable reconnectRunnable;
-    private boolean isNetworkAvailable = true;
-    private int reconnectAttempts = 0;
-    private static final int MAX_RECONNECT_ATTEMPTS = Integer.MAX_VALUE; // Infinite retries
-    private static final long RECONNECT_DELAY_MS = 5000; // 5 seconds
-    private static final long RECONNECT_MAX_DELAY_MS = 60000; // Max 60 seconds
+    // Registration, reconnection and call screen policy
+    private ServiceController controller;
+    private boolean deviceConditionsStarted = false;
 
     // Shared preferences keys
     private static final String PREFS_NAME = "LinphonePrefs";
@@ -75,20 +69,20 @@ public class LinphoneBackgroundService extends Service {
     private static final String KEY_IS_REGISTERED = "is_registered";
 
     public static void setCallActivityVisible(boolean visible) {
-        Log.d(TAG, "setCallActivityVisible: " + visible);
+        PluginLog.d(TAG, "setCallActivityVisible: " + visible);
         isCallActivityVisible = visible;
         if (instance != null) {
             if (visible) {
-                Log.d(TAG, "Activity visible - dismissing notification");
+                PluginLog.d(TAG, "Activity visible - dismissing notification");
                 instance.dismissOngoingCallNotification();
             } else if (core != null && core.getCurrentCall() != null) {
-                Log.d(TAG, "Activity NOT visible - showing notification");
+                PluginLog.d(TAG, "Activity NOT visible - showing notification");
                 instance.showOngoingCallNotification(core.getCurrentCall());
             } else {
-                Log.d(TAG, "Cannot show notification - no active call");
+                PluginLog.d(TAG, "Cannot show notification - no active call");
             }
         } else {
-            Log.d(TAG, "Cannot update notification - service instance is null");
+            PluginLog.d(TAG, "Cannot update notification - service instance is null");
         }
     }
 
@@ -130,18 +124,19 @@ public class LinphoneBackgroundService extends Service {
     public void onCreate() {
         super.onCreate();
         instance = this;
-        Log.d(TAG, "Service created");
+        PluginLog.d(TAG, "Service created");
 
         // CRITICAL: Check for RECORD_AUDIO permission before starting foreground
         // service
         if (ContextCompat.checkSelfPermission(this,
                 Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
-            Log.e(TAG, "RECORD_AUDIO permission not granted! Service cannot start as foreground.");
+            PluginLog.e(TAG, "RECORD_AUDIO permission not granted! Service cannot start as foreground.");
             stopSelf();
             return;
         }
 
         createNotificationChannel();
+        controller = new ServiceController(controllerHost, PluginExecutors.coreHandler());
 
         // Start foreground with proper service type for Android 14+ (API 34)
         if (Build.VERSION.SDK_INT >= 34) {
@@ -151,17 +146,35 @@ public class LinphoneBackgroundService extends Service {
             startForeground(NOTIFICATION_ID, createNotification("HATIF", "Starting...", false));
         }
 
-        // Initialize Linphone Core
-        initializeLinphoneCore();
+        // Initialize Linphone Core on the core thread, which also iterates it
+        PluginExecutors.runOnCore(this::initializeLinphoneCore);
+        PluginStateTracker.requestUpdate();
+
+        DeviceConditions.start(this);
+        DeviceConditions.addListener(deviceConditionsListener);
+        MainLooperWatchdog.start();
+        deviceConditionsStarted = true;
 
-        // Start core iterate timer
-        startCoreIteration();
+        // Lets Dart handle events while no activity is attached
+        HeadlessEngine.start(this);
     }
 
+    private final DeviceConditions.Listener deviceConditionsListener =
+            (previous, current) -> controller.onDeviceStateChanged(previous, current);
+
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        Log.d(TAG, "Service started");
+        PluginLog.d(TAG, "Service started");
 
+        // Every action touches the core, so run it on the core thread after
+        // the initialization posted from onCreate()
+        PluginExecutors.runOnCore(() -> handleStartCommand(intent));
+
+        return START_STICKY;
+    }
+
+    private void handleStartCommand(Intent intent) {
+        CoreOwner.wake("service");
         if (intent != null && intent.getAction() != null) {
             switch (intent.getAction()) {
                 case "REGISTER":
@@ -181,7 +194,7 @@ public class LinphoneBackgroundService extends Service {
                     break;
                 case "ANSWER_CALL_FROM_NOTIFICATION":
                     // Production-grade handler for notification accept button
-                    Log.i(TAG, "🔔 Service resurrected to handle notification accept");
+                    PluginLog.i(TAG, "🔔 Service resurrected to handle notification accept");
                     acceptCallAndLaunchUI();
                     break;
                 case "DECLINE_CALL":
@@ -195,13 +208,15 @@ public class LinphoneBackgroundService extends Service {
                 case "ACTION_HANGUP_CALL":
                     hangupCall();
                     break;
+                case "ACTION_ANSWER_WAITING_CALL":
+                case "ACTION_DECLINE_WAITING_CALL":
+                    handleWaitingCallAction(intent);
+                    break;
             }
         } else {
             // Auto-register if credentials are saved
             autoRegister();
         }
-
-        return START_STICKY;
     }
 
     private void initializeLinphoneCore() {
@@ -209,89 +224,54 @@ public class LinphoneBackgroundService extends Service {
             return;
 
         try {
-            Factory factory = Factory.instance();
-            factory.setDebugMode(true, TAG);
-            core = factory.createCore(null, null, this);
+            core = CoreOwner.acquire(this, CORE_HOLDER);
 
             // Disable automatic CoreService start - we manage our own service
             core.setNativeRingingEnabled(false);
 
             core.addListener(coreListener);
-            core.start();
-            Log.d(TAG, "Linphone Core initialized");
+            PluginLog.d(TAG, "Linphone Core initialized");
         } catch (Exception e) {
-            Log.e(TAG, "Error initializing Linphone Core", e);
+            PluginLog.e(TAG, "Error initializing Linphone Core", e);
         }
     }
 
-    private void startCoreIteration() {
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (core != null) {
-                    core.iterate();
-                }
-            }
-        }, 0, 20);
-    }
-
     private void registerAccount(String username, String password, String domain) {
         if (core == null) {
             initializeLinphoneCore();
         }
+        CoreOwner.wake("register");
 
         try {
             // Save credentials
             saveCredentials(username, password, domain);
 
-            // Clear existing accounts
-            for (Account account : core.getAccountList()) {
-                core.removeAccount(account);
+            // Reuse the account if it matches; the service's previous one is dropped
+            AccountSetup.Result result = AccountSetup.apply(core, CORE_HOLDER, username, password, domain, true);
+            if (account != null && account != result.account) {
+                AccountSetup.release(core, CORE_HOLDER, account);
+            }
+            account = result.account;
+            if (result.outcome == AccountSetup.Outcome.UNCHANGED
+                    && result.account.getState() == RegistrationState.Ok) {
+                updateNotification("HATIF", "Ready for calls", true);
+                return;
             }
-            core.clearAllAuthInfo();
-
-            // Create auth info
-            AuthInfo authInfo = Factory.instance().createAuthInfo(
-                    username, null, password, null, null, domain, null);
-
-            // Create account params
-            AccountParams params = core.createAccountParams();
-            String sipAddress = "sip:" + username + "@" + domain;
-            Address identity = Factory.instance().createAddress(sipAddress);
-            params.setIdentityAddress(identity);
-
-            Address address = Factory.instance().createAddress("sip:" + domain);
-            address.setTransport(TransportType.Udp);
-            params.setServerAddress(address);
-            params.setRegisterEnabled(true);
-
-            // Enable push notifications parameters
-            params.setPushNotificationAllowed(true);
-            params.setRemotePushNotificationAllowed(true);
-
-            // Create and add account
-            Account account = core.createAccount(params);
-            core.addAuthInfo(authInfo);
-            core.addAccount(account);
-            core.setDefaultAccount(account);
 
             updateNotification("HATIF", "Registering " + username + "@" + domain, false);
-            Log.d(TAG, "Account registered: " + username + "@" + domain);
+            PluginLog.d(TAG, "Account registered: " + username + "@" + domain);
         } catch (Exception e) {
-            Log.e(TAG, "Error registering account", e);
+            PluginLog.e(TAG, "Error registering account", e);
         }
     }
 
     private void unregisterAccount() {
-        if (core == null)
+        if (core == null || account == null)
             return;
 
-        for (Account account : core.getAccountList()) {
-            AccountParams params = account.getParams().clone();
-            params.setRegisterEnabled(false);
-            account.setParams(params);
-        }
+        AccountParams params = account.getParams().clone();
+        params.setRegisterEnabled(false);
+        account.setParams(params);
 
         clearCredentials();
         updateNotification("HATIF", "Unregistered", false);
@@ -304,7 +284,7 @@ public class LinphoneBackgroundService extends Service {
         String domain = prefs.getString(KEY_DOMAIN, null);
 
         if (username != null && password != null && domain != null) {
-            Log.d(TAG, "Auto-registering with saved credentials");
+            PluginLog.d(TAG, "Auto-registering with saved credentials");
             registerAccount(username, password, domain);
         }
     }
@@ -319,7 +299,7 @@ public class LinphoneBackgroundService extends Service {
         }
 
         if (tempCall == null) {
-            Log.e(TAG, "No call to answer");
+            PluginLog.e(TAG, "No call to answer");
             return;
         }
 
@@ -332,11 +312,11 @@ public class LinphoneBackgroundService extends Service {
             // Send broadcast immediately to close IncomingCallActivity
             Intent closeIncomingIntent = new Intent("com.egytelecoms.hatif.CLOSE_INCOMING_CALL");
             sendBroadcast(closeIncomingIntent);
-            Log.d(TAG, "Sent broadcast to close IncomingCallActivity");
+            PluginLog.d(TAG, "Sent broadcast to close IncomingCallActivity");
 
             // Accept the call
             call.accept();
-            Log.d(TAG, "Call answered from notification");
+            PluginLog.d(TAG, "Call answered from notification");
             currentIncomingCall = null;
 
             // Get caller info for CallActivity
@@ -354,9 +334,9 @@ public class LinphoneBackgroundService extends Service {
             callActivityIntent.putExtra("caller_number", callerNumber);
             startActivity(callActivityIntent);
 
-            Log.d(TAG, "CallActivity launched immediately after accepting call");
+            PluginLog.d(TAG, "CallActivity launched immediately after accepting call");
         } catch (Exception e) {
-            Log.e(TAG, "Error accepting call", e);
+            PluginLog.e(TAG, "Error accepting call", e);
         }
     }
 
@@ -373,7 +353,7 @@ public class LinphoneBackgroundService extends Service {
      * 5. Ensure activity is brought to foreground
      */
     private void acceptCallAndLaunchUI() {
-        Log.i(TAG, "acceptCallAndLaunchUI: Starting production-grade call acceptance flow");
+        PluginLog.i(TAG, "acceptCallAndLaunchUI: Starting production-grade call acceptance flow");
 
         // Step 1: Find the call to answer
         Call call = currentIncomingCall;
@@ -385,7 +365,7 @@ public class LinphoneBackgroundService extends Service {
         }
 
         if (call == null) {
-            Log.e(TAG, "acceptCallAndLaunchUI: No call found to answer");
+            PluginLog.e(TAG, "acceptCallAndLaunchUI: No call found to answer");
             return;
         }
 
@@ -396,11 +376,11 @@ public class LinphoneBackgroundService extends Service {
             // Step 3: Close IncomingCallActivity to prevent UI conflicts
             Intent closeIncomingIntent = new Intent("com.egytelecoms.hatif.CLOSE_INCOMING_CALL");
             sendBroadcast(closeIncomingIntent);
-            Log.d(TAG, "✓ Broadcast sent to close IncomingCallActivity");
+            PluginLog.d(TAG, "✓ Broadcast sent to close IncomingCallActivity");
 
             // Step 4: Accept the call
             call.accept();
-            Log.d(TAG, "✓ Call accepted successfully");
+            PluginLog.d(TAG, "✓ Call accepted successfully");
             currentIncomingCall = null;
 
             // Step 4: Prepare caller information
@@ -409,7 +389,7 @@ public class LinphoneBackgroundService extends Service {
                 callerName = call.getRemoteAddress().getUsername();
             }
             String callerNumber = call.getRemoteAddress().getUsername();
-            Log.d(TAG, "Caller info - Name: " + callerName + ", Number: " + callerNumber);
+            PluginLog.d(TAG, "Caller info - Name: " + callerName + ", Number: " + callerNumber);
 
             // Step 5: Launch CallActivity with robust flags
             // CRITICAL: Use minimal flags to ensure activity always appears
@@ -424,27 +404,27 @@ public class LinphoneBackgroundService extends Service {
             callActivityIntent.putExtra("auto_accepted", true); // Mark as auto-accepted from notification
 
             // Launch the activity
-            Log.d(TAG, "🚀 Launching CallActivity with flags: NEW_TASK | CLEAR_TOP | SINGLE_TOP");
+            PluginLog.d(TAG, "🚀 Launching CallActivity with flags: NEW_TASK | CLEAR_TOP | SINGLE_TOP");
             startActivity(callActivityIntent);
-            Log.d(TAG, "✓ CallActivity.startActivity() called successfully");
+            PluginLog.d(TAG, "✓ CallActivity.startActivity() called successfully");
 
             // Step 6: Dismiss incoming call notification
             dismissIncomingCallNotification();
-            Log.d(TAG, "✓ Incoming call notification dismissed");
+            PluginLog.d(TAG, "✓ Incoming call notification dismissed");
 
-            Log.i(TAG, "✓✓✓ Call acceptance flow completed successfully ✓✓✓");
+            PluginLog.i(TAG, "✓✓✓ Call acceptance flow completed successfully ✓✓✓");
 
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error in acceptCallAndLaunchUI", e);
+            PluginLog.e(TAG, "❌ Error in acceptCallAndLaunchUI", e);
 
             // Fallback: Try to at least accept the call even if UI launch fails
             try {
                 if (call != null && call.getState() == Call.State.IncomingReceived) {
                     call.accept();
-                    Log.d(TAG, "⚠️ Call accepted in fallback mode (UI may not be visible)");
+                    PluginLog.d(TAG, "⚠️ Call accepted in fallback mode (UI may not be visible)");
                 }
             } catch (Exception fallbackError) {
-                Log.e(TAG, "❌ Fallback call acceptance also failed", fallbackError);
+                PluginLog.e(TAG, "❌ Fallback call acceptance also failed", fallbackError);
             }
         }
     }
@@ -459,16 +439,16 @@ public class LinphoneBackgroundService extends Service {
         }
 
         if (call == null) {
-            Log.e(TAG, "No call to answer");
+            PluginLog.e(TAG, "No call to answer");
             return;
         }
 
         try {
             call.accept();
-            Log.d(TAG, "Call answered - Flutter CallScreen will be shown via state listener");
+            PluginLog.d(TAG, "Call answered - Flutter CallScreen will be shown via state listener");
             currentIncomingCall = null;
         } catch (Exception e) {
-            Log.e(TAG, "Error answering call", e);
+            PluginLog.e(TAG, "Error answering call", e);
         }
     }
 
@@ -482,13 +462,13 @@ public class LinphoneBackgroundService extends Service {
         }
 
         if (call == null) {
-            Log.e(TAG, "No call to decline");
+            PluginLog.e(TAG, "No call to decline");
             return;
         }
 
         try {
             call.decline(org.linphone.core.Reason.Declined);
-            Log.d(TAG, "Call declined");
+            PluginLog.d(TAG, "Call declined");
             currentIncomingCall = null;
 
             // Dismiss the incoming call notification
@@ -498,13 +478,13 @@ public class LinphoneBackgroundService extends Service {
             Intent closeIncomingIntent = new Intent("com.egytelecoms.hatif.CLOSE_INCOMING_CALL");
             sendBroadcast(closeIncomingIntent);
         } catch (Exception e) {
-            Log.e(TAG, "Error declining call", e);
+            PluginLog.e(TAG, "Error declining call", e);
         }
     }
 
     private void toggleMute() {
         if (core == null) {
-            Log.e(TAG, "Core is null, cannot toggle mute");
+            PluginLog.e(TAG, "Core is null, cannot toggle mute");
             return;
         }
 
@@ -513,7 +493,8 @@ public class LinphoneBackgroundService extends Service {
         core.enableMic(!isCallMuted);
         isCallMuted = !isCallMuted;
 
-        Log.d(TAG, "Microphone " + (isCallMuted ? "muted" : "unmuted"));
+        PluginLog.d(TAG, "Microphone " + (isCallMuted ? "muted" : "unmuted"));
+        PluginStateTracker.requestUpdate();
 
         // Update the ongoing notification to reflect the new mute state
         Call call = core.getCurrentCall();
@@ -584,15 +565,15 @@ public class LinphoneBackgroundService extends Service {
                 notificationManager.notify(ONGOING_CALL_NOTIFICATION_ID, notificationBuilder.build());
             }
 
-            Log.d(TAG, "Ongoing call notification updated with mute state: " + isCallMuted);
+            PluginLog.d(TAG, "Ongoing call notification updated with mute state: " + isCallMuted);
         } catch (Exception e) {
-            Log.e(TAG, "Error updating ongoing call notification", e);
+            PluginLog.e(TAG, "Error updating ongoing call notification", e);
         }
     }
 
     private void hangupCall() {
         if (core == null) {
-            Log.e(TAG, "Core is null, cannot hang up");
+            PluginLog.e(TAG, "Core is null, cannot hang up");
             return;
         }
 
@@ -600,12 +581,12 @@ public class LinphoneBackgroundService extends Service {
         if (call != null) {
             try {
                 call.terminate();
-                Log.d(TAG, "Call terminated");
+                PluginLog.d(TAG, "Call terminated");
             } catch (Exception e) {
-                Log.e(TAG, "Error terminating call", e);
+                PluginLog.e(TAG, "Error terminating call", e);
             }
         } else {
-            Log.d(TAG, "No active call to hang up");
+            PluginLog.d(TAG, "No active call to hang up");
         }
     }
 
@@ -614,7 +595,7 @@ public class LinphoneBackgroundService extends Service {
 
     public static void hangUpFromActivity() {
         if (core == null || core.getCallsNb() == 0) {
-            Log.d(TAG, "hangUpFromActivity: No call to hang up");
+            PluginLog.d(TAG, "hangUpFromActivity: No call to hang up");
             return;
         }
 
@@ -626,29 +607,30 @@ public class LinphoneBackgroundService extends Service {
         if (call != null) {
             try {
                 call.terminate();
-                Log.d(TAG, "Call terminated from activity");
+                PluginLog.d(TAG, "Call terminated from activity");
             } catch (Exception e) {
-                Log.e(TAG, "Error terminating call from activity", e);
+                PluginLog.e(TAG, "Error terminating call from activity", e);
             }
         }
     }
 
     public static boolean toggleMuteFromActivity() {
         if (core == null) {
-            Log.e(TAG, "toggleMuteFromActivity: Core is null");
+            PluginLog.e(TAG, "toggleMuteFromActivity: Core is null");
             return false;
         }
 
         Call call = core.getCurrentCall();
         if (call == null) {
-            Log.e(TAG, "toggleMuteFromActivity: No active call");
+            PluginLog.e(TAG, "toggleMuteFromActivity: No active call");
             return false;
         }
 
         try {
             boolean currentlyMuted = call.getMicrophoneMuted();
             call.setMicrophoneMuted(!currentlyMuted);
-            Log.d(TAG, "Mute toggled to: " + !currentlyMuted);
+            PluginLog.d(TAG, "Mute toggled to: " + !currentlyMuted);
+            PluginStateTracker.requestUpdate();
 
             // Update instance's mute state for notification
             if (instance != null) {
@@ -658,14 +640,14 @@ public class LinphoneBackgroundService extends Service {
 
             return !currentlyMuted;
         } catch (Exception e) {
-            Log.e(TAG, "Error toggling mute from activity", e);
+            PluginLog.e(TAG, "Error toggling mute from activity", e);
             return false;
         }
     }
 
     private static void setEarpieceOnCallStart(Call call) {
         if (core == null || call == null) {
-            Log.e(TAG, "setEarpieceOnCallStart: Core or call is null");
+            PluginLog.e(TAG, "setEarpieceOnCallStart: Core or call is null");
             return;
         }
 
@@ -674,25 +656,25 @@ public class LinphoneBackgroundService extends Service {
             for (org.linphone.core.AudioDevice device : core.getAudioDevices()) {
                 if (device.getType() == org.linphone.core.AudioDevice.Type.Earpiece) {
                     call.setOutputAudioDevice(device);
-                    Log.d(TAG, "Call started with earpiece (normal volume)");
+                    PluginLog.d(TAG, "Call started with earpiece (normal volume)");
                     return;
                 }
             }
-            Log.d(TAG, "No earpiece device found, using default audio device");
+            PluginLog.d(TAG, "No earpiece device found, using default audio device");
         } catch (Exception e) {
-            Log.e(TAG, "Error setting earpiece on call start", e);
+            PluginLog.e(TAG, "Error setting earpiece on call start", e);
         }
     }
 
     public static void toggleSpeakerFromActivity() {
         if (core == null) {
-            Log.e(TAG, "toggleSpeakerFromActivity: Core is null");
+            PluginLog.e(TAG, "toggleSpeakerFromActivity: Core is null");
             return;
         }
 
         Call call = core.getCurrentCall();
         if (call == null) {
-            Log.e(TAG, "toggleSpeakerFromActivity: No active call");
+            PluginLog.e(TAG, "toggleSpeakerFromActivity: No active call");
             return;
         }
 
@@ -705,30 +687,30 @@ public class LinphoneBackgroundService extends Service {
             for (org.linphone.core.AudioDevice device : core.getAudioDevices()) {
                 if (isSpeaker && device.getType() == org.linphone.core.AudioDevice.Type.Earpiece) {
                     call.setOutputAudioDevice(device);
-                    Log.d(TAG, "Switched to earpiece");
+                    PluginLog.d(TAG, "Switched to earpiece");
                     return;
                 } else if (!isSpeaker && device.getType() == org.linphone.core.AudioDevice.Type.Speaker) {
                     call.setOutputAudioDevice(device);
-                    Log.d(TAG, "Switched to speaker");
+                    PluginLog.d(TAG, "Switched to speaker");
                     return;
                 }
             }
 
-            Log.d(TAG, "No suitable audio device found for toggle");
+            PluginLog.d(TAG, "No suitable audio device found for toggle");
         } catch (Exception e) {
-            Log.e(TAG, "Error toggling speaker from activity", e);
+            PluginLog.e(TAG, "Error toggling speaker from activity", e);
         }
     }
 
     public static void toggleHoldFromActivity() {
         if (core == null) {
-            Log.e(TAG, "toggleHoldFromActivity: Core is null");
+            PluginLog.e(TAG, "toggleHoldFromActivity: Core is null");
             return;
         }
 
         Call call = core.getCurrentCall();
         if (call == null) {
-            Log.e(TAG, "toggleHoldFromActivity: No active call");
+            PluginLog.e(TAG, "toggleHoldFromActivity: No active call");
             return;
         }
 
@@ -736,35 +718,35 @@ public class LinphoneBackgroundService extends Service {
             Call.State state = call.getState();
             if (state == Call.State.Paused || state == Call.State.Pausing) {
                 call.resume();
-                Log.d(TAG, "Call resumed");
+                PluginLog.d(TAG, "Call resumed");
             } else if (state == Call.State.StreamsRunning || state == Call.State.Connected) {
                 call.pause();
-                Log.d(TAG, "Call paused");
+                PluginLog.d(TAG, "Call paused");
             } else {
-                Log.d(TAG, "Cannot toggle hold in state: " + state);
+                PluginLog.d(TAG, "Cannot toggle hold in state: " + state);
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error toggling hold from activity", e);
+            PluginLog.e(TAG, "Error toggling hold from activity", e);
         }
     }
 
     public static void sendDTMFFromActivity(char digit) {
         if (core == null) {
-            Log.e(TAG, "sendDTMFFromActivity: Core is null");
+            PluginLog.e(TAG, "sendDTMFFromActivity: Core is null");
             return;
         }
 
         Call call = core.getCurrentCall();
         if (call == null) {
-            Log.e(TAG, "sendDTMFFromActivity: No active call");
+            PluginLog.e(TAG, "sendDTMFFromActivity: No active call");
             return;
         }
 
         try {
             call.sendDtmf(digit);
-            Log.d(TAG, "DTMF sent: " + digit);
+            PluginLog.d(TAG, "DTMF sent: " + digit);
         } catch (Exception e) {
-            Log.e(TAG, "Error sending DTMF from activity", e);
+            PluginLog.e(TAG, "Error sending DTMF from activity", e);
         }
     }
 
@@ -822,12 +804,14 @@ public class LinphoneBackgroundService extends Service {
      * - Terminated: Service resurrects and launches activity
      */
     public static void answerCallFromNotification() {
-        Log.i(TAG, "answerCallFromNotification: Called from broadcast receiver");
-        if (instance != null) {
-            instance.acceptCallAndLaunchUI();
-        } else {
-            Log.e(TAG, "answerCallFromNotification: Service instance is null");
-        }
+        PluginLog.i(TAG, "answerCallFromNotification: Called from broadcast receiver");
+        PluginExecutors.runOnCore(() -> {
+            if (instance != null) {
+                instance.acceptCallAndLaunchUI();
+            } else {
+                PluginLog.e(TAG, "answerCallFromNotification: Service instance is null");
+            }
+        });
     }
 
     /**
@@ -835,13 +819,15 @@ public class LinphoneBackgroundService extends Service {
      * notification.
      */
     public static void declineCallFromNotification() {
-        Log.i(TAG, "declineCallFromNotification: Called from broadcast receiver");
-        if (instance != null) {
-            instance.declineCall();
-            instance.dismissIncomingCallNotification();
-        } else {
-            Log.e(TAG, "declineCallFromNotification: Service instance is null");
-        }
+        PluginLog.i(TAG, "declineCallFromNotification: Called from broadcast receiver");
+        PluginExecutors.runOnCore(() -> {
+            if (instance != null) {
+                instance.declineCall();
+                instance.dismissIncomingCallNotification();
+            } else {
+                PluginLog.e(TAG, "declineCallFromNotification: Service instance is null");
+            }
+        });
     }
 
     /**
@@ -852,15 +838,15 @@ public class LinphoneBackgroundService extends Service {
      * @return true if call was initiated successfully, false otherwise
      */
     public static boolean makeCall(String number) {
-        Log.i(TAG, "makeCall: Initiating outgoing call to " + number);
+        PluginLog.i(TAG, "makeCall: Initiating outgoing call to " + number);
 
         if (core == null) {
-            Log.e(TAG, "makeCall: Core is null, cannot make call");
+            PluginLog.e(TAG, "makeCall: Core is null, cannot make call");
             return false;
         }
 
         if (instance == null) {
-            Log.e(TAG, "makeCall: Service instance is null");
+            PluginLog.e(TAG, "makeCall: Service instance is null");
             return false;
         }
 
@@ -868,14 +854,14 @@ public class LinphoneBackgroundService extends Service {
             // Get the default account
             Account account = core.getDefaultAccount();
             if (account == null) {
-                Log.e(TAG, "makeCall: No default account configured");
+                PluginLog.e(TAG, "makeCall: No default account configured");
                 return false;
             }
 
             // Check registration state
             RegistrationState regState = account.getState();
             if (regState != RegistrationState.Ok) {
-                Log.w(TAG, "makeCall: Account not registered. State: " + regState);
+                PluginLog.w(TAG, "makeCall: Account not registered. State: " + regState);
                 // Attempt to make call anyway as Linphone might still work
             }
 
@@ -891,7 +877,7 @@ public class LinphoneBackgroundService extends Service {
             }
 
             if (remoteAddress == null) {
-                Log.e(TAG, "makeCall: Failed to create remote address from: " + number);
+                PluginLog.e(TAG, "makeCall: Failed to create remote address from: " + number);
                 return false;
             }
 
@@ -902,15 +888,15 @@ public class LinphoneBackgroundService extends Service {
             Call call = core.inviteAddressWithParams(remoteAddress, params);
 
             if (call != null) {
-                Log.d(TAG, "✓ Call initiated successfully to: " + remoteAddress.asStringUriOnly());
+                PluginLog.d(TAG, "✓ Call initiated successfully to: " + remoteAddress.asStringUriOnly());
                 return true;
             } else {
-                Log.e(TAG, "makeCall: core.inviteAddressWithParams() returned null");
+                PluginLog.e(TAG, "makeCall: core.inviteAddressWithParams() returned null");
                 return false;
             }
 
         } catch (Exception e) {
-            Log.e(TAG, "makeCall: Exception occurred", e);
+            PluginLog.e(TAG, "makeCall: Exception occurred", e);
             return false;
         }
     }
@@ -938,105 +924,138 @@ public class LinphoneBackgroundService extends Service {
         @Override
         public void onAccountRegistrationStateChanged(@NonNull Core core, @NonNull Account account,
                 RegistrationState state, @NonNull String message) {
-            Log.d(TAG, "Registration state changed: " + state.name() + " - Message: " + message);
-
-            String username = account.getParams().getIdentityAddress().getUsername();
-            String domain = account.getParams().getIdentityAddress().getDomain();
-
-            switch (state) {
-                case Ok:
-                    Log.i(TAG, "✓ Registration successful for " + username + "@" + domain);
-                    updateNotification("HATIF", "Ready for calls", true);
-                    // Reset reconnect attempts on successful registration
-                    reconnectAttempts = 0;
-                    cancelReconnectTimer();
-                    break;
-                case Progress:
-                    Log.d(TAG, "Registration in progress...");
-                    updateNotification("HATIF", "Registering...", false);
-                    break;
-                case Failed:
-                    Log.e(TAG, "✗ Registration failed: " + message);
-                    updateNotification("HATIF", "Registration failed - Retrying...", false);
-                    // Schedule reconnection attempt
-                    scheduleReconnect();
-                    break;
-                case Cleared:
-                    Log.w(TAG, "Registration cleared");
-                    updateNotification("HATIF", "Unregistered", false);
-                    // Try to re-register if we have credentials
-                    scheduleReconnect();
-                    break;
+            PluginLog.d(TAG, "Registration state changed: " + state.name() + " - Message: " + message);
+            // CoreOwner sends the event to Dart. Accounts the plugin logged in
+            // do not drive the service's notification or reconnects.
+            if (account == LinphoneBackgroundService.this.account) {
+                controller.onRegistrationStateChanged(state, message);
             }
         }
 
         @Override
         public void onNetworkReachable(@NonNull Core core, boolean reachable) {
-            Log.i(TAG, "Network reachable: " + reachable);
-            isNetworkAvailable = reachable;
-
-            if (reachable) {
-                Log.d(TAG, "Network is back, attempting to restore registration...");
-                // Network is back, try to re-register
-                if (core.getDefaultAccount() != null) {
-                    Account account = core.getDefaultAccount();
-                    if (account.getState() != RegistrationState.Ok) {
-                        Log.d(TAG, "Refreshing registration after network restore");
-                        account.setParams(account.getParams());
-                        reconnectAttempts = 0; // Reset counter
-                    }
-                } else {
-                    // Try auto-register if we have saved credentials
-                    scheduleReconnect();
-                }
-            } else {
-                Log.w(TAG, "Network lost, will retry when network is back");
-                updateNotification("HATIF", "No network - Waiting...", false);
-            }
+            PluginLog.i(TAG, "Network reachable: " + reachable);
+            controller.onNetworkReachable(reachable);
         }
 
         @Override
         public void onCallStateChanged(@NonNull Core core, @NonNull Call call,
                 Call.State state, @NonNull String message) {
-            Log.d(TAG, "Call state changed: " + state.name());
+            PluginLog.d(TAG, "Call state changed: " + state.name());
+            controller.onCallStateChanged(call, state);
+        }
 
-            switch (state) {
-                case IncomingReceived:
-                    // Show incoming call notification/UI
-                    handleIncomingCall(call);
-                    break;
-                case Connected:
-                case StreamsRunning:
-                    // Stop ringtone
-                    stopRingtone();
-                    // Set earpiece as default audio device when call connects
-                    setEarpieceOnCallStart(call);
-                    // Launch call activity (NO NOTIFICATION)
-                    launchCallActivity(call);
-                    // Show ongoing call notification with timer if CallActivity is not visible
-                    if (!isCallActivityVisible) {
-                        Log.d(TAG, "📱 Call connected, showing notification with timer");
-                        showOngoingCallNotification(call);
-                    } else {
-                        Log.d(TAG, "CallActivity visible, skipping notification");
-                    }
-                    break;
-                case End:
-                case Released:
-                case Error:
-                    // Stop ringtone
-                    stopRingtone();
-                    // Dismiss ongoing call notification and restore service notification
-                    dismissOngoingCallNotification();
-                    // Clean up
-                    Log.d(TAG, "Call ended");
-                    break;
+        @Override
+        public void onAudioDeviceChanged(@NonNull Core core, @NonNull org.linphone.core.AudioDevice audioDevice) {
+            // Speaker/earpiece switches made from CallActivity or the channel
+            controller.onAudioDeviceChanged();
+        }
+    };
+
+    private final ServiceController.Host controllerHost = new ServiceController.Host() {
+        @Override
+        public boolean hasCore() {
+            return core != null;
+        }
+
+        @Override
+        public RegistrationState accountState() {
+            // The service's own account, not one the plugin logged in
+            return account != null ? account.getState() : null;
+        }
+
+        @Override
+        public boolean registrationEnabled() {
+            return account == null || account.getParams().isRegisterEnabled();
+        }
+
+        @Override
+        public boolean refreshRegistration() {
+            if (core == null || account == null || !account.getParams().isRegisterEnabled()) {
+                return false;
+            }
+            CoreOwner.wake("reconnect");
+            account.setParams(account.getParams());
+            return true;
+        }
+
+        @Override
+        public boolean registerFromSavedCredentials() {
+            SharedPreferences prefs = getSharedPreferences("FlutterSharedPreferences", MODE_PRIVATE);
+            String savedUsername = prefs.getString("flutter.username", null);
+            String savedPassword = prefs.getString("flutter.password", null);
+            String savedDomain = prefs.getString("flutter.domain", null);
+            if (savedUsername == null || savedPassword == null || savedDomain == null) {
+                return false;
+            }
+            PluginLog.d(TAG, "Found saved credentials, attempting auto-registration");
+            registerAccount(savedUsername, savedPassword, savedDomain);
+            return true;
+        }
+
+        @Override
+        public void updateNotification(@NonNull String content, boolean registered) {
+            LinphoneBackgroundService.this.updateNotification("HATIF", content, registered);
+        }
+
+        @Override
+        public void stateChanged() {
+            PluginStateTracker.requestUpdate();
+        }
+
+        @Override
+        public void showIncomingCall(@NonNull Call call) {
+            handleIncomingCall(call);
+        }
+
+        @Override
+        public void showWaitingCall(@NonNull Call call) {
+            showWaitingCallNotification(call);
+        }
+
+        @Override
+        public void dismissWaitingCall(@NonNull Call call) {
+            NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+            if (manager != null) {
+                manager.cancel(call.getCallLog().getCallId(), WAITING_CALL_NOTIFICATION_ID);
             }
         }
+
+        @Override
+        public void rejectCall(@NonNull Call call, boolean busy) {
+            call.decline(busy ? org.linphone.core.Reason.Busy : org.linphone.core.Reason.Declined);
+        }
+
+        @Override
+        public void answerCall(@NonNull Call call) {
+            call.accept();
+        }
+
+        @Override
+        public void showCallConnected(@NonNull Call call) {
+            stopRingtone();
+            // Earpiece by default when the call connects
+            setEarpieceOnCallStart(call);
+            launchCallActivity(call);
+            // Ongoing call notification with timer unless CallActivity shows it
+            if (!isCallActivityVisible) {
+                showOngoingCallNotification(call);
+            } else {
+                PluginLog.d(TAG, "CallActivity visible, skipping notification");
+            }
+        }
+
+        @Override
+        public void showCallEnded() {
+            stopRingtone();
+            // Restores the service notification
+            dismissOngoingCallNotification();
+            PluginLog.d(TAG, "Call ended");
+        }
     };
 
     private void handleIncomingCall(Call call) {
-        Log.d(TAG, "handleIncomingCall: Launching IncomingCallActivity with overlay approach");
+        PluginLog.d(TAG, "handleIncomingCall: Launching IncomingCallActivity with overlay approach");
 
         // Play ringtone
         playRingtone();
@@ -1059,10 +1078,66 @@ public class LinphoneBackgroundService extends Service {
 
         try {
             startActivity(intent);
-            Log.d(TAG, "✓ IncomingCallActivity launched with overlay flags");
+            PluginLog.d(TAG, "✓ IncomingCallActivity launched with overlay flags");
         } catch (Exception e) {
-            Log.e(TAG, "❌ Failed to launch IncomingCallActivity", e);
-            e.printStackTrace();
+            PluginLog.e(TAG, "❌ Failed to launch IncomingCallActivity", e);
+        }
+    }
+
+    /** Answer and decline buttons for a call ringing while another has the screen or a call is up. */
+    private void showWaitingCallNotification(Call call) {
+        String callId = call.getCallLog().getCallId();
+        String callerName = call.getRemoteAddress().getDisplayName();
+        if (callerName == null || callerName.isEmpty()) {
+            callerName = call.getRemoteAddress().getUsername();
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, INCOMING_CALL_CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_menu_call)
+                .setContentTitle("Call waiting")
+                .setContentText(callerName)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCategory(NotificationCompat.CATEGORY_CALL)
+                .setOngoing(true)
+                .addAction(R.drawable.ic_call_answer, "Answer",
+                        waitingCallIntent("ACTION_ANSWER_WAITING_CALL", callId))
+                .addAction(R.drawable.ic_call_end, "Decline",
+                        waitingCallIntent("ACTION_DECLINE_WAITING_CALL", callId));
+
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.notify(callId, WAITING_CALL_NOTIFICATION_ID, builder.build());
+        }
+    }
+
+    private PendingIntent waitingCallIntent(String action, String callId) {
+        Intent intent = new Intent(this, LinphoneBackgroundService.class);
+        intent.setAction(action);
+        intent.putExtra(EXTRA_CALL_ID, callId);
+        return PendingIntent.getService(this, (action + callId).hashCode(), intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void handleWaitingCallAction(Intent intent) {
+        String callId = intent.getStringExtra(EXTRA_CALL_ID);
+        Call call = null;
+        if (core != null && callId != null) {
+            for (Call candidate : core.getCalls()) {
+                if (callId.equals(candidate.getCallLog().getCallId())) {
+                    call = candidate;
+                    break;
+                }
+            }
+        }
+        if (call == null || call.getState() != Call.State.IncomingReceived) {
+            PluginLog.w(TAG, "Waiting call " + callId + " is no longer ringing");
+            return;
+        }
+        if ("ACTION_ANSWER_WAITING_CALL".equals(intent.getAction())) {
+            // The controller shows the call screen once it connects
+            call.accept();
+        } else {
+            call.decline(org.linphone.core.Reason.Declined);
         }
     }
 
@@ -1145,7 +1220,7 @@ public class LinphoneBackgroundService extends Service {
             try {
                 return Class.forName(className);
             } catch (ClassNotFoundException e) {
-                Log.e(TAG, "Could not find main activity class", e);
+                PluginLog.e(TAG, "Could not find main activity class", e);
             }
         }
         return null;
@@ -1159,10 +1234,10 @@ public class LinphoneBackgroundService extends Service {
             }
             if (ringtone != null && !ringtone.isPlaying()) {
                 ringtone.play();
-                Log.d(TAG, "Ringtone started playing");
+                PluginLog.d(TAG, "Ringtone started playing");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error playing ringtone", e);
+            PluginLog.e(TAG, "Error playing ringtone", e);
         }
     }
 
@@ -1170,10 +1245,10 @@ public class LinphoneBackgroundService extends Service {
         try {
             if (ringtone != null && ringtone.isPlaying()) {
                 ringtone.stop();
-                Log.d(TAG, "Ringtone stopped");
+                PluginLog.d(TAG, "Ringtone stopped");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error stopping ringtone", e);
+            PluginLog.e(TAG, "Error stopping ringtone", e);
         }
     }
 
@@ -1184,19 +1259,19 @@ public class LinphoneBackgroundService extends Service {
             intent.putExtra("caller_name", call.getRemoteAddress().getDisplayName());
             intent.putExtra("caller_number", call.getRemoteAddress().getUsername());
             startActivity(intent);
-            Log.d(TAG, "CallActivity launched");
+            PluginLog.d(TAG, "CallActivity launched");
         } catch (Exception e) {
-            Log.e(TAG, "Error launching CallActivity", e);
+            PluginLog.e(TAG, "Error launching CallActivity", e);
         }
     }
 
     private void showOngoingCallNotification(Call call) {
-        Log.d(TAG, "📱 showOngoingCallNotification called");
-        Log.d(TAG, "📱 Call state: " + call.getState());
-        Log.d(TAG, "📱 isCallActivityVisible: " + isCallActivityVisible);
+        PluginLog.d(TAG, "📱 showOngoingCallNotification called");
+        PluginLog.d(TAG, "📱 Call state: " + call.getState());
+        PluginLog.d(TAG, "📱 isCallActivityVisible: " + isCallActivityVisible);
 
         if (call == null) {
-            Log.e(TAG, "❌ Cannot show notification - call is null");
+            PluginLog.e(TAG, "❌ Cannot show notification - call is null");
             return;
         }
 
@@ -1214,7 +1289,7 @@ public class LinphoneBackgroundService extends Service {
             try {
                 notificationView = new RemoteViews(getPackageName(), R.layout.notification_call_control);
             } catch (Exception e) {
-                Log.e(TAG, "Failed to create custom notification view, using fallback", e);
+                PluginLog.e(TAG, "Failed to create custom notification view, using fallback", e);
                 useCustomView = false;
             }
 
@@ -1271,26 +1346,27 @@ public class LinphoneBackgroundService extends Service {
                 startNotificationTimer(call);
             }
 
-            Log.d(TAG, "Ongoing call notification shown with " + (useCustomView ? "custom" : "fallback") + " view");
+            PluginLog.d(TAG, "Ongoing call notification shown with " + (useCustomView ? "custom" : "fallback") + " view");
         } catch (Exception e) {
-            Log.e(TAG, "Error showing ongoing call notification", e);
+            PluginLog.e(TAG, "Error showing ongoing call notification", e);
         }
     }
 
     private void startNotificationTimer(Call call) {
         // Initialize handler and runnable for notification updates
         if (notificationUpdateHandler == null) {
-            notificationUpdateHandler = new Handler(Looper.getMainLooper());
+            // Reads call state on every tick, so run on the core thread
+            notificationUpdateHandler = PluginExecutors.coreHandler();
         }
 
         // Set call start time based on call state
         final long[] callStartTime = new long[1];
         if (call.getState() == Call.State.Connected || call.getState() == Call.State.StreamsRunning) {
             callStartTime[0] = System.currentTimeMillis();
-            Log.d(TAG, "⏱ Call already connected, starting timer immediately");
+            PluginLog.d(TAG, "⏱ Call already connected, starting timer immediately");
         } else {
             callStartTime[0] = System.currentTimeMillis();
-            Log.d(TAG, "⏱ Call not yet connected, timer will start on connect");
+            PluginLog.d(TAG, "⏱ Call not yet connected, timer will start on connect");
         }
 
         notificationUpdateRunnable = new Runnable() {
@@ -1300,12 +1376,12 @@ public class LinphoneBackgroundService extends Service {
                     // Check if call is still active
                     Call currentCall = core != null ? core.getCurrentCall() : null;
                     if (currentCall == null) {
-                        Log.d(TAG, "⚠️ No active call, stopping notification timer");
+                        PluginLog.d(TAG, "⚠️ No active call, stopping notification timer");
                         return;
                     }
 
                     Call.State currentState = currentCall.getState();
-                    Log.d(TAG, "🔄 Updating notification timer - Call state: " + currentState);
+                    PluginLog.v(TAG, "🔄 Updating notification timer - Call state: " + currentState);
 
                     if (currentState == Call.State.Connected || currentState == Call.State.StreamsRunning) {
                         long elapsedMillis = System.currentTimeMillis() - callStartTime[0];
@@ -1367,17 +1443,17 @@ public class LinphoneBackgroundService extends Service {
                         if (notificationManager != null) {
                             // Use the same notification ID as the service notification
                             notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
-                            Log.d(TAG, "✅ Notification updated with timer: " + timeString);
+                            PluginLog.v(TAG, "✅ Notification updated with timer: " + timeString);
                         }
 
                         // Schedule next update in 1 second
                         notificationUpdateHandler.postDelayed(this, 1000);
                     } else {
-                        Log.d(TAG,
+                        PluginLog.d(TAG,
                                 "Call state changed to: " + currentCall.getState() + ", stopping notification timer");
                     }
                 } catch (Exception e) {
-                    Log.e(TAG, "Error updating notification timer", e);
+                    PluginLog.e(TAG, "Error updating notification timer", e);
                     // Stop timer on error
                     if (notificationUpdateHandler != null) {
                         notificationUpdateHandler.removeCallbacks(this);
@@ -1388,7 +1464,7 @@ public class LinphoneBackgroundService extends Service {
 
         // Start the timer
         notificationUpdateHandler.post(notificationUpdateRunnable);
-        Log.d(TAG, "📱 Notification timer started for ongoing call");
+        PluginLog.d(TAG, "📱 Notification timer started for ongoing call");
     }
 
     private void dismissOngoingCallNotification() {
@@ -1418,120 +1494,21 @@ public class LinphoneBackgroundService extends Service {
                 boolean isRegistered = (account != null && account.getState() == RegistrationState.Ok);
                 notificationManager.notify(NOTIFICATION_ID,
                         createNotification("HATIF", registrationStatus, isRegistered));
-                Log.d(TAG, "Call notification dismissed, service notification restored");
+                PluginLog.d(TAG, "Call notification dismissed, service notification restored");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error dismissing ongoing call notification", e);
-        }
-    }
-
-    /**
-     * Schedule a reconnection attempt with exponential backoff
-     */
-    private void scheduleReconnect() {
-        // Cancel any existing reconnection timer
-        cancelReconnectTimer();
-
-        // Calculate delay with exponential backoff
-        // Formula: delay = min(initial_delay * 2^attempts, max_delay)
-        long delay = Math.min(
-                RECONNECT_DELAY_MS * (1L << reconnectAttempts),
-                RECONNECT_MAX_DELAY_MS);
-
-        Log.d(TAG, "⏰ Scheduling reconnection attempt #" + (reconnectAttempts + 1) +
-                " in " + (delay / 1000) + " seconds");
-
-        // Initialize handler if needed
-        if (reconnectHandler == null) {
-            reconnectHandler = new Handler(Looper.getMainLooper());
-        }
-
-        // Create reconnection runnable
-        reconnectRunnable = new Runnable() {
-            @Override
-            public void run() {
-                Log.d(TAG, "🔄 Attempting reconnection #" + (reconnectAttempts + 1));
-                attemptReregistration();
-            }
-        };
-
-        // Schedule the reconnection
-        reconnectHandler.postDelayed(reconnectRunnable, delay);
-
-        // Increment counter for next attempt
-        reconnectAttempts++;
-    }
-
-    /**
-     * Cancel any scheduled reconnection attempts
-     */
-    private void cancelReconnectTimer() {
-        if (reconnectHandler != null && reconnectRunnable != null) {
-            reconnectHandler.removeCallbacks(reconnectRunnable);
-            Log.d(TAG, "⏹️ Reconnection timer cancelled");
-        }
-    }
-
-    /**
-     * Attempt to re-register the account
-     */
-    private void attemptReregistration() {
-        if (core == null) {
-            Log.e(TAG, "❌ Cannot reconnect - Core is null");
-            return;
-        }
-
-        if (!isNetworkAvailable) {
-            Log.d(TAG, "⚠️ Network not available, waiting for network...");
-            updateNotification("HATIF", "No network - Waiting...", false);
-            return;
-        }
-
-        try {
-            // Get the default account
-            Account account = core.getDefaultAccount();
-
-            if (account != null) {
-                // Refresh the account to trigger re-registration
-                Log.d(TAG, "🔄 Refreshing account registration...");
-                AccountParams params = account.getParams();
-                account.setParams(params);
-
-                updateNotification("HATIF", "Reconnecting...", false);
-            } else {
-                // No account exists, try to create one from saved credentials
-                Log.d(TAG, "⚠️ No account found, attempting auto-registration...");
-
-                // Get saved credentials
-                SharedPreferences prefs = getSharedPreferences("FlutterSharedPreferences", MODE_PRIVATE);
-                String savedUsername = prefs.getString("flutter.username", null);
-                String savedPassword = prefs.getString("flutter.password", null);
-                String savedDomain = prefs.getString("flutter.domain", null);
-
-                if (savedUsername != null && savedPassword != null && savedDomain != null) {
-                    Log.d(TAG, "📱 Found saved credentials, attempting auto-registration");
-                    registerAccount(savedUsername, savedPassword, savedDomain);
-                } else {
-                    Log.e(TAG, "❌ No saved credentials found, cannot auto-register");
-                    updateNotification("HATIF", "Registration failed - No credentials", false);
-                    // Stop trying if we have no credentials
-                    reconnectAttempts = 0;
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error during reconnection attempt", e);
-            updateNotification("HATIF", "Reconnection error - Retrying...", false);
-            // Schedule next attempt
-            scheduleReconnect();
+            PluginLog.e(TAG, "Error dismissing ongoing call notification", e);
         }
     }
 
     @Override
     public void onDestroy() {
-        Log.d(TAG, "Service destroyed");
+        PluginLog.d(TAG, "Service destroyed");
 
         // Cancel reconnection timer
-        cancelReconnectTimer();
+        if (controller != null) {
+            controller.cancelReconnect();
+        }
 
         // Stop ringtone
         stopRingtone();
@@ -1541,18 +1518,28 @@ public class LinphoneBackgroundService extends Service {
             notificationUpdateHandler.removeCallbacks(notificationUpdateRunnable);
         }
 
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
-        }
-
         if (core != null) {
-            core.removeListener(coreListener);
-            core.stop();
+            final Core stoppingCore = core;
             core = null;
+            PluginExecutors.runOnCore(() -> {
+                stoppingCore.removeListener(coreListener);
+                if (account != null) {
+                    AccountSetup.release(stoppingCore, CORE_HOLDER, account);
+                    account = null;
+                }
+                CoreOwner.release(CORE_HOLDER);
+            });
+        }
+
+        if (deviceConditionsStarted) {
+            DeviceConditions.removeListener(deviceConditionsListener);
+            DeviceConditions.stop();
+            MainLooperWatchdog.stop();
         }
 
+        HeadlessEngine.stop();
         instance = null;
+        PluginStateTracker.requestUpdate();
         super.onDestroy();
     }
 
@@ -0,0 +1,74 @@
+package com.egytelecoms.hatif;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.linphone.core.Factory;
+import org.linphone.core.LogLevel;
+import org.linphone.core.LoggingServiceListener;
+
+/**
+ * Sends Linphone's log through {@link PluginLog} instead of debug mode's
+ * unconditional logcat output. Linphone is told the lowest level either
+ * output takes, so messages nobody keeps are not produced natively at all.
+ *
+ * Linphone's debug and trace output counts as verbose and its messages,
+ * which include every SIP message, as debug.
+ */
+final class LinphoneLogBridge {
+    private static final String TAG = "Linphone";
+
+    private static boolean attached;
+
+    private static final LoggingServiceListener listener = (service, domain, level, message) ->
+            PluginLog.log(priorityOf(level), domain != null && !domain.isEmpty() ? TAG + "/" + domain : TAG,
+                    message, null);
+
+    private LinphoneLogBridge() {
+    }
+
+    static synchronized void attach(@NonNull Factory factory) {
+        if (attached) {
+            return;
+        }
+        factory.enableLogcatLogs(false);
+        factory.getLoggingService().addListener(listener);
+        attached = true;
+        applyLevel();
+    }
+
+    /** Follows the current {@link PluginLog} levels. */
+    static synchronized void applyLevel() {
+        if (attached) {
+            Factory.instance().getLoggingService().setLogLevel(levelOf(PluginLog.minLevel()));
+        }
+    }
+
+    private static LogLevel levelOf(int priority) {
+        if (priority <= Log.VERBOSE) {
+            return LogLevel.Debug;
+        } else if (priority <= Log.DEBUG) {
+            return LogLevel.Message;
+        } else if (priority <= Log.WARN) {
+            return LogLevel.Warning;
+        } else if (priority <= Log.ERROR) {
+            return LogLevel.Error;
+        }
+        return LogLevel.Fatal;
+    }
+
+    private static int priorityOf(LogLevel level) {
+        switch (level) {
+            case Debug:
+            case Trace:
+                return Log.VERBOSE;
+            case Message:
+                return Log.DEBUG;
+            case Warning:
+                return Log.WARN;
+            default:
+                return Log.ERROR;
+        }
+    }
+}
@@ -1,66 +1,91 @@
 package com.egytelecoms.hatif;
 
 import android.app.Activity;
-import android.os.Bundle;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import io.flutter.embedding.android.FlutterActivity;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
 import io.flutter.plugin.common.BinaryMessenger;
-import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodChannel;
-import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 
 /**
  * LinphonesdkPlugin
+ *
+ * Channels are set up per engine in {@link #onAttachedToEngine}, so the
+ * headless engine started by the background service (see
+ * {@link HeadlessEngine}) gets them too. The activity, when there is one,
+ * is only needed for permission requests and opening screens.
  */
 public class LinphonesdkPlugin implements FlutterPlugin, ActivityAware {
+    static final String LOGIN_EVENTS = "linphonesdk/login_listener";
+    static final String CALL_EVENTS = "linphonesdk/call_event_listener";
+    static final String STATE_EVENTS = "linphonesdk/state_listener";
+    static final String DEVICE_EVENTS = "linphonesdk/device_state";
+
     private MethodChannel channel;
+    private MethodChannelHandler methodCallHandler;
     private EventChannelHelper loginEventListener;
     private EventChannelHelper callEventListener;
+    private EventChannelHelper stateListener;
+    private EventChannelHelper deviceStateListener;
     private Activity activity;
-    //event channel
-    private EventChannel eventChannel;
-    private BinaryMessenger binaryMessenger;
 
 
     @Override
     public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
-        binaryMessenger = flutterPluginBinding.getBinaryMessenger();
+        BinaryMessenger binaryMessenger = flutterPluginBinding.getBinaryMessenger();
+        channel = new MethodChannel(binaryMessenger, "linphonesdk", PluginMessages.PluginCodec.METHOD_CODEC);
+        loginEventListener = new EventChannelHelper(binaryMessenger, LOGIN_EVENTS,
+                EventChannelHelper.DEFAULT_REPLAY_SIZE, EventChannelHelper.DEFAULT_REPLAY_AGE_MS,
+                PluginEvents::currentRegistrations);
+        callEventListener = new EventChannelHelper(binaryMessenger, CALL_EVENTS,
+                EventChannelHelper.DEFAULT_REPLAY_SIZE, EventChannelHelper.DEFAULT_REPLAY_AGE_MS,
+                PluginEvents::currentCalls);
+        // Diffs are useless without their base; late listeners fetch a snapshot
+        stateListener = new EventChannelHelper(binaryMessenger, STATE_EVENTS, 0, 0, null);
+        // Only the latest state matters, which the snapshot provides
+        deviceStateListener = new EventChannelHelper(binaryMessenger, DEVICE_EVENTS, 0, 0,
+                DeviceConditions::snapshot);
+        DeviceConditions.start(flutterPluginBinding.getApplicationContext());
+        MainLooperWatchdog.start();
+        methodCallHandler = new MethodChannelHandler(flutterPluginBinding.getApplicationContext(),
+                loginEventListener, callEventListener);
+        channel.setMethodCallHandler(methodCallHandler);
     }
 
     @Override
     public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
         channel.setMethodCallHandler(null);
+        loginEventListener.dispose();
+        callEventListener.dispose();
+        stateListener.dispose();
+        deviceStateListener.dispose();
+        DeviceConditions.stop();
+        MainLooperWatchdog.stop();
         this.activity = null;
     }
 
     @Override
     public void onAttachedToActivity(@NonNull ActivityPluginBinding binding) {
-        activity = (FlutterActivity) binding.getActivity();
-        channel = new MethodChannel(binaryMessenger, "linphonesdk");
-        loginEventListener = new EventChannelHelper(binaryMessenger, "linphonesdk/login_listener");
-        callEventListener = new EventChannelHelper(binaryMessenger, "linphonesdk/call_event_listener");
-        MethodCallHandler methodCallHandler = new MethodChannelHandler(activity, loginEventListener, callEventListener);
-        channel.setMethodCallHandler(methodCallHandler);
+        activity = binding.getActivity();
+        methodCallHandler.setActivity(activity);
     }
 
     @Override
     public void onDetachedFromActivityForConfigChanges() {
-
+        onDetachedFromActivity();
     }
 
     @Override
     public void onReattachedToActivityForConfigChanges(@NonNull ActivityPluginBinding binding) {
-
+        onAttachedToActivity(binding);
     }
 
     @Override
     public void onDetachedFromActivity() {
-
+        activity = null;
+        methodCallHandler.setActivity(null);
     }
 }
@@ -0,0 +1,343 @@
+package com.egytelecoms.hatif;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Printer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times every message the main looper dispatches, through its message
+ * logging {@link Printer}, to find what is behind main-thread jank and ANRs.
+ *
+ * Messages that take longer than the slow threshold are attributed to the
+ * plugin component that posted them, from the handler and callback classes
+ * the looper names, and counted per component along with the slowest
+ * messages seen. A message still running after the stall threshold is
+ * reported with the main thread's stack, checked from a background thread
+ * that only wakes up while the main thread is busy.
+ *
+ * The plugin and the background service each {@link #start} and
+ * {@link #stop} it; it runs while either does and "set_main_thread_watchdog"
+ * has not turned it off. The looper only has one printer, so this replaces
+ * any other set by the app.
+ */
+final class MainLooperWatchdog {
+    private static final String TAG = "MainLooperWatchdog";
+    static final long DEFAULT_SLOW_MS = 50;
+    static final long DEFAULT_STALL_MS = 1000;
+    private static final int WORST_SIZE = 10;
+    private static final int STACK_DEPTH = 24;
+    private static final String OTHER = "other";
+
+    // Component and the class name prefixes attributed to it, first match wins
+    private static final String[][] COMPONENTS = {
+            {"service", "com.egytelecoms.hatif.LinphoneBackgroundService", "com.egytelecoms.hatif.ServiceController"},
+            {"IncomingCallActivity", "com.egytelecoms.hatif.IncomingCallActivity",
+                    "com.linphoneflutterplugin.IncomingCallAnimator"},
+            {"CallActivity", "com.egytelecoms.hatif.CallActivity"},
+            {"EventChannelHelper", "com.egytelecoms.hatif.EventChannelHelper"},
+            {"methodChannel", "com.egytelecoms.hatif.MainThreadResult", "com.egytelecoms.hatif.MethodChannelHandler"},
+            {"plugin", "com.egytelecoms.hatif.", "com.linphoneflutterplugin."},
+            {"linphone", "org.linphone."},
+    };
+
+    private static final class Slow {
+        final String component;
+        final String message;
+        final long durationMs;
+        final long uptimeMs;
+
+        Slow(String component, String message, long durationMs, long uptimeMs) {
+            this.component = component;
+            this.message = message;
+            this.durationMs = durationMs;
+            this.uptimeMs = uptimeMs;
+        }
+    }
+
+    private static final class ComponentStats {
+        long slow;
+        long totalMs;
+        long maxMs;
+    }
+
+    private static int starts;
+    private static boolean enabled = true;
+    private static HandlerThread watchdogThread;
+    private static volatile Handler watchdogHandler;
+    private static volatile long slowMs = DEFAULT_SLOW_MS;
+    private static volatile long stallMs = DEFAULT_STALL_MS;
+
+    // Written on the main thread, read by the stall check
+    private static volatile String dispatching;
+    private static volatile long dispatchStartMs;
+    private static volatile long dispatchSequence;
+    private static volatile boolean checkPending;
+    // Stall check only
+    private static long reportedSequence = -1;
+
+    // Main thread only
+    private static long dispatched;
+    // Guarded by the class
+    private static long slowTotal;
+    private static long stalls;
+    private static final Map<String, ComponentStats> components = new HashMap<>();
+    private static final List<Slow> worst = new ArrayList<>(WORST_SIZE + 1);
+    @Nullable
+    private static Map<String, Object> lastStall;
+
+    private static final Printer printer = line -> {
+        if (line.startsWith(">>>>>")) {
+            dispatching = line;
+            dispatchStartMs = SystemClock.uptimeMillis();
+            dispatchSequence++;
+            Handler handler = watchdogHandler;
+            if (!checkPending && handler != null) {
+                checkPending = true;
+                handler.postDelayed(MainLooperWatchdog::checkStall, stallMs);
+            }
+        } else if (line.startsWith("<<<<<")) {
+            String message = dispatching;
+            dispatching = null;
+            if (message != null) {
+                onDispatched(message, SystemClock.uptimeMillis() - dispatchStartMs);
+            }
+        }
+    };
+
+    private MainLooperWatchdog() {
+    }
+
+    static synchronized void start() {
+        if (starts++ == 0 && enabled) {
+            install();
+        }
+    }
+
+    static synchronized void stop() {
+        if (starts == 0) {
+            return;
+        }
+        if (--starts == 0 && enabled) {
+            uninstall();
+        }
+    }
+
+    /** Turns the watchdog on or off and changes its thresholds; null and non-positive values are left unchanged. */
+    static synchronized void configure(@Nullable Boolean enabled, long slowMs, long stallMs) {
+        if (slowMs > 0) {
+            MainLooperWatchdog.slowMs = slowMs;
+        }
+        if (stallMs > 0) {
+            MainLooperWatchdog.stallMs = stallMs;
+        }
+        if (enabled == null || enabled == MainLooperWatchdog.enabled) {
+            return;
+        }
+        if (starts > 0) {
+            if (enabled) {
+                install();
+            } else {
+                uninstall();
+            }
+        }
+        MainLooperWatchdog.enabled = enabled;
+    }
+
+    private static void install() {
+        watchdogThread = new HandlerThread("linphone-watchdog", Process.THREAD_PRIORITY_BACKGROUND);
+        watchdogThread.start();
+        watchdogHandler = new Handler(watchdogThread.getLooper());
+        checkPending = false;
+        PluginExecutors.runOnMain(() -> Looper.getMainLooper().setMessageLogging(printer));
+    }
+
+    private static void uninstall() {
+        Handler handler = watchdogHandler;
+        HandlerThread thread = watchdogThread;
+        watchdogHandler = null;
+        watchdogThread = null;
+        PluginExecutors.runOnMain(() -> {
+            // Unless started again in the meantime
+            if (watchdogHandler == null) {
+                Looper.getMainLooper().setMessageLogging(null);
+                dispatching = null;
+            }
+            handler.removeCallbacksAndMessages(null);
+            thread.quitSafely();
+        });
+    }
+
+    private static void onDispatched(String message, long durationMs) {
+        dispatched++;
+        if (durationMs < slowMs) {
+            return;
+        }
+        synchronized (MainLooperWatchdog.class) {
+            String component = componentOf(message);
+            slowTotal++;
+            ComponentStats stats = components.get(component);
+            if (stats == null) {
+                stats = new ComponentStats();
+                components.put(component, stats);
+            }
+            stats.slow++;
+            stats.totalMs += durationMs;
+            stats.maxMs = Math.max(stats.maxMs, durationMs);
+            if (worst.size() < WORST_SIZE || durationMs > worst.get(worst.size() - 1).durationMs) {
+                int i = worst.size();
+                while (i > 0 && worst.get(i - 1).durationMs < durationMs) {
+                    i--;
+                }
+                worst.add(i, new Slow(component, describe(message), durationMs, SystemClock.uptimeMillis()));
+                if (worst.size() > WORST_SIZE) {
+                    worst.remove(WORST_SIZE);
+                }
+            }
+        }
+        if (PluginLog.isLoggable(Log.DEBUG)) {
+            PluginLog.d(TAG, "Slow main thread message (" + durationMs + " ms): " + describe(message));
+        }
+    }
+
+    /** On the watchdog thread, {@link #stallMs} after a dispatch started. */
+    private static void checkStall() {
+        String message = dispatching;
+        long sequence = dispatchSequence;
+        long elapsed = SystemClock.uptimeMillis() - dispatchStartMs;
+        Handler handler = watchdogHandler;
+        if (handler == null) {
+            return;
+        }
+        if (message == null) {
+            checkPending = false;
+            // A dispatch that started before the flag was cleared would not have posted a check
+            if (dispatching != null) {
+                checkPending = true;
+                handler.postDelayed(MainLooperWatchdog::checkStall, stallMs);
+            }
+            return;
+        }
+        if (elapsed < stallMs || sequence == reportedSequence) {
+            // Another message started since, or this one was already reported
+            handler.postDelayed(MainLooperWatchdog::checkStall, Math.max(stallMs - elapsed, 1));
+            return;
+        }
+        reportedSequence = sequence;
+        StackTraceElement[] trace = Looper.getMainLooper().getThread().getStackTrace();
+        String stack = format(trace);
+        String component = componentOf(message);
+        // The stack shows what the message is doing, which may be in a different component
+        String running = componentOfStack(trace);
+        PluginLog.w(TAG, "Main thread stalled for " + elapsed + " ms in " + describe(message) + "\n" + stack);
+        Map<String, Object> stall = new HashMap<>();
+        stall.put("component", component);
+        stall.put("running", running);
+        stall.put("message", describe(message));
+        stall.put("elapsedMs", elapsed);
+        stall.put("uptimeMs", SystemClock.uptimeMillis());
+        stall.put("stack", stack);
+        synchronized (MainLooperWatchdog.class) {
+            stalls++;
+            lastStall = stall;
+        }
+        handler.postDelayed(MainLooperWatchdog::checkStall, stallMs);
+    }
+
+    /**
+     * Called on the main thread.
+     *
+     * @return messages dispatched, slow and stalled counts, slow counts and
+     *         times per component, the slowest messages and the last stall,
+     *         ready to be sent over the channel
+     */
+    static Map<String, Object> snapshot(boolean reset) {
+        Map<String, Object> snapshot = new HashMap<>();
+        synchronized (MainLooperWatchdog.class) {
+            snapshot.put("enabled", enabled && starts > 0);
+            snapshot.put("slowMs", slowMs);
+            snapshot.put("stallMs", stallMs);
+            snapshot.put("dispatched", dispatched);
+            snapshot.put("slow", slowTotal);
+            snapshot.put("stalls", stalls);
+            Map<String, Object> byComponent = new LinkedHashMap<>();
+            for (Map.Entry<String, ComponentStats> entry : components.entrySet()) {
+                ComponentStats stats = entry.getValue();
+                Map<String, Object> values = new HashMap<>();
+                values.put("slow", stats.slow);
+                values.put("avgMs", stats.totalMs / stats.slow);
+                values.put("maxMs", stats.maxMs);
+                byComponent.put(entry.getKey(), values);
+            }
+            snapshot.put("components", byComponent);
+            List<Object> worstList = new ArrayList<>(worst.size());
+            for (Slow slow : worst) {
+                Map<String, Object> values = new HashMap<>();
+                values.put("component", slow.component);
+                values.put("message", slow.message);
+                values.put("durationMs", slow.durationMs);
+                values.put("uptimeMs", slow.uptimeMs);
+                worstList.add(values);
+            }
+            snapshot.put("worst", worstList);
+            snapshot.put("lastStall", lastStall);
+            if (reset) {
+                dispatched = 0;
+                slowTotal = 0;
+                stalls = 0;
+                components.clear();
+                worst.clear();
+                lastStall = null;
+            }
+        }
+        return snapshot;
+    }
+
+    @NonNull
+    static String componentOf(@NonNull String message) {
+        for (String[] component : COMPONENTS) {
+            for (int i = 1; i < component.length; i++) {
+                if (message.contains(component[i])) {
+                    return component[0];
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    private static String componentOfStack(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            String component = componentOf(element.getClassName());
+            if (!OTHER.equals(component)) {
+                return component;
+            }
+        }
+        return OTHER;
+    }
+
+    /** Drops the looper's ">>>>> Dispatching to " prefix. */
+    private static String describe(String message) {
+        int start = message.indexOf(" to ");
+        return start >= 0 ? message.substring(start + 4) : message;
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < stack.length && i < STACK_DEPTH; i++) {
+            text.append("    at ").append(stack[i]).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * Result wrapper that always replies on the platform main thread, so command
+ * handlers running on the core thread or the I/O pool can complete safely.
+ */
+class MainThreadResult implements MethodChannel.Result {
+    private final MethodChannel.Result delegate;
+
+    MainThreadResult(@NonNull MethodChannel.Result delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void success(@Nullable Object result) {
+        PluginExecutors.runOnMain(() -> delegate.success(result));
+    }
+
+    @Override
+    public void error(@NonNull String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+        PluginExecutors.runOnMain(() -> delegate.error(errorCode, errorMessage, errorDetails));
+    }
+
+    @Override
+    public void notImplemented() {
+        PluginExecutors.runOnMain(delegate::notImplemented);
+    }
+}
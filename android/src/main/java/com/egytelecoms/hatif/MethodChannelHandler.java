@@ -5,10 +5,14 @@ import android.app.Activity;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import org.linphone.core.CallLog;
-
-import java.util.Map;
+import com.egytelecoms.hatif.PluginMessages.CallLogQuery;
+import com.egytelecoms.hatif.PluginMessages.CallRequest;
+import com.egytelecoms.hatif.PluginMessages.HistorySearch;
+import com.egytelecoms.hatif.PluginMessages.LoginRequest;
+import com.egytelecoms.hatif.PluginMessages.TransferRequest;
+import com.linphoneflutterplugin.IncomingCallAnimator;
 
 import io.flutter.embedding.android.FlutterActivity;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
@@ -20,139 +24,189 @@ public class MethodChannelHandler extends FlutterActivity implements MethodChann
     private EventChannelHelper loginEventListener;
     private EventChannelHelper callEventListener;
     private LinPhoneHelper linPhoneHelper;
-    private Activity activity;
+    private final Context context;
+    // Null while the engine runs headless
+    private volatile Activity activity;
+    private final CommandRegistry registry = new CommandRegistry();
 
-    public MethodChannelHandler(Activity activity,
+    public MethodChannelHandler(Context context,
             EventChannelHelper loginEventListener, EventChannelHelper callEventListener) {
 
         this.loginEventListener = loginEventListener;
         this.callEventListener = callEventListener;
-        this.linPhoneHelper = new LinPhoneHelper(activity, loginEventListener, callEventListener);
+        this.linPhoneHelper = new LinPhoneHelper(context, loginEventListener, callEventListener);
+        this.context = context;
+        registerCommands();
+    }
+
+    public void setActivity(@Nullable Activity activity) {
         this.activity = activity;
     }
 
     @Override
     public void onMethodCall(@NonNull MethodCall call, @NonNull MethodChannel.Result result) {
-        switch (call.method) {
-
-            case "login":
-                Map data = (Map) call.arguments;
-                String userName = (String) data.get("userName");
-                String domain = (String) data.get("domain");
-                String password = (String) data.get("password");
-                linPhoneHelper.login(userName, domain, password);
-                result.success("Success");
-                break;
-            case "remove_listener":
-                linPhoneHelper.removeLoginListener();
-                result.success(true);
-                break;
-            case "remove_call_listener":
-                linPhoneHelper.removeCallListener();
-                result.success(true);
-                break;
-            case "hangUp":
-                linPhoneHelper.hangUp();
-                result.success(true);
-                break;
-            case "mute":
-                boolean isMuted = linPhoneHelper.toggleMute();
-                result.success(isMuted);
-                break;
-
-            case "call":
-                Map callData = (Map) call.arguments;
-                String number = (String) callData.get("number");
-
-                // Check if background service is running
-                LinphoneBackgroundService service = LinphoneBackgroundService.getInstance();
-                if (service != null) {
-                    // Use background service for call (preferred method)
-                    boolean callSuccess = LinphoneBackgroundService.makeCall(number);
-                    result.success(callSuccess);
-                } else {
-                    // Fallback to old method if service not running
-                    linPhoneHelper.call(number);
-                    result.success(true);
-                }
-                break;
-            case "transfer":
-                Map destinationMap = (Map) call.arguments;
-                String destination = (String) destinationMap.get("destination");
-                boolean isTransferred = linPhoneHelper.callForward(destination);
-                result.success(isTransferred);
-                break;
-            case "toggle_speaker":
-                linPhoneHelper.toggleSpeaker();
-                result.success(true);
-                break;
-            case "call_logs":
-                String list = linPhoneHelper.callLogs();
-                result.success(list);
-                break;
-            case "request_permissions":
-                try {
-                    String[] permissionArrays = new String[] {
-                            Manifest.permission.CAMERA,
-                            Manifest.permission.USE_SIP,
-                            Manifest.permission.RECORD_AUDIO,
-                            Manifest.permission.ACCESS_NETWORK_STATE,
-                            Manifest.permission.CHANGE_NETWORK_STATE,
-                            Manifest.permission.ACCESS_WIFI_STATE,
-                            Manifest.permission.CHANGE_WIFI_STATE,
-                            Manifest.permission.MANAGE_OWN_CALLS,
-                    };
-                    boolean isSuccess = new Utils().checkPermissions(permissionArrays, activity);
-                    if (isSuccess) {
-                        result.success(true);
-                    } else {
-                        result.error("Permission Error", "Permission is not granted.", "Error");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    result.error(null, e.toString(), null);
-                }
-                break;
-            case "answerCall":
-                linPhoneHelper.answerCall();
-                result.success(true);
-                break;
-            case "rejectCall":
-                linPhoneHelper.rejectCall();
-                result.success(true);
-                break;
-            case "start_background_service":
-                Map serviceData = (Map) call.arguments;
-                String svcUsername = (String) serviceData.get("userName");
-                String svcDomain = (String) serviceData.get("domain");
-                String svcPassword = (String) serviceData.get("password");
-                startBackgroundService(svcUsername, svcPassword, svcDomain);
-                result.success(true);
-                break;
-            case "stop_background_service":
-                stopBackgroundService();
-                result.success(true);
-                break;
-            case "is_service_running":
-                boolean isRunning = isServiceRunning();
-                result.success(isRunning);
-                break;
-            case "has_active_call":
-                boolean hasCall = hasActiveCall();
-                result.success(hasCall);
-                break;
-            case "open_call_screen":
-                openCallScreen();
-                result.success(true);
-                break;
-            case "get_current_registration_state":
-                String registrationState = getCurrentRegistrationState();
-                result.success(registrationState);
-                break;
-            default:
-                result.notImplemented();
-                break;
+        if (CommandBatch.METHOD.equals(call.method)) {
+            CommandBatch.execute(registry, call.arguments, result);
+            return;
         }
+        if (!registry.contains(call.method)) {
+            result.notImplemented();
+            return;
+        }
+        ExecutionClass executionClass = registry.executionClassOf(call.method);
+        MethodChannel.Result reply = executionClass == ExecutionClass.UI ? result : new MainThreadResult(result);
+        PluginExecutors.execute(executionClass, () -> {
+            if (registry.wakesCore(call.method)) {
+                // A suspended core must iterate for the command to take effect
+                CoreOwner.wake(call.method);
+            }
+            try {
+                reply.success(registry.dispatch(call.method, call.arguments));
+            } catch (PluginException e) {
+                reply.error(e.getCode(), e.getMessage(), e.getDetails());
+            } catch (Exception e) {
+                PluginLog.e(TAG, "Command " + call.method + " failed", e);
+                reply.error(null, e.toString(), null);
+            }
+        });
+    }
+
+    private void registerCommands() {
+        registry.register("login", ExecutionClass.CORE, LoginRequest::fromArguments,
+                request -> linPhoneHelper.login(request.getUserName(), request.getDomain(), request.getPassword()));
+        registry.register("remove_listener", ExecutionClass.CORE, () -> {
+            linPhoneHelper.removeLoginListener();
+            return true;
+        });
+        registry.register("remove_call_listener", ExecutionClass.CORE, () -> {
+            linPhoneHelper.removeCallListener();
+            return true;
+        });
+        registry.register("hangUp", ExecutionClass.CORE, () -> {
+            linPhoneHelper.hangUp();
+            return true;
+        });
+        registry.register("mute", ExecutionClass.CORE, () -> linPhoneHelper.toggleMute());
+        registry.register("call", ExecutionClass.CORE, CallRequest::fromArguments, request -> {
+            // Check if background service is running
+            if (LinphoneBackgroundService.getInstance() != null) {
+                // Use background service for call (preferred method)
+                return LinphoneBackgroundService.makeCall(request.getNumber());
+            }
+            // Fallback to old method if service not running
+            linPhoneHelper.call(request.getNumber());
+            return true;
+        });
+        registry.register("transfer", ExecutionClass.CORE, TransferRequest::fromArguments,
+                request -> linPhoneHelper.callForward(request.getDestination()));
+        registry.register("toggle_speaker", ExecutionClass.CORE, () -> {
+            linPhoneHelper.toggleSpeaker();
+            return true;
+        });
+        registry.registerCoreRead("call_logs", CallLogQuery::fromArguments,
+                query -> query != null ? linPhoneHelper.callLogs(query) : linPhoneHelper.callLogs());
+        registry.registerCoreRead("get_call_statistics", arguments -> arguments,
+                CallStatistics::summaryFor);
+        registry.registerCoreRead("call_logs_columns", () -> linPhoneHelper.callLogColumns());
+        registry.register("search_call_history", ExecutionClass.IO, HistorySearch::fromArguments,
+                CallHistoryIndex::search);
+        registry.register("request_permissions", ExecutionClass.UI, () -> {
+            String[] permissionArrays = new String[] {
+                    Manifest.permission.CAMERA,
+                    Manifest.permission.USE_SIP,
+                    Manifest.permission.RECORD_AUDIO,
+                    Manifest.permission.ACCESS_NETWORK_STATE,
+                    Manifest.permission.CHANGE_NETWORK_STATE,
+                    Manifest.permission.ACCESS_WIFI_STATE,
+                    Manifest.permission.CHANGE_WIFI_STATE,
+                    Manifest.permission.MANAGE_OWN_CALLS,
+            };
+            Activity activity = this.activity;
+            if (activity == null) {
+                throw new PluginException("No Activity", "Permissions can only be requested from an activity", null);
+            }
+            boolean isSuccess = new Utils().checkPermissions(permissionArrays, activity);
+            if (!isSuccess) {
+                throw new PluginException("Permission Error", "Permission is not granted.", "Error");
+            }
+            return true;
+        });
+        registry.register("answerCall", ExecutionClass.CORE, () -> {
+            linPhoneHelper.answerCall();
+            return true;
+        });
+        registry.register("rejectCall", ExecutionClass.CORE, () -> {
+            linPhoneHelper.rejectCall();
+            return true;
+        });
+        registry.register("start_background_service", ExecutionClass.IO, LoginRequest::fromArguments, request -> {
+            startBackgroundService(request.getUserName(), request.getPassword(), request.getDomain());
+            return true;
+        });
+        registry.register("stop_background_service", ExecutionClass.IO, () -> {
+            stopBackgroundService();
+            return true;
+        });
+        registry.register("is_service_running", ExecutionClass.UI, this::isServiceRunning);
+        registry.registerCoreRead("has_active_call", this::hasActiveCall);
+        registry.register("open_call_screen", ExecutionClass.CORE, () -> {
+            openCallScreen();
+            return true;
+        });
+        registry.registerCoreRead("get_current_registration_state", this::getCurrentRegistrationState);
+        registry.registerCoreRead("get_state_snapshot", PluginStateTracker::refresh);
+        registry.register("get_core_status", ExecutionClass.UI, CoreOwner::snapshot);
+        registry.register("set_core_idle_shutdown", ExecutionClass.UI, PluginMessages::asDelayMs, delayMs -> {
+            CoreOwner.setIdleShutdownDelay(delayMs);
+            return true;
+        });
+        registry.register("set_core_idle_suspend", ExecutionClass.UI, PluginMessages::asDelayMs, delayMs -> {
+            CoreOwner.setIdleSuspendDelay(delayMs);
+            return true;
+        });
+        registry.register("wake_core", ExecutionClass.CORE,
+                arguments -> arguments instanceof String ? (String) arguments : "push", CoreOwner::wake);
+        registry.register("get_dispatch_stats", ExecutionClass.UI, registry::snapshotStats);
+        registry.register("get_event_stats", ExecutionClass.UI, EventChannelHelper::snapshotAllStats);
+        registry.register("get_animation_stats", ExecutionClass.UI, IncomingCallAnimator::lastReport);
+        registry.register("get_main_thread_stats", ExecutionClass.UI, arguments -> Boolean.TRUE.equals(arguments),
+                MainLooperWatchdog::snapshot);
+        registry.register("set_main_thread_watchdog", ExecutionClass.UI, PluginMessages::asMap, arguments -> {
+            Object slowMs = arguments.get("slowMs");
+            Object stallMs = arguments.get("stallMs");
+            Object enabled = arguments.get("enabled");
+            MainLooperWatchdog.configure(enabled instanceof Boolean ? (Boolean) enabled : null,
+                    slowMs instanceof Number ? ((Number) slowMs).longValue() : 0,
+                    stallMs instanceof Number ? ((Number) stallMs).longValue() : 0);
+            return null;
+        });
+        registry.register("set_log_level", ExecutionClass.UI, PluginMessages::asMap, arguments -> {
+            Object bufferSize = arguments.get("bufferSize");
+            PluginLog.configure(PluginLog.parseLevel(arguments.get("logcat"), PluginLog.logcatLevel()),
+                    PluginLog.parseLevel(arguments.get("buffer"), PluginLog.bufferLevel()),
+                    bufferSize instanceof Number ? ((Number) bufferSize).intValue() : 0);
+            LinphoneLogBridge.applyLevel();
+            return null;
+        });
+        registry.register("export_logs", ExecutionClass.IO, arguments -> Boolean.TRUE.equals(arguments),
+                PluginLog::export);
+        registry.register("set_call_routing_rules", ExecutionClass.IO, PluginMessages::asMap,
+                CallRoutingRules::load);
+        registry.register("get_call_routing_stats", ExecutionClass.UI, CallRoutingRules::snapshotStats);
+        registry.register("set_incoming_call_policy", ExecutionClass.UI, PluginMessages::asMap, arguments -> {
+            IncomingCallPolicy.set(IncomingCallPolicy.fromArguments(arguments));
+            return null;
+        });
+        registry.register("get_incoming_call_stats", ExecutionClass.UI, arguments -> Boolean.TRUE.equals(arguments),
+                IncomingCallPolicy::snapshotStats);
+        registry.register("set_event_replay", ExecutionClass.UI, PluginMessages::asMap,
+                EventChannelHelper::configureReplay);
+        registry.register("set_headless_callback", ExecutionClass.IO, arguments -> {
+            if (!(arguments instanceof Number)) {
+                throw new PluginException("Invalid Arguments", "Expected a callback handle", String.valueOf(arguments));
+            }
+            return ((Number) arguments).longValue();
+        }, handle -> HeadlessEngine.setCallbackHandle(context, handle));
     }
 
     private boolean hasActiveCall() {
@@ -185,40 +239,46 @@ public class MethodChannelHandler extends FlutterActivity implements MethodChann
                     }
                 }
 
-                android.content.Intent intent = new android.content.Intent(activity, CallActivity.class);
+                Activity activity = this.activity;
+                android.content.Intent intent = new android.content.Intent(context, CallActivity.class);
                 intent.putExtra("caller_name", callerName);
                 intent.putExtra("caller_number", callerNumber);
                 intent.addFlags(android.content.Intent.FLAG_ACTIVITY_REORDER_TO_FRONT);
-                activity.startActivity(intent);
+                if (activity != null) {
+                    activity.startActivity(intent);
+                } else {
+                    intent.addFlags(android.content.Intent.FLAG_ACTIVITY_NEW_TASK);
+                    context.startActivity(intent);
+                }
             }
         }
     }
 
     private void startBackgroundService(String username, String password, String domain) {
         // Check for RECORD_AUDIO permission before starting the service
-        if (androidx.core.content.ContextCompat.checkSelfPermission(activity,
+        if (androidx.core.content.ContextCompat.checkSelfPermission(context,
                 android.Manifest.permission.RECORD_AUDIO) != android.content.pm.PackageManager.PERMISSION_GRANTED) {
-            android.util.Log.e("LinphonePlugin",
+            PluginLog.e("LinphonePlugin",
                     "RECORD_AUDIO permission not granted! Cannot start background service.");
             throw new SecurityException("RECORD_AUDIO permission is required to start the background service");
         }
 
-        android.content.Intent intent = new android.content.Intent(activity, LinphoneBackgroundService.class);
+        android.content.Intent intent = new android.content.Intent(context, LinphoneBackgroundService.class);
         intent.setAction("REGISTER");
         intent.putExtra("username", username);
         intent.putExtra("password", password);
         intent.putExtra("domain", domain);
 
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-            activity.startForegroundService(intent);
+            context.startForegroundService(intent);
         } else {
-            activity.startService(intent);
+            context.startService(intent);
         }
     }
 
     private void stopBackgroundService() {
-        android.content.Intent intent = new android.content.Intent(activity, LinphoneBackgroundService.class);
-        activity.stopService(intent);
+        android.content.Intent intent = new android.content.Intent(context, LinphoneBackgroundService.class);
+        context.stopService(intent);
     }
 
     private boolean isServiceRunning() {
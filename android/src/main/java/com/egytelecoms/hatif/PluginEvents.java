@@ -0,0 +1,116 @@
+package com.egytelecoms.hatif;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.egytelecoms.hatif.PluginMessages.CallEvent;
+import com.egytelecoms.hatif.PluginMessages.RegistrationEvent;
+
+import org.linphone.core.Account;
+import org.linphone.core.Address;
+import org.linphone.core.Call;
+import org.linphone.core.CallLog;
+import org.linphone.core.Core;
+import org.linphone.core.Reason;
+import org.linphone.core.RegistrationState;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the typed event records sent on the call and login event channels.
+ */
+final class PluginEvents {
+    /** Call states forwarded to Dart; the others are internal transitions. */
+    private static final Set<Call.State> REPORTED_CALL_STATES = EnumSet.of(
+            Call.State.IncomingReceived, Call.State.OutgoingInit, Call.State.OutgoingProgress,
+            Call.State.OutgoingRinging, Call.State.Connected, Call.State.StreamsRunning,
+            Call.State.Paused, Call.State.PausedByRemote, Call.State.Updating,
+            Call.State.UpdatedByRemote, Call.State.Released, Call.State.EarlyUpdatedByRemote,
+            Call.State.Error);
+
+    private PluginEvents() {
+    }
+
+    static boolean isReported(@NonNull Call.State state) {
+        return REPORTED_CALL_STATES.contains(state);
+    }
+
+    @NonNull
+    static CallEvent forCall(@NonNull Call call, @NonNull String state) {
+        CallLog log = call.getCallLog();
+        Address remote = call.getRemoteAddress();
+        Reason reason = call.getReason();
+        return new CallEvent(
+                log != null ? log.getCallId() : null,
+                SystemClock.elapsedRealtime(),
+                state,
+                reason != null && reason != Reason.None ? reason.name() : null,
+                remote != null ? remote.asStringUriOnly() : null,
+                remote != null ? remote.getDisplayName() : null);
+    }
+
+    @NonNull
+    static RegistrationEvent forAccount(@Nullable Account account, @NonNull RegistrationState state,
+            @Nullable String message) {
+        Address identity = account != null ? account.getParams().getIdentityAddress() : null;
+        return new RegistrationEvent(
+                identity != null ? identity.asStringUriOnly() : null,
+                SystemClock.elapsedRealtime(),
+                state.name(),
+                message);
+    }
+
+    /** One event per current call, in its current state. */
+    @NonNull
+    static List<Object> currentCalls() {
+        List<Object> events = new ArrayList<>();
+        Core core = PluginStateTracker.currentCore();
+        if (core != null) {
+            for (Call call : core.getCalls()) {
+                events.add(forCall(call, call.getState().name()));
+            }
+        }
+        return events;
+    }
+
+    /** One event per account, in its current registration state. */
+    @NonNull
+    static List<Object> currentRegistrations() {
+        List<Object> events = new ArrayList<>();
+        Core core = PluginStateTracker.currentCore();
+        if (core != null) {
+            for (Account account : core.getAccountList()) {
+                events.add(forAccount(account, account.getState(), null));
+            }
+        }
+        return events;
+    }
+
+    /** The call or account an event describes, or null for other events. */
+    @Nullable
+    static Object keyOf(@Nullable Object event) {
+        if (event instanceof CallEvent) {
+            return "call:" + ((CallEvent) event).getCallId();
+        }
+        if (event instanceof RegistrationEvent) {
+            return "account:" + ((RegistrationEvent) event).getIdentity();
+        }
+        return null;
+    }
+
+    @Nullable
+    static String stateOf(@Nullable Object event) {
+        if (event instanceof CallEvent) {
+            return ((CallEvent) event).getState();
+        }
+        if (event instanceof RegistrationEvent) {
+            return ((RegistrationEvent) event).getState();
+        }
+        return null;
+    }
+}
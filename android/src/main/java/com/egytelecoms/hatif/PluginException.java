@@ -0,0 +1,30 @@
+package com.egytelecoms.hatif;
+
+/**
+ * Error raised by a plugin command. Carries the code, message and details
+ * that are handed to {@code MethodChannel.Result.error}.
+ */
+public class PluginException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final String code;
+    private final Object details;
+
+    public PluginException(String code, String message) {
+        this(code, message, null);
+    }
+
+    public PluginException(String code, String message, Object details) {
+        super(message);
+        this.code = code;
+        this.details = details;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Object getDetails() {
+        return details;
+    }
+}
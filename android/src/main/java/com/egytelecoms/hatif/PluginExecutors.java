@@ -0,0 +1,150 @@
+package com.egytelecoms.hatif;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import org.linphone.core.Core;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads used by the plugin.
+ *
+ * The core thread owns every Linphone {@link Core}: cores registered with
+ * {@link #startIterating(Core)} are iterated on it every 20 ms, or at the
+ * {@link #setIdleIterateInterval idle interval} while there is no call, so
+ * work posted with {@link ExecutionClass#CORE} never races with
+ * {@code iterate()}.
+ */
+public final class PluginExecutors {
+    private static final String TAG = "PluginExecutors";
+    static final long ITERATE_INTERVAL_MS = 20;
+    private static final int IO_THREADS = 2;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final CopyOnWriteArrayList<Core> iteratedCores = new CopyOnWriteArrayList<>();
+    private static HandlerThread coreThread;
+    private static Handler coreHandler;
+    private static ExecutorService ioPool;
+    // Used instead of ITERATE_INTERVAL_MS while no core has a call
+    private static volatile long idleIterateIntervalMs = ITERATE_INTERVAL_MS;
+
+    private static final Runnable iterateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            boolean inCall = false;
+            for (Core core : iteratedCores) {
+                core.iterate();
+                inCall |= core.getCallsNb() > 0;
+            }
+            if (!iteratedCores.isEmpty()) {
+                coreHandler.postDelayed(this, inCall ? ITERATE_INTERVAL_MS : idleIterateIntervalMs);
+            }
+        }
+    };
+
+    private PluginExecutors() {
+    }
+
+    public static Handler mainHandler() {
+        return mainHandler;
+    }
+
+    public static synchronized Handler coreHandler() {
+        if (coreHandler == null) {
+            coreThread = new HandlerThread("linphone-core", Process.THREAD_PRIORITY_URGENT_AUDIO);
+            coreThread.start();
+            coreHandler = new Handler(coreThread.getLooper());
+        }
+        return coreHandler;
+    }
+
+    public static synchronized ExecutorService ioPool() {
+        if (ioPool == null) {
+            AtomicInteger count = new AtomicInteger();
+            ioPool = Executors.newFixedThreadPool(IO_THREADS, runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "linphone-io-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return ioPool;
+    }
+
+    public static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    public static boolean isCoreThread() {
+        return Looper.myLooper() == coreHandler().getLooper();
+    }
+
+    public static void runOnMain(@NonNull Runnable runnable) {
+        if (isMainThread()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+
+    public static void runOnCore(@NonNull Runnable runnable) {
+        if (isCoreThread()) {
+            runnable.run();
+        } else {
+            coreHandler().post(runnable);
+        }
+    }
+
+    /**
+     * Runs {@code runnable} on the thread for {@code executionClass}. UI work
+     * already on the main thread runs inline.
+     */
+    public static void execute(@NonNull ExecutionClass executionClass, @NonNull Runnable runnable) {
+        switch (executionClass) {
+            case UI:
+                runOnMain(runnable);
+                break;
+            case CORE:
+                runOnCore(runnable);
+                break;
+            case IO:
+                ioPool().execute(runnable);
+                break;
+        }
+    }
+
+    /**
+     * Starts iterating {@code core} on the core thread. The core must have
+     * auto-iteration disabled so it is not also iterated on the main looper.
+     */
+    public static void startIterating(@NonNull Core core) {
+        if (iteratedCores.addIfAbsent(core) && iteratedCores.size() == 1) {
+            coreHandler().post(iterateRunnable);
+        }
+    }
+
+    /**
+     * Iteration interval while no call is up; calls are always iterated every
+     * {@link #ITERATE_INTERVAL_MS}.
+     */
+    public static void setIdleIterateInterval(long intervalMs) {
+        idleIterateIntervalMs = Math.max(intervalMs, ITERATE_INTERVAL_MS);
+    }
+
+    public static void stopIterating(@NonNull Core core) {
+        iteratedCores.remove(core);
+        if (iteratedCores.isEmpty() && coreHandler != null) {
+            coreHandler.removeCallbacks(iterateRunnable);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.egytelecoms.hatif;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * The plugin's log, with levels that can be changed at runtime through
+ * "set_log_level".
+ *
+ * Messages at or above the logcat level go to logcat; messages at or above
+ * the buffer level are kept in a bounded in-memory ring buffer that
+ * "export_logs" returns for support tickets. Anything below both is dropped
+ * before it is formatted. Linphone's own log goes through the same levels
+ * once {@link LinphoneLogBridge} is attached.
+ *
+ * By default only warnings reach logcat while debug output is buffered.
+ */
+public final class PluginLog {
+    /** Level that turns an output off. */
+    public static final int OFF = Log.ASSERT + 1;
+    static final int DEFAULT_LOGCAT_LEVEL = Log.WARN;
+    static final int DEFAULT_BUFFER_LEVEL = Log.DEBUG;
+    static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private static volatile int logcatLevel = DEFAULT_LOGCAT_LEVEL;
+    private static volatile int bufferLevel = DEFAULT_BUFFER_LEVEL;
+    // Lowest of the two, checked first on every call
+    private static volatile int minLevel = Math.min(DEFAULT_LOGCAT_LEVEL, DEFAULT_BUFFER_LEVEL);
+
+    // Guarded by the class
+    private static Entry[] ring = new Entry[DEFAULT_BUFFER_SIZE];
+    private static int next;
+    private static int size;
+    private static long dropped;
+
+    private static final class Entry {
+        final long timeMs;
+        final int priority;
+        final String tag;
+        final String thread;
+        final String message;
+
+        Entry(long timeMs, int priority, String tag, String thread, String message) {
+            this.timeMs = timeMs;
+            this.priority = priority;
+            this.tag = tag;
+            this.thread = thread;
+            this.message = message;
+        }
+    }
+
+    private PluginLog() {
+    }
+
+    public static void v(String tag, String msg) {
+        log(Log.VERBOSE, tag, msg, null);
+    }
+
+    public static void d(String tag, String msg) {
+        log(Log.DEBUG, tag, msg, null);
+    }
+
+    public static void d(String tag, String msg, Throwable tr) {
+        log(Log.DEBUG, tag, msg, tr);
+    }
+
+    public static void i(String tag, String msg) {
+        log(Log.INFO, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg) {
+        log(Log.WARN, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+        log(Log.WARN, tag, msg, tr);
+    }
+
+    public static void e(String tag, String msg) {
+        log(Log.ERROR, tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        log(Log.ERROR, tag, msg, tr);
+    }
+
+    /** Whether a message at {@code priority} goes anywhere; guards costly messages. */
+    public static boolean isLoggable(int priority) {
+        return priority >= minLevel;
+    }
+
+    /** Writes a message at {@code priority}, e.g. one forwarded from Linphone. */
+    static void log(int priority, String tag, String msg, @Nullable Throwable tr) {
+        if (priority < minLevel) {
+            return;
+        }
+        String message = tr != null ? msg + '\n' + stackTrace(tr) : msg;
+        if (priority >= logcatLevel) {
+            Log.println(priority, tag, message);
+        }
+        if (priority >= bufferLevel) {
+            Entry entry = new Entry(System.currentTimeMillis(), priority, tag, Thread.currentThread().getName(),
+                    message);
+            synchronized (PluginLog.class) {
+                if (size == ring.length) {
+                    dropped++;
+                } else {
+                    size++;
+                }
+                ring[next] = entry;
+                next = (next + 1) % ring.length;
+            }
+        }
+    }
+
+    /** Changes the levels and, if {@code bufferSize} is positive, the buffer size. */
+    static void configure(int logcatLevel, int bufferLevel, int bufferSize) {
+        synchronized (PluginLog.class) {
+            if (bufferSize > 0 && bufferSize != ring.length) {
+                Entry[] resized = new Entry[bufferSize];
+                int kept = Math.min(size, bufferSize);
+                for (int i = 0; i < kept; i++) {
+                    resized[i] = ring[Math.floorMod(next - kept + i, ring.length)];
+                }
+                dropped += size - kept;
+                ring = resized;
+                size = kept;
+                next = kept % bufferSize;
+            }
+            PluginLog.logcatLevel = logcatLevel;
+            PluginLog.bufferLevel = bufferLevel;
+            minLevel = Math.min(logcatLevel, bufferLevel);
+        }
+    }
+
+    static int logcatLevel() {
+        return logcatLevel;
+    }
+
+    static int bufferLevel() {
+        return bufferLevel;
+    }
+
+    /** Lowest level either output takes. */
+    static int minLevel() {
+        return minLevel;
+    }
+
+    /** The buffered messages as text, oldest first; {@code clear} empties the buffer. */
+    @NonNull
+    static String export(boolean clear) {
+        Entry[] entries;
+        long droppedBefore;
+        synchronized (PluginLog.class) {
+            entries = new Entry[size];
+            for (int i = 0; i < size; i++) {
+                entries[i] = ring[Math.floorMod(next - size + i, ring.length)];
+            }
+            droppedBefore = dropped;
+            if (clear) {
+                Arrays.fill(ring, null);
+                size = 0;
+                next = 0;
+                dropped = 0;
+            }
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        StringBuilder text = new StringBuilder(entries.length * 96);
+        if (droppedBefore > 0) {
+            text.append("(").append(droppedBefore).append(" older messages dropped)\n");
+        }
+        for (Entry entry : entries) {
+            text.append(format.format(new Date(entry.timeMs))).append(' ')
+                    .append(levelChar(entry.priority)).append('/').append(entry.tag)
+                    .append(" [").append(entry.thread).append("]: ").append(entry.message).append('\n');
+        }
+        return text.toString();
+    }
+
+    /** Parses "verbose", "debug", "info", "warn", "error" or "off". */
+    static int parseLevel(@Nullable Object name, int fallback) throws PluginException {
+        if (name == null) {
+            return fallback;
+        }
+        switch (String.valueOf(name).toLowerCase(Locale.ROOT)) {
+            case "verbose":
+                return Log.VERBOSE;
+            case "debug":
+                return Log.DEBUG;
+            case "info":
+                return Log.INFO;
+            case "warn":
+                return Log.WARN;
+            case "error":
+                return Log.ERROR;
+            case "off":
+                return OFF;
+            default:
+                throw new PluginException("Invalid Arguments", "Unknown log level: " + name);
+        }
+    }
+
+    private static char levelChar(int priority) {
+        switch (priority) {
+            case Log.VERBOSE:
+                return 'V';
+            case Log.DEBUG:
+                return 'D';
+            case Log.INFO:
+                return 'I';
+            case Log.WARN:
+                return 'W';
+            default:
+                return 'E';
+        }
+    }
+
+    private static String stackTrace(Throwable tr) {
+        StringWriter writer = new StringWriter();
+        tr.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,723 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+import io.flutter.plugin.common.StandardMethodCodec;
+
+/**
+ * Typed request/response messages exchanged over the "linphonesdk" channel.
+ *
+ * Laid out the way Pigeon generates its Java output: every message is
+ * encoded as a custom codec type followed by the list of its fields, so the
+ * Dart side (lib/plugin_messages.dart) decodes straight into typed objects
+ * instead of going through maps or JSON strings. Keep the type ids and field
+ * order in sync with the Dart file.
+ */
+public class PluginMessages {
+
+    static final byte TYPE_CALL_HISTORY = (byte) 128;
+    static final byte TYPE_LOGIN_REQUEST = (byte) 129;
+    static final byte TYPE_CALL_REQUEST = (byte) 130;
+    static final byte TYPE_TRANSFER_REQUEST = (byte) 131;
+    static final byte TYPE_BATCH_COMMAND = (byte) 132;
+    static final byte TYPE_BATCH_RESULT = (byte) 133;
+    static final byte TYPE_CALL_EVENT = (byte) 134;
+    static final byte TYPE_REGISTRATION_EVENT = (byte) 135;
+    static final byte TYPE_CALL_LOG_QUERY = (byte) 136;
+    static final byte TYPE_CALL_LOG_PAGE = (byte) 137;
+    static final byte TYPE_HISTORY_SEARCH = (byte) 138;
+    static final byte TYPE_HISTORY_GROUP = (byte) 139;
+    static final byte TYPE_CALL_HISTORY_COLUMNS = (byte) 140;
+    static final byte TYPE_DEVICE_STATE = (byte) 141;
+
+    private PluginMessages() {
+    }
+
+    /** Credentials used by "login" and "start_background_service". */
+    public static final class LoginRequest {
+        private String userName;
+        private String domain;
+        private String password;
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(3);
+            list.add(userName);
+            list.add(domain);
+            list.add(password);
+            return list;
+        }
+
+        @NonNull
+        static LoginRequest fromList(@NonNull ArrayList<Object> list) {
+            LoginRequest request = new LoginRequest();
+            request.userName = (String) list.get(0);
+            request.domain = (String) list.get(1);
+            request.password = (String) list.get(2);
+            return request;
+        }
+
+        @NonNull
+        static LoginRequest fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments instanceof LoginRequest) {
+                return (LoginRequest) arguments;
+            }
+            Map<?, ?> map = asMap(arguments);
+            LoginRequest request = new LoginRequest();
+            request.userName = (String) map.get("userName");
+            request.domain = (String) map.get("domain");
+            request.password = (String) map.get("password");
+            return request;
+        }
+    }
+
+    /** Destination of an outgoing call. */
+    public static final class CallRequest {
+        private String number;
+
+        public String getNumber() {
+            return number;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(1);
+            list.add(number);
+            return list;
+        }
+
+        @NonNull
+        static CallRequest fromList(@NonNull ArrayList<Object> list) {
+            CallRequest request = new CallRequest();
+            request.number = (String) list.get(0);
+            return request;
+        }
+
+        @NonNull
+        static CallRequest fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments instanceof CallRequest) {
+                return (CallRequest) arguments;
+            }
+            CallRequest request = new CallRequest();
+            request.number = (String) asMap(arguments).get("number");
+            return request;
+        }
+    }
+
+    /** Target of a blind transfer. */
+    public static final class TransferRequest {
+        private String destination;
+
+        public String getDestination() {
+            return destination;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(1);
+            list.add(destination);
+            return list;
+        }
+
+        @NonNull
+        static TransferRequest fromList(@NonNull ArrayList<Object> list) {
+            TransferRequest request = new TransferRequest();
+            request.destination = (String) list.get(0);
+            return request;
+        }
+
+        @NonNull
+        static TransferRequest fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments instanceof TransferRequest) {
+                return (TransferRequest) arguments;
+            }
+            TransferRequest request = new TransferRequest();
+            request.destination = (String) asMap(arguments).get("destination");
+            return request;
+        }
+    }
+
+    /** One entry of an "execute_batch" call. */
+    public static final class BatchCommand {
+        private String method;
+        private Object arguments;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public Object getArguments() {
+            return arguments;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(2);
+            list.add(method);
+            list.add(arguments);
+            return list;
+        }
+
+        @NonNull
+        static BatchCommand fromList(@NonNull ArrayList<Object> list) {
+            BatchCommand command = new BatchCommand();
+            command.method = (String) list.get(0);
+            command.arguments = list.get(1);
+            return command;
+        }
+
+        @NonNull
+        static BatchCommand fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments instanceof BatchCommand) {
+                return (BatchCommand) arguments;
+            }
+            Map<?, ?> map = asMap(arguments);
+            BatchCommand command = new BatchCommand();
+            command.method = (String) map.get("method");
+            command.arguments = map.get("arguments");
+            return command;
+        }
+    }
+
+    /** Outcome of one {@link BatchCommand}, in the order the commands were sent. */
+    public static final class BatchResult {
+        private String method;
+        private boolean success;
+        private Object result;
+        private String errorCode;
+        private String errorMessage;
+        private Object errorDetails;
+
+        @NonNull
+        static BatchResult success(String method, Object result) {
+            BatchResult batchResult = new BatchResult();
+            batchResult.method = method;
+            batchResult.success = true;
+            batchResult.result = result;
+            return batchResult;
+        }
+
+        @NonNull
+        static BatchResult error(String method, String errorCode, String errorMessage, Object errorDetails) {
+            BatchResult batchResult = new BatchResult();
+            batchResult.method = method;
+            batchResult.errorCode = errorCode;
+            batchResult.errorMessage = errorMessage;
+            batchResult.errorDetails = errorDetails;
+            return batchResult;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public Object getResult() {
+            return result;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(6);
+            list.add(method);
+            list.add(success);
+            list.add(result);
+            list.add(errorCode);
+            list.add(errorMessage);
+            list.add(errorDetails);
+            return list;
+        }
+
+        @NonNull
+        static BatchResult fromList(@NonNull ArrayList<Object> list) {
+            BatchResult batchResult = new BatchResult();
+            batchResult.method = (String) list.get(0);
+            batchResult.success = (Boolean) list.get(1);
+            batchResult.result = list.get(2);
+            batchResult.errorCode = (String) list.get(3);
+            batchResult.errorMessage = (String) list.get(4);
+            batchResult.errorDetails = list.get(5);
+            return batchResult;
+        }
+    }
+
+    /**
+     * Call state change pushed on "linphonesdk/call_event_listener".
+     * {@code timestampMs} is {@code SystemClock.elapsedRealtime()}, so the
+     * difference between two events of one call is its setup time or duration.
+     */
+    public static final class CallEvent {
+        private String callId;
+        private long timestampMs;
+        private String state;
+        private String reason;
+        private String remoteAddress;
+        private String remoteName;
+
+        public CallEvent(String callId, long timestampMs, String state, String reason,
+                String remoteAddress, String remoteName) {
+            this.callId = callId;
+            this.timestampMs = timestampMs;
+            this.state = state;
+            this.reason = reason;
+            this.remoteAddress = remoteAddress;
+            this.remoteName = remoteName;
+        }
+
+        public String getCallId() {
+            return callId;
+        }
+
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(6);
+            list.add(callId);
+            list.add(timestampMs);
+            list.add(state);
+            list.add(reason);
+            list.add(remoteAddress);
+            list.add(remoteName);
+            return list;
+        }
+
+        @NonNull
+        static CallEvent fromList(@NonNull ArrayList<Object> list) {
+            return new CallEvent((String) list.get(0), ((Number) list.get(1)).longValue(), (String) list.get(2),
+                    (String) list.get(3), (String) list.get(4), (String) list.get(5));
+        }
+    }
+
+    /** Account registration change pushed on "linphonesdk/login_listener". */
+    public static final class RegistrationEvent {
+        private String identity;
+        private long timestampMs;
+        private String state;
+        private String message;
+
+        public RegistrationEvent(String identity, long timestampMs, String state, String message) {
+            this.identity = identity;
+            this.timestampMs = timestampMs;
+            this.state = state;
+            this.message = message;
+        }
+
+        public String getIdentity() {
+            return identity;
+        }
+
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(4);
+            list.add(identity);
+            list.add(timestampMs);
+            list.add(state);
+            list.add(message);
+            return list;
+        }
+
+        @NonNull
+        static RegistrationEvent fromList(@NonNull ArrayList<Object> list) {
+            return new RegistrationEvent((String) list.get(0), ((Number) list.get(1)).longValue(),
+                    (String) list.get(2), (String) list.get(3));
+        }
+    }
+
+    /**
+     * Window of the call history requested with "call_logs". Entries are
+     * returned newest first; {@code cursor} is the {@code nextCursor} of the
+     * previous page and {@code changeToken} the token of an earlier page, in
+     * which case only entries added since are returned. {@code since} is in
+     * seconds, like {@link CallHistory#getDate()}.
+     */
+    public static final class CallLogQuery {
+        static final int DEFAULT_PAGE_SIZE = 50;
+
+        private String cursor;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private String direction;
+        private String status;
+        private long since;
+        private String changeToken;
+
+        public String getCursor() {
+            return cursor;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public String getDirection() {
+            return direction;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getSince() {
+            return since;
+        }
+
+        public String getChangeToken() {
+            return changeToken;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(6);
+            list.add(cursor);
+            list.add(pageSize);
+            list.add(direction);
+            list.add(status);
+            list.add(since);
+            list.add(changeToken);
+            return list;
+        }
+
+        @NonNull
+        static CallLogQuery fromList(@NonNull ArrayList<Object> list) {
+            CallLogQuery query = new CallLogQuery();
+            query.cursor = (String) list.get(0);
+            query.pageSize = list.get(1) != null ? ((Number) list.get(1)).intValue() : DEFAULT_PAGE_SIZE;
+            query.direction = (String) list.get(2);
+            query.status = (String) list.get(3);
+            query.since = list.get(4) != null ? ((Number) list.get(4)).longValue() : 0;
+            query.changeToken = (String) list.get(5);
+            return query;
+        }
+
+        /** Null when no arguments were given, meaning the whole history. */
+        @Nullable
+        static CallLogQuery fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments == null || arguments instanceof CallLogQuery) {
+                return (CallLogQuery) arguments;
+            }
+            Map<?, ?> map = asMap(arguments);
+            CallLogQuery query = new CallLogQuery();
+            query.cursor = (String) map.get("cursor");
+            Object pageSize = map.get("pageSize");
+            query.pageSize = pageSize instanceof Number ? ((Number) pageSize).intValue() : DEFAULT_PAGE_SIZE;
+            query.direction = (String) map.get("direction");
+            query.status = (String) map.get("status");
+            Object since = map.get("since");
+            query.since = since instanceof Number ? ((Number) since).longValue() : 0;
+            query.changeToken = (String) map.get("changeToken");
+            return query;
+        }
+    }
+
+    /** One window of the call history, answer to a {@link CallLogQuery}. */
+    public static final class CallLogPage {
+        private List<CallHistory> entries;
+        private String nextCursor;
+        private String changeToken;
+
+        public CallLogPage(@NonNull List<CallHistory> entries, @Nullable String nextCursor,
+                @Nullable String changeToken) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+            this.changeToken = changeToken;
+        }
+
+        public List<CallHistory> getEntries() {
+            return entries;
+        }
+
+        /** Null on the last page. */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        /** Pass back as {@link CallLogQuery#getChangeToken()} to get newer entries only. */
+        public String getChangeToken() {
+            return changeToken;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(3);
+            list.add(entries);
+            list.add(nextCursor);
+            list.add(changeToken);
+            return list;
+        }
+
+        @NonNull
+        @SuppressWarnings("unchecked")
+        static CallLogPage fromList(@NonNull ArrayList<Object> list) {
+            return new CallLogPage((List<CallHistory>) list.get(0), (String) list.get(1), (String) list.get(2));
+        }
+    }
+
+    /**
+     * Search of the call-history index for "search_call_history". An empty
+     * query lists the most recent calls; {@code groupByContact} returns one
+     * {@link HistoryGroup} per number instead of single calls.
+     */
+    public static final class HistorySearch {
+        private String query;
+        private boolean substring;
+        private int limit = CallHistoryIndex.DEFAULT_LIMIT;
+        private boolean groupByContact;
+
+        public String getQuery() {
+            return query;
+        }
+
+        /** Match anywhere in the number or name rather than at a word start. */
+        public boolean isSubstring() {
+            return substring;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public boolean isGroupByContact() {
+            return groupByContact;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(4);
+            list.add(query);
+            list.add(substring);
+            list.add(limit);
+            list.add(groupByContact);
+            return list;
+        }
+
+        @NonNull
+        static HistorySearch fromList(@NonNull ArrayList<Object> list) {
+            HistorySearch search = new HistorySearch();
+            search.query = (String) list.get(0);
+            search.substring = Boolean.TRUE.equals(list.get(1));
+            search.limit = list.get(2) != null ? ((Number) list.get(2)).intValue() : CallHistoryIndex.DEFAULT_LIMIT;
+            search.groupByContact = Boolean.TRUE.equals(list.get(3));
+            return search;
+        }
+
+        @NonNull
+        static HistorySearch fromArguments(@Nullable Object arguments) throws PluginException {
+            if (arguments instanceof HistorySearch) {
+                return (HistorySearch) arguments;
+            }
+            if (arguments == null || arguments instanceof String) {
+                HistorySearch search = new HistorySearch();
+                search.query = (String) arguments;
+                return search;
+            }
+            Map<?, ?> map = asMap(arguments);
+            HistorySearch search = new HistorySearch();
+            search.query = (String) map.get("query");
+            search.substring = Boolean.TRUE.equals(map.get("substring"));
+            Object limit = map.get("limit");
+            search.limit = limit instanceof Number ? ((Number) limit).intValue() : CallHistoryIndex.DEFAULT_LIMIT;
+            search.groupByContact = Boolean.TRUE.equals(map.get("groupByContact"));
+            return search;
+        }
+    }
+
+    /** Calls with one number, as returned by a grouped {@link HistorySearch}. */
+    public static final class HistoryGroup {
+        private String number;
+        private String displayName;
+        private long lastDate;
+        private int callCount;
+        private int missedCount;
+
+        public HistoryGroup(String number, String displayName, long lastDate) {
+            this.number = number;
+            this.displayName = displayName;
+            this.lastDate = lastDate;
+        }
+
+        void count(boolean missed) {
+            callCount++;
+            if (missed) {
+                missedCount++;
+            }
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        public int getCallCount() {
+            return callCount;
+        }
+
+        @NonNull
+        ArrayList<Object> toList() {
+            ArrayList<Object> list = new ArrayList<>(5);
+            list.add(number);
+            list.add(displayName);
+            list.add(lastDate);
+            list.add(callCount);
+            list.add(missedCount);
+            return list;
+        }
+
+        @NonNull
+        static HistoryGroup fromList(@NonNull ArrayList<Object> list) {
+            HistoryGroup group = new HistoryGroup((String) list.get(0), (String) list.get(1),
+                    ((Number) list.get(2)).longValue());
+            group.callCount = ((Number) list.get(3)).intValue();
+            group.missedCount = ((Number) list.get(4)).intValue();
+            return group;
+        }
+    }
+
+    static Map<?, ?> asMap(@Nullable Object arguments) throws PluginException {
+        if (!(arguments instanceof Map)) {
+            throw new PluginException("Invalid Arguments", "Expected a map of arguments", String.valueOf(arguments));
+        }
+        return (Map<?, ?>) arguments;
+    }
+
+    static long asDelayMs(@Nullable Object arguments) throws PluginException {
+        if (!(arguments instanceof Number)) {
+            throw new PluginException("Invalid Arguments", "Expected a delay in milliseconds", String.valueOf(arguments));
+        }
+        return ((Number) arguments).longValue();
+    }
+
+    /**
+     * Codec shared by the method and event channels. Call history entries are
+     * written field by field in the binary format of StandardMessageCodec, so
+     * no JSON document is built on either side.
+     */
+    public static class PluginCodec extends StandardMessageCodec {
+        public static final PluginCodec INSTANCE = new PluginCodec();
+        public static final StandardMethodCodec METHOD_CODEC = new StandardMethodCodec(INSTANCE);
+
+        private PluginCodec() {
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Object readValueOfType(byte type, @NonNull ByteBuffer buffer) {
+            switch (type) {
+                case TYPE_CALL_HISTORY:
+                    return CallHistory.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_LOGIN_REQUEST:
+                    return LoginRequest.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_CALL_REQUEST:
+                    return CallRequest.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_TRANSFER_REQUEST:
+                    return TransferRequest.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_BATCH_COMMAND:
+                    return BatchCommand.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_BATCH_RESULT:
+                    return BatchResult.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_CALL_EVENT:
+                    return CallEvent.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_REGISTRATION_EVENT:
+                    return RegistrationEvent.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_CALL_LOG_QUERY:
+                    return CallLogQuery.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_CALL_LOG_PAGE:
+                    return CallLogPage.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_HISTORY_SEARCH:
+                    return HistorySearch.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_HISTORY_GROUP:
+                    return HistoryGroup.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_CALL_HISTORY_COLUMNS:
+                    return CallHistoryColumns.fromList((ArrayList<Object>) readValue(buffer));
+                case TYPE_DEVICE_STATE:
+                    return DeviceState.fromList((ArrayList<Object>) readValue(buffer));
+                default:
+                    return super.readValueOfType(type, buffer);
+            }
+        }
+
+        @Override
+        protected void writeValue(@NonNull ByteArrayOutputStream stream, Object value) {
+            if (value instanceof CallHistory) {
+                stream.write(TYPE_CALL_HISTORY);
+                writeValue(stream, ((CallHistory) value).toList());
+            } else if (value instanceof LoginRequest) {
+                stream.write(TYPE_LOGIN_REQUEST);
+                writeValue(stream, ((LoginRequest) value).toList());
+            } else if (value instanceof CallRequest) {
+                stream.write(TYPE_CALL_REQUEST);
+                writeValue(stream, ((CallRequest) value).toList());
+            } else if (value instanceof TransferRequest) {
+                stream.write(TYPE_TRANSFER_REQUEST);
+                writeValue(stream, ((TransferRequest) value).toList());
+            } else if (value instanceof BatchCommand) {
+                stream.write(TYPE_BATCH_COMMAND);
+                writeValue(stream, ((BatchCommand) value).toList());
+            } else if (value instanceof BatchResult) {
+                stream.write(TYPE_BATCH_RESULT);
+                writeValue(stream, ((BatchResult) value).toList());
+            } else if (value instanceof CallEvent) {
+                stream.write(TYPE_CALL_EVENT);
+                writeValue(stream, ((CallEvent) value).toList());
+            } else if (value instanceof RegistrationEvent) {
+                stream.write(TYPE_REGISTRATION_EVENT);
+                writeValue(stream, ((RegistrationEvent) value).toList());
+            } else if (value instanceof CallLogQuery) {
+                stream.write(TYPE_CALL_LOG_QUERY);
+                writeValue(stream, ((CallLogQuery) value).toList());
+            } else if (value instanceof CallLogPage) {
+                stream.write(TYPE_CALL_LOG_PAGE);
+                writeValue(stream, ((CallLogPage) value).toList());
+            } else if (value instanceof HistorySearch) {
+                stream.write(TYPE_HISTORY_SEARCH);
+                writeValue(stream, ((HistorySearch) value).toList());
+            } else if (value instanceof HistoryGroup) {
+                stream.write(TYPE_HISTORY_GROUP);
+                writeValue(stream, ((HistoryGroup) value).toList());
+            } else if (value instanceof CallHistoryColumns) {
+                stream.write(TYPE_CALL_HISTORY_COLUMNS);
+                writeValue(stream, ((CallHistoryColumns) value).toList());
+            } else if (value instanceof DeviceState) {
+                stream.write(TYPE_DEVICE_STATE);
+                writeValue(stream, ((DeviceState) value).toList());
+            } else {
+                super.writeValue(stream, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.egytelecoms.hatif;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Account;
+import org.linphone.core.Address;
+import org.linphone.core.AudioDevice;
+import org.linphone.core.Call;
+import org.linphone.core.Core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Versioned snapshot of the plugin state: service status, per-account
+ * registration, active calls and network reachability.
+ *
+ * Anything that may change the state calls {@link #requestUpdate()}. Updates
+ * are coalesced onto the core thread, the new snapshot is compared with the
+ * last one and, only if something changed, a diff holding the changed
+ * top-level keys is pushed on "linphonesdk/state_listener". Every pushed diff
+ * takes the next sequence number, so a listener that sees a gap can fetch the
+ * full snapshot again with "get_state_snapshot".
+ */
+public final class PluginStateTracker {
+    private static final String TAG = "PluginStateTracker";
+
+    /** Bumped whenever the snapshot layout changes. */
+    static final int SCHEMA_VERSION = 1;
+
+    static final String KEY_SERVICE_RUNNING = "serviceRunning";
+    static final String KEY_NETWORK_REACHABLE = "networkReachable";
+    static final String KEY_ACCOUNTS = "accounts";
+    static final String KEY_CALLS = "calls";
+
+    private static final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+    // Core thread only
+    private static Map<String, Object> lastState = new HashMap<>();
+    private static long seq = 0;
+
+    private PluginStateTracker() {
+    }
+
+    /**
+     * Schedules a state refresh on the core thread. Calls made while a refresh
+     * is pending are folded into it.
+     */
+    public static void requestUpdate() {
+        if (updatePending.compareAndSet(false, true)) {
+            PluginExecutors.coreHandler().post(() -> {
+                updatePending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Recomputes the state, pushes a diff if it changed and returns the full
+     * snapshot. Must be called on the core thread.
+     */
+    @NonNull
+    public static Map<String, Object> refresh() {
+        Map<String, Object> state = collectState();
+        Map<String, Object> changes = StateDiff.changes(lastState, state);
+        if (!changes.isEmpty()) {
+            seq++;
+            lastState = state;
+            Map<String, Object> diff = new HashMap<>();
+            diff.put("version", SCHEMA_VERSION);
+            diff.put("seq", seq);
+            diff.put("changes", changes);
+            EventChannelHelper.broadcast(LinphonesdkPlugin.STATE_EVENTS, diff);
+            PluginLog.d(TAG, "State #" + seq + " changed: " + changes.keySet());
+        }
+        Map<String, Object> snapshot = new HashMap<>(lastState);
+        snapshot.put("version", SCHEMA_VERSION);
+        snapshot.put("seq", seq);
+        return snapshot;
+    }
+
+    @Nullable
+    static Core currentCore() {
+        return CoreOwner.get();
+    }
+
+    private static Map<String, Object> collectState() {
+        Map<String, Object> state = new HashMap<>();
+        Core core = currentCore();
+        state.put(KEY_SERVICE_RUNNING, LinphoneBackgroundService.getInstance() != null);
+        state.put(KEY_NETWORK_REACHABLE, core != null && core.isNetworkReachable());
+        state.put(KEY_ACCOUNTS, core != null ? collectAccounts(core) : new ArrayList<>());
+        state.put(KEY_CALLS, core != null ? collectCalls(core) : new ArrayList<>());
+        return state;
+    }
+
+    private static List<Object> collectAccounts(Core core) {
+        List<Object> accounts = new ArrayList<>();
+        Account defaultAccount = core.getDefaultAccount();
+        for (Account account : core.getAccountList()) {
+            Map<String, Object> entry = new HashMap<>();
+            Address identity = account.getParams().getIdentityAddress();
+            entry.put("identity", identity != null ? identity.asStringUriOnly() : null);
+            entry.put("state", account.getState().name());
+            entry.put("isDefault", account == defaultAccount);
+            accounts.add(entry);
+        }
+        return accounts;
+    }
+
+    private static List<Object> collectCalls(Core core) {
+        List<Object> calls = new ArrayList<>();
+        boolean micMuted = !core.micEnabled();
+        for (Call call : core.getCalls()) {
+            Map<String, Object> entry = new HashMap<>();
+            Call.State state = call.getState();
+            AudioDevice output = call.getOutputAudioDevice();
+            Address remote = call.getRemoteAddress();
+            entry.put("callId", call.getCallLog().getCallId());
+            entry.put("state", state.name());
+            entry.put("remote", remote != null ? remote.asStringUriOnly() : null);
+            entry.put("muted", micMuted || call.getMicrophoneMuted());
+            entry.put("speaker", output != null && output.getType() == AudioDevice.Type.Speaker);
+            entry.put("onHold", state == Call.State.Paused || state == Call.State.Pausing);
+            calls.add(entry);
+        }
+        return calls;
+    }
+}
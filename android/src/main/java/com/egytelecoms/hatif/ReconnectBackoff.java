@@ -0,0 +1,19 @@
+package com.egytelecoms.hatif;
+
+/**
+ * Delay before a re-registration attempt: the initial delay doubled per
+ * failed attempt, capped at a maximum.
+ */
+final class ReconnectBackoff {
+    // 2^16 times any sane initial delay is past every cap
+    private static final int MAX_SHIFT = 16;
+
+    private ReconnectBackoff() {
+    }
+
+    /** {@code attempt} is the number of attempts already made, from 0. */
+    static long delayMs(int attempt, long initialDelayMs, long maxDelayMs) {
+        int shift = Math.max(0, Math.min(attempt, MAX_SHIFT));
+        return Math.min(initialDelayMs << shift, maxDelayMs);
+    }
+}
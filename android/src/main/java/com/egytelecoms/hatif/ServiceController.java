@@ -0,0 +1,353 @@
+package com.egytelecoms.hatif;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.linphone.core.Call;
+import org.linphone.core.RegistrationState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How {@link LinphoneBackgroundService} reacts to the core: the status shown
+ * for each registration and network change, reconnecting with backoff, and
+ * which call screens to show for each call state. Incoming calls go through
+ * {@link CallRoutingRules} first, so rejected and auto-answered calls never
+ * ring, and then through the {@link IncomingCallPolicy}: only one call at a
+ * time has the incoming call screen and ringtone, and calls beyond the
+ * policy's limit are refused, queued or announced as waiting without
+ * touching it.
+ *
+ * The decisions live here and the effects go through {@link Host}, so the
+ * service only has to forward its core and device callbacks. Runs on the
+ * core thread; reconnect attempts are scheduled on {@code handler}.
+ */
+final class ServiceController {
+    private static final String TAG = "ServiceController";
+    static final long RECONNECT_DELAY_MS = 5000;
+    static final long RECONNECT_MAX_DELAY_MS = 60000;
+    // Max while the screen is off or the device is constrained
+    static final long RECONNECT_LOW_POWER_MAX_DELAY_MS = 300000;
+
+    /** Side effects of the service, on the core thread. */
+    interface Host {
+        boolean hasCore();
+
+        /** State of the default account, or null when there is none. */
+        @Nullable
+        RegistrationState accountState();
+
+        /**
+         * False once the account was deliberately unregistered: it is not
+         * reconnected until the app registers again.
+         */
+        boolean registrationEnabled();
+
+        /**
+         * Re-sends the default account's registration; false when there is no
+         * account or its registration is turned off.
+         */
+        boolean refreshRegistration();
+
+        /** Registers with the credentials saved by the app; false when there are none. */
+        boolean registerFromSavedCredentials();
+
+        void updateNotification(@NonNull String content, boolean registered);
+
+        /** Something the plugin state reports may have changed. */
+        void stateChanged();
+
+        void showIncomingCall(@NonNull Call call);
+
+        /** Announces a call that rings while another has the screen or a call is up. */
+        void showWaitingCall(@NonNull Call call);
+
+        void dismissWaitingCall(@NonNull Call call);
+
+        /** Declines with 486 Busy Here when {@code busy}, 603 Decline otherwise. */
+        void rejectCall(@NonNull Call call, boolean busy);
+
+        void answerCall(@NonNull Call call);
+
+        void showCallConnected(@NonNull Call call);
+
+        void showCallEnded();
+    }
+
+    private final Host host;
+    private final Handler handler;
+    private final Runnable reconnectRunnable = this::onReconnectTimer;
+
+    // Incoming calls, core thread
+    @Nullable
+    private Call presented;
+    // Presented first, then those announced as waiting
+    private final List<Call> ringing = new ArrayList<>();
+    private final ArrayDeque<Call> queued = new ArrayDeque<>();
+    // Overflow announced as call waiting
+    private final List<Call> waiting = new ArrayList<>();
+    private final Set<Call> established = new HashSet<>();
+    // Calls whose end must not stop the ringtone or restore the notification
+    private final Set<Call> quiet = new HashSet<>();
+
+    private boolean networkAvailable = true;
+    private int reconnectAttempts = 0;
+    private long reconnectMaxDelayMs = RECONNECT_MAX_DELAY_MS;
+
+    ServiceController(@NonNull Host host, @NonNull Handler handler) {
+        this.host = host;
+        this.handler = handler;
+    }
+
+    void onRegistrationStateChanged(@NonNull RegistrationState state, @NonNull String message) {
+        host.stateChanged();
+        switch (state) {
+            case Ok:
+                host.updateNotification("Ready for calls", true);
+                reconnectAttempts = 0;
+                cancelReconnect();
+                break;
+            case Progress:
+                host.updateNotification("Registering...", false);
+                break;
+            case Failed:
+                PluginLog.e(TAG, "Registration failed: " + message);
+                host.updateNotification("Registration failed - Retrying...", false);
+                scheduleReconnect();
+                break;
+            case Cleared:
+                host.updateNotification("Unregistered", false);
+                if (host.registrationEnabled()) {
+                    // Re-register if there are saved credentials
+                    scheduleReconnect();
+                } else {
+                    reconnectAttempts = 0;
+                    cancelReconnect();
+                }
+                break;
+        }
+    }
+
+    void onNetworkReachable(boolean reachable) {
+        networkAvailable = reachable;
+        host.stateChanged();
+        if (!reachable) {
+            PluginLog.w(TAG, "Network lost, will retry when network is back");
+            host.updateNotification("No network - Waiting...", false);
+            return;
+        }
+        if (!host.registrationEnabled()) {
+            return;
+        }
+        RegistrationState state = host.accountState();
+        if (state == null) {
+            scheduleReconnect();
+        } else if (state != RegistrationState.Ok) {
+            PluginLog.d(TAG, "Refreshing registration after network restore");
+            host.refreshRegistration();
+            reconnectAttempts = 0;
+        }
+    }
+
+    void onCallStateChanged(@NonNull Call call, @NonNull Call.State state) {
+        host.stateChanged();
+        switch (state) {
+            case IncomingReceived:
+                routeIncomingCall(call);
+                break;
+            case Connected:
+            case StreamsRunning:
+                if (established.add(call)) {
+                    quiet.remove(call);
+                    leaveIncoming(call);
+                    promote();
+                }
+                host.showCallConnected(call);
+                break;
+            case End:
+            case Released:
+            case Error:
+                onCallEnded(call, state);
+                break;
+        }
+    }
+
+    private void onCallEnded(Call call, Call.State state) {
+        established.remove(call);
+        boolean wasQuiet = state == Call.State.Released ? quiet.remove(call) : quiet.contains(call);
+        leaveIncoming(call);
+        if (!wasQuiet) {
+            host.showCallEnded();
+        }
+        promote();
+    }
+
+    private void routeIncomingCall(Call call) {
+        CallRoutingRules.Rule rule = CallRoutingRules.route(call.getRemoteAddress().getUsername());
+        switch (rule.action) {
+            case REJECT:
+                PluginLog.i(TAG, "Rejecting incoming call (" + rule + ")");
+                quiet.add(call);
+                host.rejectCall(call, false);
+                break;
+            case AUTO_ANSWER:
+                PluginLog.i(TAG, "Answering incoming call (" + rule + ")");
+                host.answerCall(call);
+                break;
+            default:
+                admit(call);
+                break;
+        }
+    }
+
+    private void admit(Call call) {
+        IncomingCallPolicy policy = IncomingCallPolicy.current();
+        if (ringing.size() < policy.maxRinging) {
+            ring(call);
+            IncomingCallPolicy.count(IncomingCallPolicy.Outcome.RUNG, queued.size() + waiting.size());
+            return;
+        }
+        if (policy.overflow == IncomingCallPolicy.Overflow.QUEUE && queued.size() < policy.maxQueued) {
+            PluginLog.i(TAG, "Queueing incoming call, " + ringing.size() + " already ringing");
+            queued.add(call);
+            quiet.add(call);
+            IncomingCallPolicy.count(IncomingCallPolicy.Outcome.QUEUED, queued.size() + waiting.size());
+            return;
+        }
+        if (policy.overflow == IncomingCallPolicy.Overflow.CALL_WAITING && waiting.size() < policy.maxQueued) {
+            waiting.add(call);
+            quiet.add(call);
+            host.showWaitingCall(call);
+            IncomingCallPolicy.count(IncomingCallPolicy.Outcome.WAITING, queued.size() + waiting.size());
+            return;
+        }
+        PluginLog.i(TAG, "Busy: " + ringing.size() + " calls ringing, " + queued.size() + " queued");
+        quiet.add(call);
+        host.rejectCall(call, true);
+        IncomingCallPolicy.count(IncomingCallPolicy.Outcome.BUSY, queued.size() + waiting.size());
+    }
+
+    /** The screen and ringtone go to the first call that rings while nothing holds them. */
+    private void ring(Call call) {
+        ringing.add(call);
+        if (presented == null && established.isEmpty()) {
+            presented = call;
+            host.showIncomingCall(call);
+        } else {
+            quiet.add(call);
+            host.showWaitingCall(call);
+        }
+    }
+
+    private void leaveIncoming(Call call) {
+        if (call == presented) {
+            presented = null;
+            ringing.remove(call);
+        } else if (ringing.remove(call) || waiting.remove(call)) {
+            host.dismissWaitingCall(call);
+        } else {
+            queued.remove(call);
+        }
+    }
+
+    /** Hands the screen to the oldest ringing call and lets queued calls ring as room frees up. */
+    private void promote() {
+        if (presented == null && established.isEmpty() && !ringing.isEmpty()) {
+            presented = ringing.get(0);
+            quiet.remove(presented);
+            host.dismissWaitingCall(presented);
+            host.showIncomingCall(presented);
+        }
+        int maxRinging = IncomingCallPolicy.current().maxRinging;
+        while (ringing.size() < maxRinging && !queued.isEmpty()) {
+            Call next = queued.poll();
+            if (next.getState() != Call.State.IncomingReceived) {
+                continue;
+            }
+            quiet.remove(next);
+            ring(next);
+            IncomingCallPolicy.count(IncomingCallPolicy.Outcome.DEQUEUED, queued.size() + waiting.size());
+        }
+    }
+
+    void onAudioDeviceChanged() {
+        host.stateChanged();
+    }
+
+    /**
+     * Backs off further while the screen is off or the device is constrained,
+     * and retries at once when a new network comes up while unregistered.
+     */
+    void onDeviceStateChanged(@NonNull DeviceState previous, @NonNull DeviceState current) {
+        boolean lowPower = current.isConstrained() || !current.screenOn;
+        reconnectMaxDelayMs = lowPower ? RECONNECT_LOW_POWER_MAX_DELAY_MS : RECONNECT_MAX_DELAY_MS;
+
+        if (!host.hasCore() || current.network == previous.network
+                || current.network == DeviceState.Network.NONE || previous == DeviceState.UNKNOWN) {
+            return;
+        }
+        if (host.accountState() != RegistrationState.Ok) {
+            PluginLog.d(TAG, "Network changed to " + current.network + ", retrying registration now");
+            cancelReconnect();
+            reconnectAttempts = 0;
+            attemptReregistration();
+        }
+    }
+
+    void cancelReconnect() {
+        handler.removeCallbacks(reconnectRunnable);
+    }
+
+    int reconnectAttempts() {
+        return reconnectAttempts;
+    }
+
+    private void scheduleReconnect() {
+        cancelReconnect();
+        if (!host.registrationEnabled()) {
+            return;
+        }
+        long delay = ReconnectBackoff.delayMs(reconnectAttempts, RECONNECT_DELAY_MS, reconnectMaxDelayMs);
+        PluginLog.d(TAG, "Reconnection attempt #" + (reconnectAttempts + 1) + " in " + (delay / 1000) + " s");
+        handler.postDelayed(reconnectRunnable, delay);
+        reconnectAttempts++;
+    }
+
+    private void onReconnectTimer() {
+        PluginLog.d(TAG, "Attempting reconnection #" + reconnectAttempts);
+        attemptReregistration();
+    }
+
+    private void attemptReregistration() {
+        if (!host.hasCore()) {
+            PluginLog.e(TAG, "Cannot reconnect - no core");
+            return;
+        }
+        if (!host.registrationEnabled()) {
+            return;
+        }
+        if (!networkAvailable) {
+            host.updateNotification("No network - Waiting...", false);
+            return;
+        }
+        try {
+            if (host.refreshRegistration()) {
+                host.updateNotification("Reconnecting...", false);
+            } else if (!host.registerFromSavedCredentials()) {
+                PluginLog.e(TAG, "No saved credentials, cannot auto-register");
+                host.updateNotification("Registration failed - No credentials", false);
+                reconnectAttempts = 0;
+            }
+        } catch (RuntimeException e) {
+            PluginLog.e(TAG, "Error during reconnection attempt", e);
+            host.updateNotification("Reconnection error - Retrying...", false);
+            scheduleReconnect();
+        }
+    }
+}
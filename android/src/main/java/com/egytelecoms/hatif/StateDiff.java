@@ -0,0 +1,29 @@
+package com.egytelecoms.hatif;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/** Top-level keys whose value differs between two state snapshots. */
+final class StateDiff {
+    private StateDiff() {
+    }
+
+    /**
+     * Entries of {@code next} that are new or not equal to those of
+     * {@code previous}. Values are compared deeply, so nested maps and lists
+     * only count as changed when their content differs.
+     */
+    @NonNull
+    static Map<String, Object> changes(@NonNull Map<String, Object> previous, @NonNull Map<String, Object> next) {
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<String, Object> entry : next.entrySet()) {
+            if (!Objects.equals(entry.getValue(), previous.get(entry.getKey()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,325 @@
+package com.linphoneflutterplugin;
+
+import android.animation.ValueAnimator;
+import android.os.Build;
+import android.view.Display;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.OvershootInterpolator;
+
+import com.egytelecoms.hatif.PluginLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Drives every ambient effect of the incoming call screen from one
+ * {@link ValueAnimator}: the entrance of the avatar, caller info and swipe
+ * bar, the pulsing rings, the swipe hints, the swipe button pulse and the
+ * instruction fade.
+ *
+ * Each frame computes every effect from the animator's play time instead of
+ * running one looping animator per effect, so pausing, resuming and tearing
+ * down is a single call. The animated views draw into hardware layers while
+ * the driver runs. The owning activity pauses it while stopped or while the
+ * screen is off and {@link #destroy()}s it with the activity.
+ *
+ * Frame times are measured between updates and logged every few seconds
+ * while running; the last report is kept for "get_animation_stats".
+ */
+public final class IncomingCallAnimator {
+    private static final String TAG = "IncomingCallAnimator";
+    private static final long REPORT_INTERVAL_MS = 5_000;
+    private static final long ENTRANCE_MS = 1_000;
+
+    private static final Interpolator DECELERATE = new DecelerateInterpolator();
+    private static final Interpolator ACCELERATE_DECELERATE = new AccelerateDecelerateInterpolator();
+    private static final Interpolator OVERSHOOT = new OvershootInterpolator(1.5f);
+
+    private static volatile Map<String, Object> lastReport = new HashMap<>();
+
+    private View pulseRingOuter;
+    private View pulseRingInner;
+    private View avatarContainer;
+    private View callerInfo;
+    private View swipeContainer;
+    private View declineHint;
+    private View acceptHint;
+    private View swipeButton;
+    private View swipeInstruction;
+    private View[] layered;
+
+    private ValueAnimator animator;
+    private boolean started;
+    private boolean screenOn = true;
+    private boolean gestureActive;
+    private boolean entranceDone;
+
+    // Frame metrics since the last report
+    private float expectedFrameMs = 1000f / 60f;
+    private long lastFrameNanos;
+    private long reportStartMs;
+    private int frames;
+    private int droppedFrames;
+    private float totalFrameMs;
+    private float maxFrameMs;
+
+    public IncomingCallAnimator(View pulseRingOuter, View pulseRingInner, View avatarContainer, View callerInfo,
+            View swipeContainer, View declineHint, View acceptHint, View swipeButton, View swipeInstruction) {
+        this.pulseRingOuter = pulseRingOuter;
+        this.pulseRingInner = pulseRingInner;
+        this.avatarContainer = avatarContainer;
+        this.callerInfo = callerInfo;
+        this.swipeContainer = swipeContainer;
+        this.declineHint = declineHint;
+        this.acceptHint = acceptHint;
+        this.swipeButton = swipeButton;
+        this.swipeInstruction = swipeInstruction;
+        layered = new View[] { pulseRingOuter, pulseRingInner, avatarContainer, callerInfo, swipeContainer,
+                declineHint, acceptHint, swipeButton, swipeInstruction };
+
+        animator = ValueAnimator.ofFloat(0f, 1f);
+        // The value is unused; effects are computed from the play time
+        animator.setDuration(Long.MAX_VALUE);
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(animation -> onFrame(animation.getCurrentPlayTime()));
+
+        // Initial state of the entrance effects, before the first frame
+        apply(0);
+    }
+
+    /** Activity started. */
+    public void start() {
+        started = true;
+        updateRunning();
+    }
+
+    /** Activity stopped. */
+    public void stop() {
+        started = false;
+        updateRunning();
+    }
+
+    public void setScreenOn(boolean on) {
+        screenOn = on;
+        updateRunning();
+    }
+
+    /**
+     * While the user drags the swipe button, the driver leaves the button and
+     * hints to the gesture animations.
+     */
+    public void setGestureActive(boolean active) {
+        gestureActive = active;
+    }
+
+    /** Stops for good and drops every view reference. */
+    public void destroy() {
+        if (animator == null) {
+            return;
+        }
+        if (animator.isStarted()) {
+            report();
+        }
+        animator.removeAllUpdateListeners();
+        animator.cancel();
+        animator = null;
+        setLayers(View.LAYER_TYPE_NONE);
+        pulseRingOuter = null;
+        pulseRingInner = null;
+        avatarContainer = null;
+        callerInfo = null;
+        swipeContainer = null;
+        declineHint = null;
+        acceptHint = null;
+        swipeButton = null;
+        swipeInstruction = null;
+        layered = null;
+    }
+
+    /** Frame metrics of the last report, for diagnostics. */
+    public static Map<String, Object> lastReport() {
+        return lastReport;
+    }
+
+    private void updateRunning() {
+        if (animator == null) {
+            return;
+        }
+        boolean run = started && screenOn;
+        if (run && !animatorsEnabled()) {
+            // Animations are turned off in the system settings: show the settled screen
+            apply(ENTRANCE_MS);
+        } else if (run && !animator.isStarted()) {
+            setLayers(View.LAYER_TYPE_HARDWARE);
+            resetMetrics();
+            animator.start();
+        } else if (run && animator.isPaused()) {
+            setLayers(View.LAYER_TYPE_HARDWARE);
+            resetMetrics();
+            animator.resume();
+        } else if (!run && animator.isRunning() && !animator.isPaused()) {
+            animator.pause();
+            setLayers(View.LAYER_TYPE_NONE);
+            report();
+        }
+    }
+
+    private static boolean animatorsEnabled() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.O || ValueAnimator.areAnimatorsEnabled();
+    }
+
+    private void setLayers(int layerType) {
+        for (View view : layered) {
+            if (view != null) {
+                view.setLayerType(layerType, null);
+            }
+        }
+    }
+
+    private void onFrame(long playTime) {
+        long now = System.nanoTime();
+        if (lastFrameNanos != 0) {
+            float frameMs = (now - lastFrameNanos) / 1_000_000f;
+            frames++;
+            totalFrameMs += frameMs;
+            maxFrameMs = Math.max(maxFrameMs, frameMs);
+            if (frameMs > expectedFrameMs * 1.5f) {
+                droppedFrames += Math.round(frameMs / expectedFrameMs) - 1;
+            }
+        }
+        lastFrameNanos = now;
+        apply(playTime);
+        if (now / 1_000_000 - reportStartMs >= REPORT_INTERVAL_MS) {
+            report();
+        }
+    }
+
+    private void apply(long t) {
+        if (!entranceDone) {
+            bounceIn(avatarContainer, t, 0, 600);
+            slideUp(callerInfo, t, 200, 500);
+            slideUp(swipeContainer, t, 400, 600);
+            entranceDone = t >= ENTRANCE_MS;
+        }
+
+        pulse(pulseRingOuter, t, 0, 2000);
+        pulse(pulseRingInner, t, 400, 1600);
+
+        if (!gestureActive) {
+            swipeHint(declineHint, t, -15f);
+            swipeHint(acceptHint, t, 15f);
+            buttonPulse(swipeButton, t);
+        }
+        instructionFade(swipeInstruction, t);
+    }
+
+    // Fraction of a one-shot effect, clamped to [0, 1]
+    private static float once(long t, long delay, long duration) {
+        return Math.max(0f, Math.min(1f, (t - delay) / (float) duration));
+    }
+
+    // Position inside a repeating cycle, or -1 before the first one starts
+    private static long cycle(long t, long delay, long period) {
+        return t < delay ? -1 : (t - delay) % period;
+    }
+
+    // 0 -> 1 -> 0 over the fraction
+    private static float thereAndBack(float fraction) {
+        return fraction < 0.5f ? fraction * 2 : (1 - fraction) * 2;
+    }
+
+    private static void bounceIn(View view, long t, long delay, long duration) {
+        float f = OVERSHOOT.getInterpolation(once(t, delay, duration));
+        view.setScaleX(f);
+        view.setScaleY(f);
+        view.setAlpha(Math.min(1f, f));
+    }
+
+    private static void slideUp(View view, long t, long delay, long duration) {
+        float f = DECELERATE.getInterpolation(once(t, delay, duration));
+        view.setTranslationY(100f * (1 - f));
+        view.setAlpha(f);
+    }
+
+    private static void pulse(View view, long t, long delay, long period) {
+        long position = cycle(t, delay, period);
+        float f = position < 0 ? 0f : DECELERATE.getInterpolation(position / (float) period);
+        float scale = 0.9f + 0.3f * f;
+        view.setScaleX(scale);
+        view.setScaleY(scale);
+        view.setAlpha(0.6f * (1 - f));
+    }
+
+    // 1200 ms nudge followed by a 500 ms rest, starting after 800 ms
+    private static void swipeHint(View view, long t, float delta) {
+        long position = cycle(t, 800, 1700);
+        float f = position < 0 || position >= 1200 ? 0f
+                : thereAndBack(ACCELERATE_DECELERATE.getInterpolation(position / 1200f));
+        view.setTranslationX(delta * f);
+        view.setAlpha(0.6f + 0.4f * f);
+    }
+
+    // 2000 ms pulse followed by a 300 ms rest, starting after 1000 ms
+    private static void buttonPulse(View view, long t) {
+        long position = cycle(t, 1000, 2300);
+        float f = position < 0 || position >= 2000 ? 0f
+                : thereAndBack(ACCELERATE_DECELERATE.getInterpolation(position / 2000f));
+        float scale = 1.0f + 0.1f * f;
+        view.setScaleX(scale);
+        view.setScaleY(scale);
+    }
+
+    // 0 -> 0.8 -> 0.5 -> 0.8 over 1500 ms and back, starting after 600 ms
+    private static void instructionFade(View view, long t) {
+        long position = cycle(t, 600, 3000);
+        if (position < 0) {
+            view.setAlpha(0f);
+            return;
+        }
+        float f = position < 1500 ? position / 1500f : (3000 - position) / 1500f;
+        f = ACCELERATE_DECELERATE.getInterpolation(f);
+        float alpha;
+        if (f < 1 / 3f) {
+            alpha = 0.8f * f * 3;
+        } else if (f < 2 / 3f) {
+            alpha = 0.8f - 0.3f * (f - 1 / 3f) * 3;
+        } else {
+            alpha = 0.5f + 0.3f * (f - 2 / 3f) * 3;
+        }
+        view.setAlpha(alpha);
+    }
+
+    private void resetMetrics() {
+        Display display = swipeButton != null ? swipeButton.getDisplay() : null;
+        if (display != null && display.getRefreshRate() > 0) {
+            expectedFrameMs = 1000f / display.getRefreshRate();
+        }
+        lastFrameNanos = 0;
+        reportStartMs = System.nanoTime() / 1_000_000;
+        frames = 0;
+        droppedFrames = 0;
+        totalFrameMs = 0;
+        maxFrameMs = 0;
+    }
+
+    private void report() {
+        if (frames > 0) {
+            Map<String, Object> report = new HashMap<>();
+            report.put("frames", frames);
+            report.put("droppedFrames", droppedFrames);
+            report.put("averageFrameMs", (double) (totalFrameMs / frames));
+            report.put("maxFrameMs", (double) maxFrameMs);
+            report.put("expectedFrameMs", (double) expectedFrameMs);
+            lastReport = report;
+            PluginLog.d(TAG, "Frames: " + report);
+        }
+        long lastFrame = lastFrameNanos;
+        resetMetrics();
+        // Keep measuring from the last frame when continuing to run
+        lastFrameNanos = lastFrame;
+    }
+}
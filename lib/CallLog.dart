@@ -21,11 +21,17 @@ class CallHistory {
     required this.duration,
     required this.number,
     required this.status,
+    this.callId,
+    this.direction,
+    this.displayName,
   });
   late final int date;
   late final int duration;
   late final String number;
   late final String status;
+  String? callId;
+  String? direction;
+  String? displayName;
 
   CallHistory.fromJson(Map<String, dynamic> json){
     date = json['date'];
@@ -1,16 +1,23 @@
 import 'dart:async';
-import 'dart:convert';
+import 'dart:ui';
 import 'package:flutter/services.dart';
 import 'package:linphone_flutter_plugin/CallLog.dart';
 import 'package:linphone_flutter_plugin/call_state.dart';
 import 'package:linphone_flutter_plugin/login_state.dart';
+import 'package:linphone_flutter_plugin/plugin_messages.dart';
+import 'package:linphone_flutter_plugin/plugin_state.dart';
 
 class LinphoneFlutterPlugin {
-  static const MethodChannel _channel = MethodChannel("linphonesdk");
-  static const EventChannel _loginEventListener =
-      EventChannel("linphonesdk/login_listener");
-  static const EventChannel _callEventListener =
-      EventChannel("linphonesdk/call_event_listener");
+  static const MethodChannel _channel =
+      MethodChannel("linphonesdk", StandardMethodCodec(PluginCodec()));
+  static const EventChannel _loginEventListener = EventChannel(
+      "linphonesdk/login_listener", StandardMethodCodec(PluginCodec()));
+  static const EventChannel _callEventListener = EventChannel(
+      "linphonesdk/call_event_listener", StandardMethodCodec(PluginCodec()));
+  static const EventChannel _stateListener = EventChannel(
+      "linphonesdk/state_listener", StandardMethodCodec(PluginCodec()));
+  static const EventChannel _deviceStateListener = EventChannel(
+      "linphonesdk/device_state", StandardMethodCodec(PluginCodec()));
 
   Future<void> requestPermissions() async {
     try {
@@ -20,12 +27,18 @@ class LinphoneFlutterPlugin {
     }
   }
 
-  Future<void> login(
+  /// Registers the account, reusing the live one when it already matches.
+  ///
+  /// Returns `outcome` (UNCHANGED, CREDENTIALS_UPDATED, PARAMS_UPDATED or
+  /// CREATED) and the account's registration `state` at return time.
+  Future<Map<String, dynamic>> login(
       {required String userName,
       required String domain,
       required String password}) async {
-    var data = {"userName": userName, "domain": domain, "password": password};
-    return await _channel.invokeMethod("login", data);
+    var data =
+        LoginRequest(userName: userName, domain: domain, password: password);
+    final result = await _channel.invokeMethod("login", data);
+    return Map<String, dynamic>.from(result as Map);
   }
 
   Future<void> toggleSpeaker() async {
@@ -37,7 +50,7 @@ class LinphoneFlutterPlugin {
   }
 
   Future<void> call({required String number}) async {
-    var data = {"number": number};
+    var data = CallRequest(number: number);
     return await _channel.invokeMethod("call", data);
   }
 
@@ -54,13 +67,41 @@ class LinphoneFlutterPlugin {
   }
 
   Future<bool> callTransfer({required String destination}) async {
-    var data = {"destination": destination};
+    var data = TransferRequest(destination: destination);
     return await _channel.invokeMethod("transfer", data);
   }
 
   Future<CallLogs> callLogs() async {
-    var list = await _channel.invokeMethod("call_logs");
-    return CallLogs.fromJson(jsonDecode(list));
+    return CallLogs((await callLogColumns()).toList());
+  }
+
+  /// Call count, answered, missed, total and average talk seconds over the
+  /// last [days] days including today or the whole history, for [number]
+  /// only when given
+  Future<Map<String, dynamic>> getCallStatistics(
+      {String? number, int? days}) async {
+    Map<Object?, Object?> summary = await _channel.invokeMethod(
+        "get_call_statistics", {"number": number, "days": days});
+    return summary.cast<String, dynamic>();
+  }
+
+  /// The whole call history in columnar form; entries are decoded on access
+  Future<CallHistoryColumns> callLogColumns() async {
+    return await _channel.invokeMethod("call_logs_columns");
+  }
+
+  /// One page of the call history; see [CallLogQuery] for paging, filters
+  /// and fetching only new entries with a change token.
+  Future<CallLogPage> callLogsPage(CallLogQuery query) async {
+    return await _channel.invokeMethod("call_logs", query);
+  }
+
+  /// Searches the call history natively, e.g. on every dialer keystroke.
+  /// Returns [CallHistory] entries, or [HistoryGroup]s when grouping.
+  Future<List<Object?>> searchCallHistory(HistorySearch search) async {
+    List<Object?>? result =
+        await _channel.invokeMethod("search_call_history", search);
+    return result ?? <Object?>[];
   }
 
   Future<void> answercall() async {
@@ -77,7 +118,8 @@ class LinphoneFlutterPlugin {
     required String domain,
     required String password,
   }) async {
-    var data = {"userName": userName, "domain": domain, "password": password};
+    var data =
+        LoginRequest(userName: userName, domain: domain, password: password);
     return await _channel.invokeMethod("start_background_service", data);
   }
 
@@ -128,56 +170,304 @@ class LinphoneFlutterPlugin {
     return await _channel.invokeMethod("open_call_screen");
   }
 
+  /// Run several commands in one platform-channel round trip.
+  ///
+  /// Commands run in order; each gets its own [BatchResult], so one failing
+  /// command does not abort the rest. For example, on resume:
+  /// `executeBatch([BatchCommand("is_service_running"),
+  /// BatchCommand("get_current_registration_state"),
+  /// BatchCommand("has_active_call")])`.
+  Future<List<BatchResult>> executeBatch(List<BatchCommand> commands) async {
+    List<Object?> results =
+        await _channel.invokeMethod("execute_batch", commands);
+    return results.cast<BatchResult>();
+  }
+
+  /// Whether the shared Linphone core runs and who holds references to it,
+  /// and how long it has been suspended while idle
+  Future<Map<String, dynamic>> getCoreStatus() async {
+    Map<Object?, Object?> status = await _channel.invokeMethod("get_core_status");
+    return status.cast<String, dynamic>();
+  }
+
+  /// How long the core keeps running once nothing references it; null keeps
+  /// it running until the process ends
+  Future<void> setCoreIdleShutdown(Duration? delay) async {
+    await _channel.invokeMethod(
+        "set_core_idle_shutdown", delay?.inMilliseconds ?? -1);
+  }
+
+  /// How long the core keeps iterating once it has no call and no account
+  /// registered; null never suspends it
+  Future<void> setCoreIdleSuspend(Duration? delay) async {
+    await _channel.invokeMethod(
+        "set_core_idle_suspend", delay?.inMilliseconds ?? -1);
+  }
+
+  /// Resumes a suspended core, e.g. when a push arrives, so it handles what
+  /// follows without delay. Returns whether it was suspended.
+  Future<bool> wakeCore([String reason = "push"]) async {
+    return await _channel.invokeMethod("wake_core", reason);
+  }
+
+  /// Per-method dispatch count and average/worst time in microseconds
+  Future<Map<String, dynamic>> getDispatchStats() async {
+    Map<Object?, Object?> stats =
+        await _channel.invokeMethod("get_dispatch_stats");
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Queue depth, delivered, batched and dropped counts per event channel
+  Future<Map<String, dynamic>> getEventStats() async {
+    Map<Object?, Object?> stats = await _channel.invokeMethod("get_event_stats");
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Frame count, dropped frames and frame times of the incoming call
+  /// screen animations, as last reported while they ran
+  Future<Map<String, dynamic>> getAnimationStats() async {
+    Map<Object?, Object?> stats = await _channel.invokeMethod("get_animation_stats");
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Main thread messages dispatched, slow and stalled, slow counts and
+  /// times per plugin component, the slowest messages and the stack of the
+  /// last stall. [reset] clears them afterwards.
+  Future<Map<String, dynamic>> getMainThreadStats({bool reset = false}) async {
+    Map<Object?, Object?> stats = await _channel.invokeMethod("get_main_thread_stats", reset);
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Turns the main thread watchdog on or off and sets how long a message
+  /// takes to count as slow and to be reported as a stall. Omitted values
+  /// are left unchanged.
+  Future<void> setMainThreadWatchdog({bool? enabled, int? slowMs, int? stallMs}) async {
+    await _channel.invokeMethod("set_main_thread_watchdog", {
+      if (enabled != null) "enabled": enabled,
+      if (slowMs != null) "slowMs": slowMs,
+      if (stallMs != null) "stallMs": stallMs,
+    });
+  }
+
+  /// Sets the lowest level written to logcat and kept in the in-memory log
+  /// buffer: "verbose", "debug", "info", "warn", "error" or "off". Applies
+  /// to Linphone's log as well. Omitted values are left unchanged.
+  Future<void> setLogLevel({String? logcat, String? buffer, int? bufferSize}) async {
+    await _channel.invokeMethod("set_log_level", {
+      if (logcat != null) "logcat": logcat,
+      if (buffer != null) "buffer": buffer,
+      if (bufferSize != null) "bufferSize": bufferSize,
+    });
+  }
+
+  /// The buffered log as text, oldest message first, e.g. to attach to a
+  /// support ticket. [clear] empties the buffer afterwards.
+  Future<String> exportLogs({bool clear = false}) async {
+    return await _channel.invokeMethod("export_logs", clear);
+  }
+
+  /// Replaces the rules that decide, before anything rings, whether an
+  /// incoming call rings, is rejected or is answered at once.
+  ///
+  /// Allowed callers always ring, then blocked ones are rejected and
+  /// auto-answer ones (e.g. intercoms) answered. Numbers match exactly,
+  /// prefixes match any number starting with them; separators such as
+  /// spaces and dashes are ignored. When [businessDays] (1 = Monday) and
+  /// [openMinute]/[closeMinute] (minutes since midnight in [timeZone], the
+  /// device's by default) are given, other calls are rejected outside them.
+  ///
+  /// Rules are kept in memory only: set them again when the app or the
+  /// headless callback starts. Returns the entry counts of the new set.
+  Future<Map<String, dynamic>> setCallRoutingRules({
+    String? version,
+    List<String> allowNumbers = const [],
+    List<String> allowPrefixes = const [],
+    List<String> blockNumbers = const [],
+    List<String> blockPrefixes = const [],
+    List<String> autoAnswerNumbers = const [],
+    List<String> autoAnswerPrefixes = const [],
+    List<int>? businessDays,
+    int? openMinute,
+    int? closeMinute,
+    String? timeZone,
+  }) async {
+    Map<Object?, Object?> result =
+        await _channel.invokeMethod("set_call_routing_rules", {
+      if (version != null) "version": version,
+      "allow": {"numbers": allowNumbers, "prefixes": allowPrefixes},
+      "block": {"numbers": blockNumbers, "prefixes": blockPrefixes},
+      "autoAnswer": {
+        "numbers": autoAnswerNumbers,
+        "prefixes": autoAnswerPrefixes
+      },
+      if (businessDays != null)
+        "businessHours": {
+          "days": businessDays,
+          "start": openMinute,
+          "end": closeMinute,
+          if (timeZone != null) "timeZone": timeZone,
+        },
+    });
+    return result.cast<String, dynamic>();
+  }
+
+  /// The current routing rules' version and sizes, calls routed per rule
+  /// and the average and worst routing time in nanoseconds
+  Future<Map<String, dynamic>> getCallRoutingStats() async {
+    Map<Object?, Object?> stats =
+        await _channel.invokeMethod("get_call_routing_stats");
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Sets how many incoming calls may ring at once and what happens to
+  /// calls arriving beyond that: "busy" answers 486 Busy Here, "queue" holds
+  /// up to [maxQueued] of them silently until a ringing call ends or is
+  /// answered, "call_waiting" announces up to [maxQueued] of them with a
+  /// notification. Only one call at a time gets the incoming call screen.
+  /// Omitted values are left unchanged.
+  Future<void> setIncomingCallPolicy(
+      {int? maxRinging, String? overflow, int? maxQueued}) async {
+    await _channel.invokeMethod("set_incoming_call_policy", {
+      if (maxRinging != null) "maxRinging": maxRinging,
+      if (overflow != null) "overflow": overflow,
+      if (maxQueued != null) "maxQueued": maxQueued,
+    });
+  }
+
+  /// The incoming call policy and how many calls rang, got busy, were
+  /// queued, were announced as waiting or rang after being queued. [reset]
+  /// clears the counts afterwards.
+  Future<Map<String, dynamic>> getIncomingCallStats({bool reset = false}) async {
+    Map<Object?, Object?> stats =
+        await _channel.invokeMethod("get_incoming_call_stats", reset);
+    return stats.cast<String, dynamic>();
+  }
+
+  /// Runs [entryPoint] in a headless engine whenever the background service
+  /// starts, so call and registration events reach Dart without any UI.
+  ///
+  /// [entryPoint] must be a top-level or static function annotated with
+  /// `@pragma('vm:entry-point')`. It should call
+  /// `WidgetsFlutterBinding.ensureInitialized()` before listening, e.g. with
+  /// [addCallEventListener].
+  Future<void> registerHeadlessCallback(void Function() entryPoint) async {
+    final handle = PluginUtilities.getCallbackHandle(entryPoint);
+    if (handle == null) {
+      throw ArgumentError.value(
+          entryPoint, "entryPoint", "Must be a top-level or static function");
+    }
+    await _channel.invokeMethod("set_headless_callback", handle.toRawHandle());
+  }
+
+  /// Limits for events kept while nobody listens on [channel], e.g.
+  /// "linphonesdk/call_event_listener". A [size] of 0 turns replay off.
+  Future<void> setEventReplay(String channel,
+      {int? size, Duration? maxAge}) async {
+    await _channel.invokeMethod("set_event_replay", {
+      "channel": channel,
+      "size": size,
+      "maxAgeMs": maxAge?.inMilliseconds,
+    });
+  }
+
+  /// Service status, registrations, calls and network reachability in one call
+  Future<PluginState> getStateSnapshot() async {
+    Map<Object?, Object?> snapshot =
+        await _channel.invokeMethod("get_state_snapshot");
+    return PluginState.fromSnapshot(snapshot);
+  }
+
+  /// Emits the full state whenever the native side reports a change.
+  ///
+  /// Diffs are applied in sequence order; if one is missed the snapshot is
+  /// fetched again instead of applying a diff on top of a stale state.
+  Stream<PluginState> watchState() async* {
+    PluginState? state;
+    await for (final event in _events(_stateListener)) {
+      final diff = event as Map<Object?, Object?>;
+      if (state != null && state.follows(diff)) {
+        state = state.apply(diff);
+      } else if (state == null || (diff['seq'] as int) > state.seq) {
+        state = await getStateSnapshot();
+      } else {
+        continue;
+      }
+      yield state;
+    }
+  }
+
+  /// Events arrive from the native side in per-frame batches
+  static Stream<Object?> _events(EventChannel channel) {
+    return channel
+        .receiveBroadcastStream()
+        .expand((batch) => batch as List<Object?>);
+  }
+
+  /// Registration changes with account identity and monotonic timestamp
+  Stream<RegistrationEvent> addRegistrationEventListener() {
+    return _events(_loginEventListener).map((event) => event as RegistrationEvent);
+  }
+
+  /// Call state changes with call ID, monotonic timestamp, reason and remote
+  Stream<CallEvent> addCallEventListener() {
+    return _events(_callEventListener).map((event) => event as CallEvent);
+  }
+
+  /// Device conditions; starts with the current state, then each change
+  Stream<DeviceState> addDeviceStateListener() {
+    return _events(_deviceStateListener).map((event) => event as DeviceState);
+  }
+
   Stream<LoginState> addLoginListener() {
-    return _loginEventListener.receiveBroadcastStream().map((event) {
-      LoginState loginState = LoginState.none;
-      if (event == "Ok") {
-        loginState = LoginState.ok;
-      } else if (event == "Progress") {
-        loginState = LoginState.progress;
-      } else if (event == "None") {
-        loginState = LoginState.none;
-      } else if (event == "Cleared") {
-        loginState = LoginState.cleared;
-      } else if (event == "Failed") {
-        loginState = LoginState.failed;
+    return addRegistrationEventListener().map((event) {
+      switch (event.state) {
+        case "Ok":
+          return LoginState.ok;
+        case "Progress":
+          return LoginState.progress;
+        case "Cleared":
+          return LoginState.cleared;
+        case "Failed":
+          return LoginState.failed;
+        case "None":
+        default:
+          return LoginState.none;
       }
-      return loginState;
     });
   }
 
   Stream<CallState> addCallStateListener() {
-    return _callEventListener.receiveBroadcastStream().map((event) {
-      print("Event: $event");
-      CallState callState = CallState.idle;
-      if (event == "IncomingReceived") {
-        callState = CallState.IncomingReceived;
-      } else if (event == "OutgoingInit") {
-        callState = CallState.outgoingInit;
-      } else if (event == "OutgoingProgress") {
-        callState = CallState.outgoingProgress;
-      } else if (event == "OutgoingRinging") {
-        callState = CallState.outgoingRinging;
-      } else if (event == "Connected") {
-        callState = CallState.connected;
-      } else if (event == "StreamsRunning") {
-        callState = CallState.streamsRunning;
-      } else if (event == "Paused") {
-        callState = CallState.paused;
-      } else if (event == "PausedByRemote") {
-        callState = CallState.pausedByRemote;
-      } else if (event == "Updating") {
-        callState = CallState.updating;
-      } else if (event == "UpdatedByRemote") {
-        callState = CallState.updatedByRemote;
-      } else if (event == "Released") {
-        callState = CallState.released;
-      } else if (event == "EarlyUpdatedByRemote") {
-        callState = CallState.earlyUpdatedByRemote;
-      } else if (event == "Error") {
-        callState = CallState.error;
+    return addCallEventListener().map((event) {
+      switch (event.state) {
+        case "IncomingReceived":
+          return CallState.IncomingReceived;
+        case "OutgoingInit":
+          return CallState.outgoingInit;
+        case "OutgoingProgress":
+          return CallState.outgoingProgress;
+        case "OutgoingRinging":
+          return CallState.outgoingRinging;
+        case "Connected":
+          return CallState.connected;
+        case "StreamsRunning":
+          return CallState.streamsRunning;
+        case "Paused":
+          return CallState.paused;
+        case "PausedByRemote":
+          return CallState.pausedByRemote;
+        case "Updating":
+          return CallState.updating;
+        case "UpdatedByRemote":
+          return CallState.updatedByRemote;
+        case "Released":
+          return CallState.released;
+        case "EarlyUpdatedByRemote":
+          return CallState.earlyUpdatedByRemote;
+        case "Error":
+          return CallState.error;
+        default:
+          return CallState.idle;
       }
-      return callState;
     });
   }
 }
@@ -0,0 +1,487 @@
+import 'dart:convert';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:linphone_flutter_plugin/CallLog.dart';
+
+/// Typed messages for the "linphonesdk" channel.
+///
+/// Mirrors android/.../PluginMessages.java: every message is written as a
+/// custom codec type followed by the list of its fields. Keep the type ids
+/// and field order in sync with the Java side.
+class LoginRequest {
+  LoginRequest({
+    required this.userName,
+    required this.domain,
+    required this.password,
+  });
+
+  final String userName;
+  final String domain;
+  final String password;
+
+  Object encode() => <Object?>[userName, domain, password];
+
+  static LoginRequest decode(Object result) {
+    final list = result as List<Object?>;
+    return LoginRequest(
+      userName: list[0]! as String,
+      domain: list[1]! as String,
+      password: list[2]! as String,
+    );
+  }
+}
+
+class CallRequest {
+  CallRequest({required this.number});
+
+  final String number;
+
+  Object encode() => <Object?>[number];
+
+  static CallRequest decode(Object result) {
+    final list = result as List<Object?>;
+    return CallRequest(number: list[0]! as String);
+  }
+}
+
+class TransferRequest {
+  TransferRequest({required this.destination});
+
+  final String destination;
+
+  Object encode() => <Object?>[destination];
+
+  static TransferRequest decode(Object result) {
+    final list = result as List<Object?>;
+    return TransferRequest(destination: list[0]! as String);
+  }
+}
+
+/// One command of an [executeBatch] call.
+class BatchCommand {
+  BatchCommand(this.method, [this.arguments]);
+
+  final String method;
+  final Object? arguments;
+
+  Object encode() => <Object?>[method, arguments];
+
+  static BatchCommand decode(Object result) {
+    final list = result as List<Object?>;
+    return BatchCommand(list[0]! as String, list[1]);
+  }
+}
+
+/// Outcome of one [BatchCommand], in the order the commands were sent.
+class BatchResult {
+  BatchResult({
+    required this.method,
+    required this.success,
+    this.result,
+    this.errorCode,
+    this.errorMessage,
+    this.errorDetails,
+  });
+
+  final String? method;
+  final bool success;
+  final Object? result;
+  final String? errorCode;
+  final String? errorMessage;
+  final Object? errorDetails;
+
+  Object encode() => <Object?>[
+        method,
+        success,
+        result,
+        errorCode,
+        errorMessage,
+        errorDetails,
+      ];
+
+  static BatchResult decode(Object result) {
+    final list = result as List<Object?>;
+    return BatchResult(
+      method: list[0] as String?,
+      success: list[1]! as bool,
+      result: list[2],
+      errorCode: list[3] as String?,
+      errorMessage: list[4] as String?,
+      errorDetails: list[5],
+    );
+  }
+}
+
+/// Call state change from "linphonesdk/call_event_listener".
+///
+/// [timestampMs] is a monotonic clock (Android `elapsedRealtime`), so the
+/// difference between two events of the same [callId] gives setup latency or
+/// call duration without further method calls.
+class CallEvent {
+  CallEvent({
+    required this.callId,
+    required this.timestampMs,
+    required this.state,
+    this.reason,
+    this.remoteAddress,
+    this.remoteName,
+  });
+
+  final String? callId;
+  final int timestampMs;
+  final String state;
+  final String? reason;
+  final String? remoteAddress;
+  final String? remoteName;
+
+  Object encode() =>
+      <Object?>[callId, timestampMs, state, reason, remoteAddress, remoteName];
+
+  static CallEvent decode(Object result) {
+    final list = result as List<Object?>;
+    return CallEvent(
+      callId: list[0] as String?,
+      timestampMs: list[1]! as int,
+      state: list[2]! as String,
+      reason: list[3] as String?,
+      remoteAddress: list[4] as String?,
+      remoteName: list[5] as String?,
+    );
+  }
+}
+
+/// Account registration change from "linphonesdk/login_listener".
+class RegistrationEvent {
+  RegistrationEvent({
+    required this.identity,
+    required this.timestampMs,
+    required this.state,
+    this.message,
+  });
+
+  final String? identity;
+  final int timestampMs;
+  final String state;
+  final String? message;
+
+  Object encode() => <Object?>[identity, timestampMs, state, message];
+
+  static RegistrationEvent decode(Object result) {
+    final list = result as List<Object?>;
+    return RegistrationEvent(
+      identity: list[0] as String?,
+      timestampMs: list[1]! as int,
+      state: list[2]! as String,
+      message: list[3] as String?,
+    );
+  }
+}
+
+/// Window of the call history for "call_logs", newest first.
+///
+/// [cursor] is the [CallLogPage.nextCursor] of the previous page. With
+/// [changeToken] from an earlier page, only entries added since are returned.
+/// [since] is in seconds, like [CallHistory.date].
+class CallLogQuery {
+  CallLogQuery({
+    this.cursor,
+    this.pageSize = 50,
+    this.direction,
+    this.status,
+    this.since,
+    this.changeToken,
+  });
+
+  final String? cursor;
+  final int pageSize;
+
+  /// "Incoming" or "Outgoing"
+  final String? direction;
+
+  /// "Success", "Aborted", "Missed", "Declined", ...
+  final String? status;
+  final int? since;
+  final String? changeToken;
+
+  Object encode() =>
+      <Object?>[cursor, pageSize, direction, status, since, changeToken];
+}
+
+class CallLogPage {
+  CallLogPage({
+    required this.entries,
+    this.nextCursor,
+    this.changeToken,
+  });
+
+  final List<CallHistory> entries;
+
+  /// Null on the last page
+  final String? nextCursor;
+  final String? changeToken;
+
+  static CallLogPage decode(Object result) {
+    final list = result as List<Object?>;
+    return CallLogPage(
+      entries: (list[0]! as List<Object?>).cast<CallHistory>(),
+      nextCursor: list[1] as String?,
+      changeToken: list[2] as String?,
+    );
+  }
+}
+
+/// Search of the native call-history index.
+///
+/// Matches [query] against the start of the number, the display name or one
+/// of its words, or anywhere in them with [substring]. An empty query lists
+/// the most recent calls. With [groupByContact] the result holds one
+/// [HistoryGroup] per number instead of [CallHistory] entries.
+class HistorySearch {
+  HistorySearch({
+    this.query,
+    this.substring = false,
+    this.limit = 50,
+    this.groupByContact = false,
+  });
+
+  final String? query;
+  final bool substring;
+  final int limit;
+  final bool groupByContact;
+
+  Object encode() => <Object?>[query, substring, limit, groupByContact];
+}
+
+class HistoryGroup {
+  HistoryGroup({
+    required this.number,
+    this.displayName,
+    required this.lastDate,
+    required this.callCount,
+    required this.missedCount,
+  });
+
+  final String number;
+  final String? displayName;
+  final int lastDate;
+  final int callCount;
+  final int missedCount;
+
+  static HistoryGroup decode(Object result) {
+    final list = result as List<Object?>;
+    return HistoryGroup(
+      number: list[0]! as String,
+      displayName: list[1] as String?,
+      lastDate: list[2]! as int,
+      callCount: list[3]! as int,
+      missedCount: list[4]! as int,
+    );
+  }
+}
+
+/// Battery, power, thermal, screen and network conditions from
+/// "linphonesdk/device_state".
+///
+/// [batteryPercent] and [thermalStatus] are -1 when unknown; [thermalStatus]
+/// follows Android's `PowerManager.THERMAL_STATUS_*` (0 none to 6 shutdown).
+/// [network] is NONE, WIFI, CELLULAR, ETHERNET or OTHER.
+class DeviceState {
+  DeviceState({
+    required this.batteryPercent,
+    required this.charging,
+    required this.powerSave,
+    required this.thermalStatus,
+    required this.screenOn,
+    required this.network,
+    required this.metered,
+  });
+
+  final int batteryPercent;
+  final bool charging;
+  final bool powerSave;
+  final int thermalStatus;
+  final bool screenOn;
+  final String network;
+  final bool metered;
+
+  static DeviceState decode(Object result) {
+    final list = result as List<Object?>;
+    return DeviceState(
+      batteryPercent: list[0]! as int,
+      charging: list[1]! as bool,
+      powerSave: list[2]! as bool,
+      thermalStatus: list[3]! as int,
+      screenOn: list[4]! as bool,
+      network: list[5]! as String,
+      metered: list[6]! as bool,
+    );
+  }
+}
+
+/// Call history sent column by column by "call_logs_columns".
+///
+/// Entries are decoded from the columns only when read, so a long history
+/// costs a handful of typed arrays until the UI actually shows it.
+class CallHistoryColumns {
+  CallHistoryColumns._(this.length, this._numbers, this._displayNames,
+      this._callIds, this._dates, this._durations, this._statuses,
+      this._statusNames, this._directions);
+
+  final int length;
+  final _StringColumn _numbers;
+  final _StringColumn _displayNames;
+  final _StringColumn _callIds;
+  final Int64List _dates;
+  final Int32List _durations;
+  final Uint8List _statuses;
+  final List<String> _statusNames;
+  final Uint8List _directions;
+
+  CallHistory operator [](int index) {
+    RangeError.checkValidIndex(index, this, "index", length);
+    final displayName = _displayNames[index];
+    return CallHistory(
+      number: _numbers[index],
+      duration: _durations[index],
+      status: _statusNames[_statuses[index]],
+      date: _dates[index],
+      callId: _callIds[index],
+      direction: _directions[index] == 1 ? "Outgoing" : "Incoming",
+      displayName: displayName.isEmpty ? null : displayName,
+    );
+  }
+
+  List<CallHistory> toList() =>
+      List<CallHistory>.generate(length, (index) => this[index]);
+
+  static CallHistoryColumns decode(Object result) {
+    final list = result as List<Object?>;
+    return CallHistoryColumns._(
+      list[0]! as int,
+      _StringColumn(list[1]! as Uint8List, list[2]! as Int32List),
+      _StringColumn(list[3]! as Uint8List, list[4]! as Int32List),
+      _StringColumn(list[5]! as Uint8List, list[6]! as Int32List),
+      list[7]! as Int64List,
+      list[8]! as Int32List,
+      list[9]! as Uint8List,
+      (list[10]! as List<Object?>).cast<String>(),
+      list[11]! as Uint8List,
+    );
+  }
+}
+
+class _StringColumn {
+  _StringColumn(this.bytes, this.offsets);
+
+  final Uint8List bytes;
+  final Int32List offsets;
+
+  String operator [](int index) => utf8.decode(
+      Uint8List.sublistView(bytes, offsets[index], offsets[index + 1]));
+}
+
+class PluginCodec extends StandardMessageCodec {
+  const PluginCodec();
+
+  static const int _callHistory = 128;
+  static const int _loginRequest = 129;
+  static const int _callRequest = 130;
+  static const int _transferRequest = 131;
+  static const int _batchCommand = 132;
+  static const int _batchResult = 133;
+  static const int _callEvent = 134;
+  static const int _registrationEvent = 135;
+  static const int _callLogQuery = 136;
+  static const int _callLogPage = 137;
+  static const int _historySearch = 138;
+  static const int _historyGroup = 139;
+  static const int _callHistoryColumns = 140;
+  static const int _deviceState = 141;
+
+  @override
+  void writeValue(WriteBuffer buffer, Object? value) {
+    if (value is CallHistory) {
+      buffer.putUint8(_callHistory);
+      writeValue(buffer, <Object?>[
+        value.number,
+        value.duration,
+        value.status,
+        value.date,
+        value.callId,
+        value.direction,
+        value.displayName
+      ]);
+    } else if (value is LoginRequest) {
+      buffer.putUint8(_loginRequest);
+      writeValue(buffer, value.encode());
+    } else if (value is CallRequest) {
+      buffer.putUint8(_callRequest);
+      writeValue(buffer, value.encode());
+    } else if (value is TransferRequest) {
+      buffer.putUint8(_transferRequest);
+      writeValue(buffer, value.encode());
+    } else if (value is BatchCommand) {
+      buffer.putUint8(_batchCommand);
+      writeValue(buffer, value.encode());
+    } else if (value is BatchResult) {
+      buffer.putUint8(_batchResult);
+      writeValue(buffer, value.encode());
+    } else if (value is CallEvent) {
+      buffer.putUint8(_callEvent);
+      writeValue(buffer, value.encode());
+    } else if (value is RegistrationEvent) {
+      buffer.putUint8(_registrationEvent);
+      writeValue(buffer, value.encode());
+    } else if (value is CallLogQuery) {
+      buffer.putUint8(_callLogQuery);
+      writeValue(buffer, value.encode());
+    } else if (value is HistorySearch) {
+      buffer.putUint8(_historySearch);
+      writeValue(buffer, value.encode());
+    } else {
+      super.writeValue(buffer, value);
+    }
+  }
+
+  @override
+  Object? readValueOfType(int type, ReadBuffer buffer) {
+    switch (type) {
+      case _callHistory:
+        final list = readValue(buffer)! as List<Object?>;
+        return CallHistory(
+          number: list[0] as String? ?? '',
+          duration: list[1]! as int,
+          status: list[2]! as String,
+          date: list[3]! as int,
+          callId: list.length > 4 ? list[4] as String? : null,
+          direction: list.length > 5 ? list[5] as String? : null,
+          displayName: list.length > 6 ? list[6] as String? : null,
+        );
+      case _loginRequest:
+        return LoginRequest.decode(readValue(buffer)!);
+      case _callRequest:
+        return CallRequest.decode(readValue(buffer)!);
+      case _transferRequest:
+        return TransferRequest.decode(readValue(buffer)!);
+      case _batchCommand:
+        return BatchCommand.decode(readValue(buffer)!);
+      case _batchResult:
+        return BatchResult.decode(readValue(buffer)!);
+      case _callEvent:
+        return CallEvent.decode(readValue(buffer)!);
+      case _registrationEvent:
+        return RegistrationEvent.decode(readValue(buffer)!);
+      case _callLogPage:
+        return CallLogPage.decode(readValue(buffer)!);
+      case _historyGroup:
+        return HistoryGroup.decode(readValue(buffer)!);
+      case _callHistoryColumns:
+        return CallHistoryColumns.decode(readValue(buffer)!);
+      case _deviceState:
+        return DeviceState.decode(readValue(buffer)!);
+      default:
+        return super.readValueOfType(type, buffer);
+    }
+  }
+}
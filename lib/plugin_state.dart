@@ -0,0 +1,51 @@
+/// Snapshot of the native plugin state, kept in sync by applying the diffs
+/// pushed on "linphonesdk/state_listener".
+class PluginState {
+  PluginState._(this.seq, this.values);
+
+  factory PluginState.fromSnapshot(Map<Object?, Object?> snapshot) {
+    return PluginState._(
+      snapshot['seq'] as int? ?? 0,
+      Map<String, Object?>.from(snapshot.cast<String, Object?>())
+        ..remove('seq')
+        ..remove('version'),
+    );
+  }
+
+  /// Sequence number of the last diff folded into this state.
+  final int seq;
+  final Map<String, Object?> values;
+
+  bool get serviceRunning => values['serviceRunning'] as bool? ?? false;
+
+  bool get networkReachable => values['networkReachable'] as bool? ?? false;
+
+  List<Map<Object?, Object?>> get accounts =>
+      (values['accounts'] as List<Object?>? ?? const [])
+          .cast<Map<Object?, Object?>>();
+
+  List<Map<Object?, Object?>> get calls =>
+      (values['calls'] as List<Object?>? ?? const [])
+          .cast<Map<Object?, Object?>>();
+
+  bool get hasActiveCall => calls.isNotEmpty;
+
+  /// Registration state of the default account, e.g. "Ok" or "Failed".
+  String get registrationState {
+    for (final account in accounts) {
+      if (account['isDefault'] == true) return account['state'] as String;
+    }
+    return 'None';
+  }
+
+  /// Whether [diff] directly follows this state. A false result means a diff
+  /// was missed and the full snapshot must be fetched again.
+  bool follows(Map<Object?, Object?> diff) => diff['seq'] == seq + 1;
+
+  PluginState apply(Map<Object?, Object?> diff) {
+    final changes = (diff['changes'] as Map<Object?, Object?>)
+        .cast<String, Object?>();
+    return PluginState._(
+        diff['seq'] as int, Map<String, Object?>.from(values)..addAll(changes));
+  }
+}